@@ -0,0 +1,28 @@
+#!/bin/sh
+# Сборка и запуск JMH бенчмарков с сохранением результатов в JSON по хешу коммита.
+# Параметры окружения: FORKS, WARMUP, ITERATIONS, PROFILERS (например "gc"), BENCH (регулярное выражение)
+set -e
+
+cd "$(dirname "$0")/.."
+
+FORKS=${FORKS:-1}
+WARMUP=${WARMUP:-5}
+ITERATIONS=${ITERATIONS:-5}
+PROFILERS=${PROFILERS:-gc}
+BENCH=${BENCH:-.*}
+COMMIT=$(git rev-parse --short HEAD 2>/dev/null || echo local)
+RESULTS_DIR=benchmarks/results
+
+mvn -B -q -Pbenchmarks -DskipTests package -pl benchmarks -am
+
+PROF_ARGS=""
+for profiler in $(echo "$PROFILERS" | tr ',' ' '); do
+    PROF_ARGS="$PROF_ARGS -prof $profiler"
+done
+
+mkdir -p "$RESULTS_DIR"
+java -jar benchmarks/target/benchmarks.jar "$BENCH" \
+    -f "$FORKS" -wi "$WARMUP" -i "$ITERATIONS" $PROF_ARGS \
+    -rf json -rff "$RESULTS_DIR/$COMMIT.json"
+
+echo "Результаты: $RESULTS_DIR/$COMMIT.json"
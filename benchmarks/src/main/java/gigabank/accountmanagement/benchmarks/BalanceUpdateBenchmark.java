@@ -0,0 +1,87 @@
+package gigabank.accountmanagement.benchmarks;
+
+import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import gigabank.accountmanagement.enums.TransactionType;
+import gigabank.accountmanagement.model.BankAccountEntity;
+import gigabank.accountmanagement.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Применение транзакции к балансу счета (TransactionService.updateAccountBalance).
+ * Метод приватный и не использует зависимости сервиса, поэтому вызывается через MethodHandle
+ * на экземпляре, собранном без зависимостей
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BalanceUpdateBenchmark {
+    private static final MethodHandle UPDATE_ACCOUNT_BALANCE = updateAccountBalanceHandle();
+
+    private TransactionService transactionService;
+    private BankAccountEntity account;
+    private TransactionMessage deposit;
+    private TransactionMessage withdrawal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        Constructor<?> constructor = TransactionService.class.getDeclaredConstructors()[0];
+        transactionService = (TransactionService) constructor.newInstance(
+                new Object[constructor.getParameterCount()]);
+
+        account = new BankAccountEntity();
+        account.setId(1L);
+
+        deposit = BenchmarkData.message(0);
+        deposit.setType(TransactionType.DEPOSIT);
+        withdrawal = BenchmarkData.message(1);
+        withdrawal.setType(TransactionType.WITHDRAWAL);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetBalance() {
+        account.setBalance(new BigDecimal("1000000000.00"));
+    }
+
+    @Benchmark
+    public BigDecimal deposit() throws Throwable {
+        UPDATE_ACCOUNT_BALANCE.invokeExact(transactionService, account, deposit);
+        return account.getBalance();
+    }
+
+    @Benchmark
+    public BigDecimal depositThenWithdraw() throws Throwable {
+        UPDATE_ACCOUNT_BALANCE.invokeExact(transactionService, account, deposit);
+        UPDATE_ACCOUNT_BALANCE.invokeExact(transactionService, account, withdrawal);
+        return account.getBalance();
+    }
+
+    private static MethodHandle updateAccountBalanceHandle() {
+        try {
+            return MethodHandles.privateLookupIn(TransactionService.class, MethodHandles.lookup())
+                    .findVirtual(TransactionService.class, "updateAccountBalance",
+                            MethodType.methodType(void.class, BankAccountEntity.class, TransactionMessage.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("TransactionService.updateAccountBalance недоступен", e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package gigabank.accountmanagement.benchmarks;
+
+import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import gigabank.accountmanagement.kafka.serialization.BinaryMessageDeserializer;
+import gigabank.accountmanagement.kafka.serialization.BinaryMessageSerializer;
+import gigabank.accountmanagement.kafka.serialization.PooledTransactionBatch;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение разбора батча transactions-batch: десериализация контейнером (JSON и бинарный формат)
+ * против разбора сырых значений в переиспользуемые держатели PooledTransactionBatch.
+ * Аллокации на запись смотреть с -prof gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchDeserializationBenchmark {
+    private static final String TOPIC = "transactions-batch";
+
+    @Param({"20", "500"})
+    private int batchSize;
+
+    private List<ConsumerRecord<String, byte[]>> jsonRecords;
+    private List<ConsumerRecord<String, byte[]>> binaryRecords;
+    private JsonDeserializer<Object> jsonDeserializer;
+    private BinaryMessageDeserializer binaryDeserializer;
+    private PooledTransactionBatch pooledBatch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, Object> consumerConfig = Map.of(
+                JsonDeserializer.TRUSTED_PACKAGES, "*",
+                JsonDeserializer.USE_TYPE_INFO_HEADERS, false,
+                JsonDeserializer.VALUE_DEFAULT_TYPE, TransactionMessage.class.getName());
+
+        jsonDeserializer = new JsonDeserializer<>();
+        jsonDeserializer.configure(consumerConfig, false);
+        binaryDeserializer = new BinaryMessageDeserializer();
+        binaryDeserializer.configure(consumerConfig, false);
+        pooledBatch = new PooledTransactionBatch();
+
+        JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+        jsonSerializer.configure(Map.of(JsonSerializer.ADD_TYPE_INFO_HEADERS, false), false);
+        BinaryMessageSerializer binarySerializer = new BinaryMessageSerializer();
+        binarySerializer.configure(Map.of(), false);
+
+        jsonRecords = new ArrayList<>(batchSize);
+        binaryRecords = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            TransactionMessage message = BenchmarkData.message(i);
+            jsonRecords.add(record(i, jsonSerializer.serialize(TOPIC, message)));
+            binaryRecords.add(record(i, binarySerializer.serialize(TOPIC, message)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jsonDeserializer.close();
+        binaryDeserializer.close();
+    }
+
+    @Benchmark
+    public void containerJson(Blackhole blackhole) {
+        List<Object> batch = new ArrayList<>(jsonRecords.size());
+        for (ConsumerRecord<String, byte[]> record : jsonRecords) {
+            batch.add(jsonDeserializer.deserialize(TOPIC, record.value()));
+        }
+        blackhole.consume(batch);
+    }
+
+    @Benchmark
+    public void containerBinary(Blackhole blackhole) {
+        List<Object> batch = new ArrayList<>(binaryRecords.size());
+        for (ConsumerRecord<String, byte[]> record : binaryRecords) {
+            batch.add(binaryDeserializer.deserialize(TOPIC, record.value()));
+        }
+        blackhole.consume(batch);
+    }
+
+    @Benchmark
+    public void pooledBinary(Blackhole blackhole) {
+        blackhole.consume(pooledBatch.decode(binaryRecords));
+    }
+
+    @Benchmark
+    public void pooledJson(Blackhole blackhole) {
+        blackhole.consume(pooledBatch.decode(jsonRecords));
+    }
+
+    private static ConsumerRecord<String, byte[]> record(long offset, byte[] value) {
+        return new ConsumerRecord<>(TOPIC, 0, offset, null, value);
+    }
+}
@@ -0,0 +1,61 @@
+package gigabank.accountmanagement.benchmarks;
+
+import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import gigabank.accountmanagement.dto.response.TransactionResponse;
+import gigabank.accountmanagement.enums.TransactionType;
+import gigabank.accountmanagement.model.BankAccountEntity;
+import gigabank.accountmanagement.model.TransactionEntity;
+import gigabank.accountmanagement.model.UserEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Детерминированные тестовые данные для бенчмарков
+ */
+final class BenchmarkData {
+    private static final LocalDateTime BASE_DATE = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private BenchmarkData() {
+    }
+
+    static TransactionMessage message(int i) {
+        return TransactionMessage.builder()
+                .id(1_000_000L + i)
+                .bankAccountId((long) (i % 100) + 1)
+                .value(new BigDecimal(i % 1000 + ".50"))
+                .type(TransactionType.values()[i % TransactionType.values().length])
+                .category("SHOPPING")
+                .createdDate(BASE_DATE.plusSeconds(i))
+                .targetAccount("ACC" + (i % 100))
+                .build();
+    }
+
+    static TransactionResponse response(int i) {
+        return new TransactionResponse(1_000_000L + i, new BigDecimal(i % 1000 + ".50"),
+                TransactionType.values()[i % TransactionType.values().length], "SHOPPING",
+                BASE_DATE.plusSeconds(i), (long) (i % 100) + 1, "User " + (i % 100 + 1));
+    }
+
+    static TransactionEntity entity(int i) {
+        UserEntity owner = new UserEntity();
+        owner.setId((long) (i % 100) + 1);
+        owner.setName("User " + owner.getId());
+
+        BankAccountEntity account = new BankAccountEntity();
+        account.setId(owner.getId());
+        account.setBalance(new BigDecimal("100000.00"));
+        account.setOwner(owner);
+
+        return TransactionEntity.builder()
+                .id(1_000_000L + i)
+                .value(new BigDecimal(i % 1000 + ".50"))
+                .type(TransactionType.values()[i % TransactionType.values().length])
+                .category("SHOPPING")
+                .createdDate(BASE_DATE.plusSeconds(i))
+                .sourceAccount("ACC" + account.getId())
+                .targetAccount("ACC" + (i % 100))
+                .bankAccountEntity(account)
+                .build();
+    }
+}
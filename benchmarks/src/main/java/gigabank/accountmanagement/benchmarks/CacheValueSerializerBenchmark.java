@@ -0,0 +1,74 @@
+package gigabank.accountmanagement.benchmarks;
+
+import gigabank.accountmanagement.config.RedisConfig;
+import gigabank.accountmanagement.dto.response.TransactionResponse;
+import gigabank.accountmanagement.service.cache.BinaryCacheValueSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Список TransactionResponse счета в текущем JSON формате кэша
+ * с типами EVERYTHING и в бинарном формате CacheValueCodec без сжатия и с LZ4.
+ * Размер значения и байт на запись печатаются при подготовке каждой комбинации параметров
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheValueSerializerBenchmark {
+
+    @Param({"json", "binary", "binary-lz4"})
+    public String format;
+
+    @Param({"10", "200"})
+    public int entries;
+
+    private RedisSerializer<Object> serializer;
+    private List<TransactionResponse> value;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RedisSerializer<Object> json = new RedisConfig().redisSerializer();
+        serializer = switch (format) {
+            case "json" -> json;
+            case "binary" -> new BinaryCacheValueSerializer(json, true, 0);
+            default -> new BinaryCacheValueSerializer(json, true, 1024);
+        };
+
+        value = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            value.add(BenchmarkData.response(i));
+        }
+        encoded = serializer.serialize(value);
+        System.out.printf("%n%s, %d записей: %d байт, %.1f байт на запись%n",
+                format, entries, encoded.length, (double) encoded.length / entries);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(encoded);
+    }
+}
@@ -0,0 +1,97 @@
+package gigabank.accountmanagement.benchmarks;
+
+import gigabank.accountmanagement.service.idempotency.OffHeapLongTimeSet;
+import gigabank.accountmanagement.service.idempotency.RotatingBloomFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверка и отметка обработанных транзакций: прежняя ConcurrentHashMap против горячего
+ * off-heap уровня и Bloom-фильтра TieredIdempotencyStore. Заполнена половина ключей
+ * (четные), поэтому проверки дают поровну попаданий и промахов
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdempotencyBenchmark {
+    private static final long TTL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    @Param({"100000"})
+    private int keySpace;
+
+    private ConcurrentHashMap<Long, Boolean> processedMap;
+    private OffHeapLongTimeSet offHeapSet;
+    private RotatingBloomFilter bloomFilter;
+    private long now;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        now = System.currentTimeMillis();
+        processedMap = new ConcurrentHashMap<>();
+        offHeapSet = new OffHeapLongTimeSet(keySpace, TTL_MILLIS);
+        bloomFilter = new RotatingBloomFilter(keySpace, 0.01, TTL_MILLIS, 1, now);
+
+        for (long key = 0; key < keySpace; key += 2) {
+            processedMap.put(key, Boolean.TRUE);
+            offHeapSet.add(key, now);
+            bloomFilter.put(key, now);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class KeyCursor {
+        private long next;
+
+        long next(int keySpace) {
+            long key = next;
+            next = next + 1 < keySpace ? next + 1 : 0;
+            return key;
+        }
+    }
+
+    @Benchmark
+    public boolean concurrentHashMapContains(KeyCursor cursor) {
+        return processedMap.containsKey(cursor.next(keySpace));
+    }
+
+    @Benchmark
+    public boolean offHeapContains(KeyCursor cursor) {
+        return offHeapSet.contains(cursor.next(keySpace), now);
+    }
+
+    @Benchmark
+    public boolean bloomMightContain(KeyCursor cursor) {
+        return bloomFilter.mightContain(cursor.next(keySpace), now);
+    }
+
+    @Benchmark
+    public Boolean concurrentHashMapPut(KeyCursor cursor) {
+        return processedMap.put(cursor.next(keySpace) & ~1L, Boolean.TRUE);
+    }
+
+    @Benchmark
+    public void offHeapAdd(KeyCursor cursor) {
+        offHeapSet.add(cursor.next(keySpace) & ~1L, now);
+    }
+
+    @Benchmark
+    public void bloomPut(KeyCursor cursor) {
+        bloomFilter.put(cursor.next(keySpace) & ~1L, now);
+    }
+}
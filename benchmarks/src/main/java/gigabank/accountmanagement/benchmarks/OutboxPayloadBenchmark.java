@@ -0,0 +1,48 @@
+package gigabank.accountmanagement.benchmarks;
+
+import gigabank.accountmanagement.model.OutboxMessage;
+import gigabank.accountmanagement.model.TransactionEntity;
+import gigabank.accountmanagement.service.OutboxEventFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Формирование payload и outbox события для сохраненной транзакции
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutboxPayloadBenchmark {
+    private OutboxEventFactory outboxEventFactory;
+    private TransactionEntity transaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        outboxEventFactory = new OutboxEventFactory();
+        transaction = BenchmarkData.entity(42);
+    }
+
+    @Benchmark
+    public String createEventPayload() {
+        return outboxEventFactory.createEventPayload(transaction);
+    }
+
+    @Benchmark
+    public OutboxMessage createTransferCompletedEvent() {
+        return outboxEventFactory.createTransferCompletedEvent(transaction);
+    }
+}
@@ -0,0 +1,42 @@
+package gigabank.accountmanagement.benchmarks;
+
+import gigabank.accountmanagement.dto.kafka.ProcessingMetrics;
+import gigabank.accountmanagement.dto.kafka.ProcessingMetricsSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обновление счетчиков ProcessingMetrics из многих потоков, как при нескольких
+ * потоках контейнера Kafka. Число потоков меняется опцией -t
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class ProcessingMetricsBenchmark {
+    private final ProcessingMetrics metrics = new ProcessingMetrics();
+
+    @Benchmark
+    public void incrementSuccessfulTransactions() {
+        metrics.incrementSuccessfulTransactions();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ProcessingMetricsSnapshot snapshot() {
+        return metrics.snapshot();
+    }
+}
@@ -0,0 +1,105 @@
+package gigabank.accountmanagement.benchmarks;
+
+import gigabank.accountmanagement.enums.ProducerProfile;
+import gigabank.accountmanagement.kafka.serialization.BinaryMessageSerializer;
+import org.apache.kafka.common.record.CompressionType;
+import org.apache.kafka.common.record.MemoryRecords;
+import org.apache.kafka.common.record.MemoryRecordsBuilder;
+import org.apache.kafka.common.record.Record;
+import org.apache.kafka.common.record.TimestampType;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сборка батча записей продюсером Kafka для каждого ProducerProfile: сериализованные TransactionMessage
+ * добавляются в MemoryRecordsBuilder со сжатием профиля, пока батч не заполнит batch.size.
+ * Счетчики records и bytes дают записей и байт (после сжатия) в секунду на поток продюсера.
+ * linger.ms и acks зависят от брокера и сети и здесь не моделируются
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProducerProfileBenchmark {
+    private static final int MESSAGES = 4096;
+    private static final String TOPIC = "transactions-batch";
+
+    @Param({"THROUGHPUT", "LATENCY", "DURABLE"})
+    public ProducerProfile profile;
+
+    private CompressionType compressionType;
+    private ByteBuffer buffer;
+    private byte[][] keys;
+    private byte[][] values;
+    private int next;
+
+    /**
+     * Счетчики JMH, нормированные на секунду измерения
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long records;
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            records = 0;
+            bytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        compressionType = CompressionType.forName(profile.getCompressionType());
+        buffer = ByteBuffer.allocate(profile.getBatchBytes());
+
+        BinaryMessageSerializer serializer = new BinaryMessageSerializer();
+        serializer.configure(Map.of(), false);
+        keys = new byte[MESSAGES][];
+        values = new byte[MESSAGES][];
+        for (int i = 0; i < MESSAGES; i++) {
+            var message = BenchmarkData.message(i);
+            keys[i] = String.valueOf(message.getBankAccountId()).getBytes(StandardCharsets.UTF_8);
+            values[i] = serializer.serialize(TOPIC, message);
+        }
+        serializer.close();
+    }
+
+    @Benchmark
+    public MemoryRecords buildBatch(Counters counters) {
+        buffer.clear();
+        MemoryRecordsBuilder builder = MemoryRecords.builder(buffer, compressionType, TimestampType.CREATE_TIME, 0L);
+        long timestamp = System.currentTimeMillis();
+        int appended = 0;
+
+        while (builder.hasRoomFor(timestamp, keys[next], values[next], Record.EMPTY_HEADERS)) {
+            builder.append(timestamp, keys[next], values[next]);
+            next = (next + 1) % MESSAGES;
+            appended++;
+        }
+
+        MemoryRecords records = builder.build();
+        counters.records += appended;
+        counters.bytes += records.sizeInBytes();
+        return records;
+    }
+}
@@ -0,0 +1,52 @@
+package gigabank.accountmanagement.benchmarks;
+
+import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import gigabank.accountmanagement.dto.response.TransactionResponse;
+import gigabank.accountmanagement.mapper.TransactionMapper;
+import gigabank.accountmanagement.mapper.TransactionMapperImpl;
+import gigabank.accountmanagement.model.TransactionEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Маппинг MapStruct между сообщением Kafka, сущностью и ответом REST
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionMapperBenchmark {
+    private TransactionMapper transactionMapper;
+    private TransactionMessage message;
+    private TransactionEntity entity;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        transactionMapper = new TransactionMapperImpl();
+        message = BenchmarkData.message(42);
+        entity = BenchmarkData.entity(42);
+    }
+
+    @Benchmark
+    public TransactionEntity toEntity() {
+        return transactionMapper.toEntity(message);
+    }
+
+    @Benchmark
+    public TransactionResponse toResponse() {
+        return transactionMapper.toResponse(entity);
+    }
+}
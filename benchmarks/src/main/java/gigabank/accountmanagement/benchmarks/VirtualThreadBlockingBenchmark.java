@@ -0,0 +1,99 @@
+package gigabank.accountmanagement.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Волна одновременных запросов с блокирующим ожиданием, как у JDBC, Jedis и синхронной отправки
+ * в Kafka: пул платформенных потоков размера Tomcat по умолчанию против виртуального потока на задачу.
+ * Вариант synchronized держит монитор на время ожидания и показывает цену закрепления
+ * виртуального потока. Память сравнивать с -prof gc и по RSS процесса JMH
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VirtualThreadBlockingBenchmark {
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    private String executorType;
+
+    @Param({"plain", "synchronized"})
+    private String blocking;
+
+    @Param({"2000"})
+    private int requests;
+
+    @Param({"5"})
+    private int blockMs;
+
+    private ExecutorService executor;
+    private Object[] monitors;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Мониторы в поле состояния, чтобы JIT не устранил блокировку как невидимую другим потокам
+        monitors = new Object[requests];
+        for (int i = 0; i < requests; i++) {
+            monitors[i] = new Object();
+        }
+        executor = "virtual".equals(executorType)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public int requestWave() throws Exception {
+        boolean pinning = "synchronized".equals(blocking);
+        List<Future<Integer>> futures = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            int request = i;
+            futures.add(executor.submit(() -> pinning ? blockInMonitor(request) : block(request)));
+        }
+
+        int completed = 0;
+        for (Future<Integer> future : futures) {
+            completed += future.get() >= 0 ? 1 : 0;
+        }
+        return completed;
+    }
+
+    private int block(int request) throws InterruptedException {
+        Thread.sleep(blockMs);
+        return request;
+    }
+
+    private int blockInMonitor(int request) throws InterruptedException {
+        synchronized (monitors[request]) {
+            Thread.sleep(blockMs);
+        }
+        return request;
+    }
+}
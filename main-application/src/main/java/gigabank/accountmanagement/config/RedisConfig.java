@@ -4,9 +4,13 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import gigabank.accountmanagement.service.cache.BinaryCacheValueSerializer;
+import gigabank.accountmanagement.service.cache.CacheInvalidationSubscriber;
+import gigabank.accountmanagement.service.cache.TwoTierCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.CacheManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -16,6 +20,7 @@ import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -35,6 +40,21 @@ public class RedisConfig {
     @Value("${spring.data.redis.port}")
     private int redisPort;
 
+    @Value("${app.cache.local.max-size:10000}")
+    private long localMaxSize;
+
+    @Value("${app.cache.local.ttl-seconds:30}")
+    private long localTtlSeconds;
+
+    @Value("${app.cache.invalidation-channel:gigabank:cache-invalidation}")
+    private String invalidationChannel;
+
+    @Value("${app.cache.serializer.binary:true}")
+    private boolean binaryCacheValues;
+
+    @Value("${app.cache.serializer.compression-threshold-bytes:1024}")
+    private int compressionThresholdBytes;
+
     @Bean
     public RedisConnectionFactory redisConnectionFactory() {
         RedisStandaloneConfiguration config = new RedisStandaloneConfiguration();
@@ -67,12 +87,40 @@ public class RedisConfig {
         return new GenericJackson2JsonRedisSerializer(mapper);
     }
 
+    /**
+     * Значения кэшей: бинарный формат для DTO ответов, JSON redisSerializer() для остальных типов
+     * и для записей, сохраненных до перехода на бинарный формат
+     */
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        return RedisCacheManager.builder(connectionFactory)
+    public BinaryCacheValueSerializer cacheValueSerializer() {
+        return new BinaryCacheValueSerializer(redisSerializer(), binaryCacheValues, compressionThresholdBytes);
+    }
+
+    /**
+     * Кэши Redis с локальным уровнем Caffeine на каждом узле; инвалидации рассылаются через pub/sub
+     */
+    @Bean
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                            StringRedisTemplate stringRedisTemplate,
+                                            MeterRegistry meterRegistry) {
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(RedisCacheConfiguration.defaultCacheConfig())
                 .withInitialCacheConfigurations(customCacheConfig())
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        return new TwoTierCacheManager(redisCacheManager, stringRedisTemplate, meterRegistry,
+                invalidationChannel, localMaxSize, Duration.ofSeconds(localTtlSeconds));
+    }
+
+    /**
+     * Подписка на инвалидации локальных кэшей; app.cache.invalidation-listener.enabled=false отключает ее
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.invalidation-listener.enabled", havingValue = "true", matchIfMissing = true)
+    public CacheInvalidationSubscriber cacheInvalidationSubscriber(RedisConnectionFactory connectionFactory,
+                                                                   TwoTierCacheManager cacheManager) {
+        return new CacheInvalidationSubscriber(connectionFactory, cacheManager, invalidationChannel);
     }
 
     private Map<String, RedisCacheConfiguration> customCacheConfig() {
@@ -85,7 +133,7 @@ public class RedisConfig {
                         .serializeKeysWith(RedisSerializationContext.SerializationPair
                                 .fromSerializer(new StringRedisSerializer()))
                         .serializeValuesWith(RedisSerializationContext.SerializationPair
-                                .fromSerializer(redisSerializer())));
+                                .fromSerializer(cacheValueSerializer())));
 
         config.put("accountsCache",
                 RedisCacheConfiguration.defaultCacheConfig()
@@ -94,16 +142,7 @@ public class RedisConfig {
                         .serializeKeysWith(RedisSerializationContext.SerializationPair
                                 .fromSerializer(new StringRedisSerializer()))
                         .serializeValuesWith(RedisSerializationContext.SerializationPair
-                                .fromSerializer(redisSerializer())));
-
-        config.put("transactionsCache",
-                RedisCacheConfiguration.defaultCacheConfig()
-                        .entryTtl(Duration.ofMinutes(2))
-                        .disableCachingNullValues()
-                        .serializeKeysWith(RedisSerializationContext.SerializationPair
-                                .fromSerializer(new StringRedisSerializer()))
-                        .serializeValuesWith(RedisSerializationContext.SerializationPair
-                                .fromSerializer(redisSerializer())));
+                                .fromSerializer(cacheValueSerializer())));
         return config;
     }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package gigabank.accountmanagement.config;
+
+import gigabank.accountmanagement.enums.ProcessingPath;
+import gigabank.accountmanagement.service.MetricsService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Записывает длительность обработки REST запросов в распределение задержек пути REST
+ */
+@Component
+@RequiredArgsConstructor
+public class RestLatencyInterceptor implements HandlerInterceptor {
+    private static final String START_TIME_ATTRIBUTE = RestLatencyInterceptor.class.getName() + ".startTime";
+
+    private final MetricsService metricsService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(START_TIME_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(START_TIME_ATTRIBUTE) instanceof Long startTime) {
+            metricsService.recordLatency(ProcessingPath.REST, System.nanoTime() - startTime);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package gigabank.accountmanagement.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final RestLatencyInterceptor restLatencyInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(restLatencyInterceptor)
+                .addPathPatterns("/api/**")
+                .excludePathPatterns("/api/metrics/**");
+    }
+}
@@ -1,7 +1,9 @@
 package gigabank.accountmanagement.controller;
 
 import gigabank.accountmanagement.dto.request.DepositWithdrawRequest;
+import gigabank.accountmanagement.dto.response.AccountBalanceResponse;
 import gigabank.accountmanagement.dto.response.BankAccountResponse;
+import gigabank.accountmanagement.dto.response.TransactionHistoryPage;
 import gigabank.accountmanagement.dto.response.TransactionResponse;
 import gigabank.accountmanagement.service.BankAccountService;
 import gigabank.accountmanagement.service.TransactionService;
@@ -38,6 +40,18 @@ public class BankAccountController {
         return bankAccountService.getAccountById(id);
     }
 
+    /**
+     * Получает баланс и статус блокировки счета из кэша состояния счетов.
+     *
+     * @param id уникальный идентификатор счета
+     * @return DTO с балансом, статусом блокировки и версией состояния
+     */
+    @GetMapping("/{id}/balance")
+    @ResponseStatus(HttpStatus.OK)
+    public AccountBalanceResponse getBalance(@PathVariable Long id) {
+        return bankAccountService.getAccountBalance(id);
+    }
+
     /**
      * Создает новый тестовый банковский счет.
      *
@@ -88,6 +102,22 @@ public class BankAccountController {
         return ResponseEntity.ok(transactionService.getAccountTransactions(id));
     }
 
+    /**
+     * Получает страницу транзакций счета от новых к старым.
+     *
+     * @param id уникальный идентификатор счета
+     * @param limit размер страницы
+     * @param beforeId nextBeforeId предыдущей страницы; без параметра — последние транзакции
+     * @return ResponseEntity со страницей DTO транзакций
+     */
+    @GetMapping(value = "/{id}/transactions", params = "limit")
+    public ResponseEntity<TransactionHistoryPage> getTransactionsPage(
+            @PathVariable Long id,
+            @RequestParam int limit,
+            @RequestParam(required = false) Long beforeId) {
+        return ResponseEntity.ok(transactionService.getAccountTransactionsPage(id, beforeId, limit));
+    }
+
     /**
      * Получает список всех счетов по указанному пользователю.
      *
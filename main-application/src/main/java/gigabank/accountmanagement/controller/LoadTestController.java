@@ -1,8 +1,14 @@
 package gigabank.accountmanagement.controller;
 
+import gigabank.accountmanagement.dto.request.LoadTestRequest;
+import gigabank.accountmanagement.dto.response.LoadTestReport;
 import gigabank.accountmanagement.service.TransactionLoadService;
+import gigabank.accountmanagement.service.load.LoadGenerator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -13,6 +19,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class LoadTestController {
 
     private final TransactionLoadService transactionLoadService;
+    private final LoadGenerator loadGenerator;
 
     /**
      * Генерация нагрузки для тестирования обработки транзакций
@@ -22,4 +29,26 @@ public class LoadTestController {
                                     @RequestParam(defaultValue = "batch") String deliveryMode) {
         return transactionLoadService.generateBatchLoad(totalTransactions, deliveryMode);
     }
-}
\ No newline at end of file
+
+    /**
+     * Запуск прогона генератора нагрузки: потоки-продюсеры, целевая интенсивность или максимальная
+     * пропускная способность, распределение ключей и длительность
+     */
+    @PostMapping("/runs")
+    public LoadTestReport startRun(@RequestBody LoadTestRequest request) {
+        return loadGenerator.start(request);
+    }
+
+    /**
+     * Ход текущего или итог последнего прогона
+     */
+    @GetMapping("/runs/current")
+    public ResponseEntity<LoadTestReport> currentRun() {
+        return ResponseEntity.of(loadGenerator.report());
+    }
+
+    @PostMapping("/runs/current/stop")
+    public ResponseEntity<LoadTestReport> stopRun() {
+        return ResponseEntity.of(loadGenerator.stop());
+    }
+}
@@ -1,13 +1,25 @@
 package gigabank.accountmanagement.controller;
 
-import gigabank.accountmanagement.dto.kafka.ProcessingMetrics;
+import gigabank.accountmanagement.dto.kafka.ProcessingMetricsSnapshot;
+import gigabank.accountmanagement.dto.kafka.ProducerProfileStats;
+import gigabank.accountmanagement.enums.ProcessingPath;
+import gigabank.accountmanagement.kafka.consumer.AdaptiveBatchController;
+import gigabank.accountmanagement.kafka.producer.ProducerProfileRegistry;
 import gigabank.accountmanagement.service.MetricsService;
+import gigabank.accountmanagement.service.cache.TwoTierCacheManager;
+import gigabank.accountmanagement.service.cache.TwoTierCacheStats;
+import gigabank.accountmanagement.service.idempotency.IdempotencyStats;
+import gigabank.accountmanagement.service.idempotency.IdempotencyStore;
+import gigabank.accountmanagement.service.metrics.LatencySnapshot;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -16,59 +28,158 @@ import java.util.Map;
 public class MetricsController {
 
     private final MetricsService metricsService;
+    private final AdaptiveBatchController adaptiveBatchController;
+    private final IdempotencyStore idempotencyStore;
+    private final ProducerProfileRegistry producerProfileRegistry;
+    private final TwoTierCacheManager cacheManager;
 
     @GetMapping
     public Map<String, Object> getMetrics() {
-        ProcessingMetrics single = metricsService.getSingleProcessingMetrics();
-        ProcessingMetrics batch = metricsService.getBatchProcessingMetrics();
+        ProcessingMetricsSnapshot single = metricsService.getSingleProcessingMetrics().snapshot();
+        ProcessingMetricsSnapshot batch = metricsService.getBatchProcessingMetrics().snapshot();
+        LatencySnapshot singleLatency = metricsService.getLatencySnapshot(ProcessingPath.SINGLE);
+        LatencySnapshot batchLatency = metricsService.getLatencySnapshot(ProcessingPath.BATCH);
+        double singleTransactionTimeMs = singleLatency.getMeanMs();
+        double batchTransactionTimeMs = metricsService.getAvgBatchTransactionTimeMs();
 
         Map<String, Object> metrics = new HashMap<>();
 
         metrics.put("singleProcessing", Map.of(
-                "totalTransactions", single.getTotalTransactions().get(),
-                "successfulTransactions", single.getSuccessfulTransactions().get(),
-                "failedTransactions", single.getFailedTransactions().get(),
-                "duplicateTransactions", single.getDuplicateTransactions().get(),
-                "retryAttempts", single.getRetryAttempts().get(),
-                "dltMessages", single.getDltMessages().get(),
-                "avgTransactionTimeMs", Math.round(single.getAvgTransactionTimeMs() * 100.0) / 100.0,
+                "totalTransactions", single.getTotalTransactions(),
+                "successfulTransactions", single.getSuccessfulTransactions(),
+                "failedTransactions", single.getFailedTransactions(),
+                "duplicateTransactions", single.getDuplicateTransactions(),
+                "retryAttempts", single.getRetryAttempts(),
+                "dltMessages", single.getDltMessages(),
+                "avgTransactionTimeMs", round(singleTransactionTimeMs),
                 "startedAt", single.getStartedAt()
         ));
 
-        metrics.put("totalBatches", batch.getTotalBatches().get());
-        metrics.put("successfulBatches", batch.getSuccessfulBatches().get());
-        metrics.put("failedBatches", batch.getFailedBatches().get());
-        metrics.put("totalTransactions", batch.getTotalTransactions().get());
-        metrics.put("successfulTransactions", batch.getSuccessfulTransactions().get());
-        metrics.put("failedTransactions", batch.getFailedTransactions().get());
-        metrics.put("duplicateTransactions", batch.getDuplicateTransactions().get());
-        metrics.put("avgBatchTimeMs", Math.round(batch.getAvgBatchTimeMs() * 100.0) / 100.0);
-        metrics.put("avgTransactionTimeMs", Math.round(batch.getAvgTransactionTimeMs() * 100.0) / 100.0);
-        metrics.put("throughput", calculateThroughput(batch));
+        metrics.put("totalBatches", batch.getTotalBatches());
+        metrics.put("successfulBatches", batch.getSuccessfulBatches());
+        metrics.put("failedBatches", batch.getFailedBatches());
+        metrics.put("totalTransactions", batch.getTotalTransactions());
+        metrics.put("successfulTransactions", batch.getSuccessfulTransactions());
+        metrics.put("failedTransactions", batch.getFailedTransactions());
+        metrics.put("duplicateTransactions", batch.getDuplicateTransactions());
+        metrics.put("avgBatchTimeMs", round(batchLatency.getMeanMs()));
+        metrics.put("avgTransactionTimeMs", round(batchTransactionTimeMs));
+        metrics.put("throughput", transactionsPerMinute(batchLatency));
         metrics.put("startedAt", batch.getStartedAt());
 
+        metrics.put("adaptiveBatch", Map.of(
+                "enabled", adaptiveBatchController.isEnabled(),
+                "maxPollRecords", adaptiveBatchController.getCurrentSize(),
+                "fetchMaxWaitMs", adaptiveBatchController.getCurrentTimeoutMs(),
+                "lastP99Ms", adaptiveBatchController.getLastP99Ms(),
+                "lastRecordsLag", adaptiveBatchController.getLastLag()
+        ));
+
+        IdempotencyStats idempotency = idempotencyStore.getStats();
+        metrics.put("idempotency", Map.of(
+                "hotHits", idempotency.getHotHits(),
+                "coldHits", idempotency.getColdHits(),
+                "misses", idempotency.getMisses(),
+                "evictions", idempotency.getEvictions(),
+                "hotSize", idempotency.getHotSize(),
+                "hotCapacity", idempotency.getHotCapacity(),
+                "bloomNegatives", idempotency.getBloomNegatives(),
+                "bloomFalsePositives", idempotency.getBloomFalsePositives(),
+                "bloomEstimatedFpp", idempotency.getBloomEstimatedFpp(),
+                "bloomSegments", idempotency.getBloomSegments()
+        ));
+
+        Map<String, Object> cache = new LinkedHashMap<>();
+        for (TwoTierCacheStats stats : cacheManager.getStats()) {
+            cache.put(stats.getCacheName(), Map.of(
+                    "localHits", stats.getLocalHits(),
+                    "localMisses", stats.getLocalMisses(),
+                    "localHitRatio", round(stats.getLocalHitRatio()),
+                    "localSize", stats.getLocalSize(),
+                    "localEvictions", stats.getLocalEvictions(),
+                    "remoteHits", stats.getRemoteHits(),
+                    "remoteMisses", stats.getRemoteMisses(),
+                    "remoteHitRatio", round(stats.getRemoteHitRatio())
+            ));
+        }
+        metrics.put("cache", cache);
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("single", toMap(singleLatency));
+        latency.put("batch", toMap(batchLatency));
+        for (ProcessingPath path : EnumSet.of(ProcessingPath.OUTBOX, ProcessingPath.DLT, ProcessingPath.REST)) {
+            latency.put(path.name().toLowerCase(), toMap(metricsService.getLatencySnapshot(path)));
+        }
+        metrics.put("latency", latency);
+
         // Сравнительные метрики
         metrics.put("comparison", Map.of(
-                "singleThroughput", calculateThroughput(single),
-                "batchThroughput", calculateThroughput(batch),
-                "efficiencyGain", calculateEfficiencyGain(single, batch)
+                "singleThroughput", round(singleLatency.getThroughputPerSecond() * 60),
+                "batchThroughput", transactionsPerMinute(batchLatency),
+                "efficiencyGain", calculateEfficiencyGain(singleTransactionTimeMs, batchTransactionTimeMs)
         ));
 
         return metrics;
     }
 
-    private double calculateThroughput(ProcessingMetrics metrics) {
-        long successfulTransactions = metrics.getSuccessfulTransactions().get();
-        long uptimeMinutes = java.time.Duration.between(metrics.getStartedAt(), java.time.LocalDateTime.now()).toMinutes();
-        return uptimeMinutes > 0 ? (double) successfulTransactions / uptimeMinutes : 0.0;
+    /**
+     * Пропускная способность батчей в транзакциях в минуту:
+     * число батчей в секунду за скользящее окно, умноженное на средний размер батча
+     */
+    private double transactionsPerMinute(LatencySnapshot batchLatency) {
+        return round(batchLatency.getThroughputPerSecond() * metricsService.getAvgBatchSize() * 60);
     }
 
-    private String calculateEfficiencyGain(ProcessingMetrics single, ProcessingMetrics batch) {
-        if (single.getAvgTransactionTimeMs() == 0) return "N/A";
-        double gain = ((single.getAvgTransactionTimeMs() - batch.getAvgTransactionTimeMs()) / single.getAvgTransactionTimeMs()) * 100;
+    private String calculateEfficiencyGain(double singleTransactionTimeMs, double batchTransactionTimeMs) {
+        if (singleTransactionTimeMs == 0) {
+            return "N/A";
+        }
+        double gain = ((singleTransactionTimeMs - batchTransactionTimeMs) / singleTransactionTimeMs) * 100;
         return String.format("%.2f%%", gain);
     }
 
+    private Map<String, Object> toMap(LatencySnapshot snapshot) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("count", snapshot.getCount());
+        values.put("totalCount", snapshot.getTotalCount());
+        values.put("windowSeconds", round(snapshot.getWindowSeconds()));
+        values.put("throughputPerSecond", round(snapshot.getThroughputPerSecond()));
+        values.put("meanMs", round(snapshot.getMeanMs()));
+        values.put("p50Ms", round(snapshot.getP50Ms()));
+        values.put("p90Ms", round(snapshot.getP90Ms()));
+        values.put("p99Ms", round(snapshot.getP99Ms()));
+        values.put("p999Ms", round(snapshot.getP999Ms()));
+        values.put("maxMs", round(snapshot.getMaxMs()));
+        return values;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    /**
+     * Разбивка сквозной задержки по этапам для каждого режима доставки: от отправки продюсером
+     * через poll, десериализацию и обработку в БД до подтверждения смещения
+     */
+    @GetMapping("/pipeline")
+    public Map<String, Object> getPipelineLatency() {
+        Map<String, Object> modes = new LinkedHashMap<>();
+        metricsService.getStageLatencySnapshots().forEach((mode, stages) -> {
+            Map<String, Object> values = new LinkedHashMap<>();
+            stages.forEach((stage, snapshot) -> values.put(stage.name().toLowerCase(), toMap(snapshot)));
+            modes.put(mode, values);
+        });
+        return modes;
+    }
+
+    /**
+     * Настройки и метрики клиента Kafka для каждого профиля продюсера
+     */
+    @GetMapping("/producers")
+    public List<ProducerProfileStats> getProducerMetrics() {
+        return producerProfileRegistry.getStats();
+    }
+
     @GetMapping("/health")
     public Map<String, String> health() {
         return Map.of(
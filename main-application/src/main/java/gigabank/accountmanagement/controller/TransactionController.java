@@ -1,6 +1,7 @@
 package gigabank.accountmanagement.controller;
 
 import gigabank.accountmanagement.dto.request.TransactionGenerateRequest;
+import gigabank.accountmanagement.dto.response.TransactionCursorPage;
 import gigabank.accountmanagement.dto.response.TransactionResponse;
 import gigabank.accountmanagement.enums.TransactionType;
 import gigabank.accountmanagement.service.TransactionService;
@@ -54,6 +55,34 @@ public class TransactionController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Получает отфильтрованные транзакции по ключу (date, id) от новых к старым.
+     * Для глубоких страниц вместо OFFSET: следующая страница запрашивается с nextCursor предыдущей
+     * и теми же фильтрами.
+     *
+     * @param accountId идентификатор счета для фильтрации (опционально)
+     * @param type тип транзакции для фильтрации (опционально)
+     * @param category категория транзакции для фильтрации (опционально)
+     * @param startDate начальная дата для фильтрации по периоду (опционально)
+     * @param cursor ключ продолжения из предыдущей страницы (опционально)
+     * @param size размер страницы (по умолчанию 20)
+     * @param count вернуть число всех подходящих транзакций (по умолчанию false)
+     * @return ResponseEntity со страницей транзакций в формате DTO и ключом продолжения
+     */
+    @GetMapping("/seek")
+    public ResponseEntity<TransactionCursorPage> getFilteredTransactionsSeek(
+            @RequestParam(required = false) Long accountId,
+            @RequestParam(required = false) TransactionType type,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) LocalDateTime startDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean count) {
+
+        return ResponseEntity.ok(transactionService.getFilteredTransactionsSeek(
+                accountId, type, category, startDate, cursor, size, count));
+    }
+
     @GetMapping("/generate")
     public ResponseEntity<Map<String, Object>> generateTransactions(
             @RequestParam(defaultValue = "10") int count,
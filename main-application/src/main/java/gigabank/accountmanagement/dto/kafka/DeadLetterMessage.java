@@ -1,9 +1,12 @@
 package gigabank.accountmanagement.dto.kafka;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class DeadLetterMessage {
     private Object originalMessage;
     private String exceptionMessage;
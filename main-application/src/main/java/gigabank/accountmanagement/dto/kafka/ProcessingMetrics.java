@@ -1,46 +1,78 @@
 package gigabank.accountmanagement.dto.kafka;
 
-import lombok.Data;
+import lombok.Getter;
+
 import java.time.LocalDateTime;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
-@Data
+/**
+ * Счетчики обработки одного режима (одиночный или пакетный).
+ * Каждый счетчик — LongAdder, поэтому потоки консьюмеров не конкурируют за одну кэш-линию.
+ * Итоговые значения не хранятся отдельно, а выводятся в снимке из составляющих,
+ * так что на транзакцию или батч приходится одно обновление
+ */
 public class ProcessingMetrics {
-    private AtomicLong totalTransactions = new AtomicLong(0);
-    private AtomicLong successfulTransactions = new AtomicLong(0);
-    private AtomicLong failedTransactions = new AtomicLong(0);
-    private AtomicLong duplicateTransactions = new AtomicLong(0);
-    private AtomicLong totalBatches = new AtomicLong(0);
-    private AtomicLong successfulBatches = new AtomicLong(0);
-    private AtomicLong failedBatches = new AtomicLong(0);
-    private AtomicLong retryAttempts = new AtomicLong(0);
-    private AtomicLong dltMessages = new AtomicLong(0);
-
-    private double avgTransactionTimeMs = 0.0;
-    private double avgBatchTimeMs = 0.0;
-    private LocalDateTime startedAt = LocalDateTime.now();
+    private final LongAdder successfulTransactions = new LongAdder();
+    private final LongAdder failedTransactions = new LongAdder();
+    private final LongAdder duplicateTransactions = new LongAdder();
+    private final LongAdder successfulBatches = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder retryAttempts = new LongAdder();
+    private final LongAdder dltMessages = new LongAdder();
+
+    @Getter
+    private final LocalDateTime startedAt = LocalDateTime.now();
 
     public void incrementSuccessfulTransactions() {
-        successfulTransactions.incrementAndGet();
-        totalTransactions.incrementAndGet();
+        successfulTransactions.increment();
     }
 
     public void incrementFailedTransactions() {
-        failedTransactions.incrementAndGet();
-        totalTransactions.incrementAndGet();
+        failedTransactions.increment();
     }
 
     public void incrementDuplicateTransactions() {
-        duplicateTransactions.incrementAndGet();
+        duplicateTransactions.increment();
     }
 
     public void incrementSuccessfulBatches() {
-        successfulBatches.incrementAndGet();
-        totalBatches.incrementAndGet();
+        successfulBatches.increment();
     }
 
     public void incrementFailedBatches() {
-        failedBatches.incrementAndGet();
-        totalBatches.incrementAndGet();
+        failedBatches.increment();
+    }
+
+    public void incrementRetryAttempts() {
+        retryAttempts.increment();
+    }
+
+    public void incrementDltMessages() {
+        dltMessages.increment();
+    }
+
+    /**
+     * Снимает значения счетчиков. Отдельные счетчики читаются не атомарно относительно друг друга,
+     * но итоги в снимке всегда равны сумме своих составляющих
+     *
+     * @return неизменяемый снимок
+     */
+    public ProcessingMetricsSnapshot snapshot() {
+        long successful = successfulTransactions.sum();
+        long failed = failedTransactions.sum();
+        long successfulBatchCount = successfulBatches.sum();
+        long failedBatchCount = failedBatches.sum();
+
+        return new ProcessingMetricsSnapshot(
+                successful + failed,
+                successful,
+                failed,
+                duplicateTransactions.sum(),
+                successfulBatchCount + failedBatchCount,
+                successfulBatchCount,
+                failedBatchCount,
+                retryAttempts.sum(),
+                dltMessages.sum(),
+                startedAt);
     }
 }
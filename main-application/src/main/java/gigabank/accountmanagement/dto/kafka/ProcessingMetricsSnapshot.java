@@ -0,0 +1,24 @@
+package gigabank.accountmanagement.dto.kafka;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Снимок счетчиков ProcessingMetrics
+ */
+@Getter
+@AllArgsConstructor
+public class ProcessingMetricsSnapshot {
+    private final long totalTransactions;
+    private final long successfulTransactions;
+    private final long failedTransactions;
+    private final long duplicateTransactions;
+    private final long totalBatches;
+    private final long successfulBatches;
+    private final long failedBatches;
+    private final long retryAttempts;
+    private final long dltMessages;
+    private final LocalDateTime startedAt;
+}
@@ -0,0 +1,29 @@
+package gigabank.accountmanagement.dto.kafka;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Снимок метрик продюсера Kafka одного профиля.
+ * Скорости — средние за окно метрик клиента Kafka (30 секунд), NaN до первой отправки
+ */
+@Getter
+@AllArgsConstructor
+public class ProducerProfileStats {
+    private final String profile;
+    private final List<String> deliveryModes;
+    private final String compressionType;
+    private final int lingerMs;
+    private final int batchBytes;
+    private final String acks;
+    private final double recordSendRate;
+    private final double outgoingByteRate;
+    private final double recordSendTotal;
+    private final double recordErrorRate;
+    private final double compressionRateAvg;
+    private final double batchSizeAvg;
+    private final double recordsPerRequestAvg;
+    private final double requestLatencyAvgMs;
+}
@@ -0,0 +1,31 @@
+package gigabank.accountmanagement.dto.request;
+
+import gigabank.accountmanagement.enums.KeyDistribution;
+import lombok.Data;
+
+/**
+ * Параметры прогона генератора нагрузки
+ */
+@Data
+public class LoadTestRequest {
+    private String deliveryMode = "batch";
+    /**
+     * Число потоков-продюсеров
+     */
+    private int threads = 4;
+    private boolean virtualThreads = false;
+    /**
+     * Целевая интенсивность, транзакций в секунду на все потоки; 0 — максимальная пропускная способность
+     */
+    private double targetRatePerSecond = 0;
+    private int durationSeconds = 30;
+    /**
+     * Ограничение числа транзакций; 0 — без ограничения, прогон завершается по длительности
+     */
+    private long totalTransactions = 0;
+    private KeyDistribution keyDistribution = KeyDistribution.UNIFORM;
+    /**
+     * Показатель s распределения Ципфа
+     */
+    private double zipfExponent = 1.1;
+}
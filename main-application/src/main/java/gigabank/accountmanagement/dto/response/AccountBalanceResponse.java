@@ -0,0 +1,17 @@
+package gigabank.accountmanagement.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalanceResponse {
+    private Long accountId;
+    private BigDecimal balance;
+    private boolean blocked;
+    private long version;
+}
@@ -0,0 +1,32 @@
+package gigabank.accountmanagement.dto.response;
+
+import gigabank.accountmanagement.enums.LoadRunStatus;
+import gigabank.accountmanagement.service.metrics.LatencySnapshot;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ход или итог прогона генератора нагрузки.
+ * Задержка — от запланированного момента отправки до подтверждения брокером
+ */
+@Data
+public class LoadTestReport {
+    private long runId;
+    private LoadRunStatus status;
+    private String deliveryMode;
+    private String keyDistribution;
+    private int threads;
+    private boolean virtualThreads;
+    private double targetRatePerSecond;
+    private int accounts;
+    private LocalDateTime startedAt;
+    private double elapsedSeconds;
+    private long sent;
+    private long acknowledged;
+    private long failed;
+    private long inFlight;
+    private double achievedRatePerSecond;
+    private LatencySnapshot latency;
+    private String error;
+}
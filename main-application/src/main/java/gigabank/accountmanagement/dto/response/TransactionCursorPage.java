@@ -0,0 +1,21 @@
+package gigabank.accountmanagement.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Страница транзакций, прочитанная по ключу (date, id).
+ * nextCursor передается в следующий запрос; null — страниц больше нет.
+ * totalCount заполняется только по запросу, так как требует подсчета всех подходящих строк
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionCursorPage {
+    private List<TransactionResponse> transactions;
+    private String nextCursor;
+    private Long totalCount;
+}
@@ -0,0 +1,19 @@
+package gigabank.accountmanagement.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Страница истории транзакций счета от новых к старым.
+ * nextBeforeId передается в следующий запрос; null — страниц больше нет
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionHistoryPage {
+    private List<TransactionResponse> transactions;
+    private Long nextBeforeId;
+}
@@ -0,0 +1,15 @@
+package gigabank.accountmanagement.enums;
+
+/**
+ * Способ записи пакета транзакций в БД
+ */
+public enum BatchIngestMode {
+    /**
+     * Пакетная вставка через JDBC batch для каждого poll
+     */
+    JDBC,
+    /**
+     * Накопление сообщений и потоковая запись через COPY FROM STDIN
+     */
+    COPY
+}
@@ -0,0 +1,16 @@
+package gigabank.accountmanagement.enums;
+
+/**
+ * Распределение ключей (счетов) в генераторе нагрузки
+ */
+public enum KeyDistribution {
+    /**
+     * Все счета выбираются с равной вероятностью
+     */
+    UNIFORM,
+    /**
+     * Закон Ципфа: вероятность счета ранга k пропорциональна 1 / k^s — небольшое число горячих счетов
+     * получает большую часть нагрузки
+     */
+    ZIPF
+}
@@ -0,0 +1,31 @@
+package gigabank.accountmanagement.enums;
+
+/**
+ * Этап пути транзакции от отправки продюсером до зафиксированного баланса
+ */
+public enum LatencyStage {
+    /**
+     * От отправки продюсером до возврата записи из poll: буфер продюсера, брокер, fetch
+     */
+    QUEUE,
+    /**
+     * Десериализация значения записи
+     */
+    DESERIALIZE,
+    /**
+     * От возврата из poll до входа в слушатель: ожидание в контейнере и дорожках параллельной обработки
+     */
+    DISPATCH,
+    /**
+     * Обработка транзакции, включая commit транзакции БД
+     */
+    DB,
+    /**
+     * Подтверждение смещения
+     */
+    COMMIT,
+    /**
+     * От отправки продюсером до подтверждения смещения
+     */
+    END_TO_END
+}
@@ -0,0 +1,17 @@
+package gigabank.accountmanagement.enums;
+
+/**
+ * Состояние прогона генератора нагрузки
+ */
+public enum LoadRunStatus {
+    RUNNING,
+    /**
+     * Прогон завершен по длительности или по числу транзакций
+     */
+    COMPLETED,
+    /**
+     * Прогон остановлен запросом
+     */
+    STOPPED,
+    FAILED
+}
@@ -0,0 +1,27 @@
+package gigabank.accountmanagement.enums;
+
+/**
+ * Путь обработки, для которого собирается распределение задержек
+ */
+public enum ProcessingPath {
+    /**
+     * Одиночная транзакция из Kafka
+     */
+    SINGLE,
+    /**
+     * Пакет транзакций из топика transactions-batch
+     */
+    BATCH,
+    /**
+     * Отправка порции outbox сообщений в Kafka
+     */
+    OUTBOX,
+    /**
+     * Обработка в retry-dlt консьюмере, включая отправку в DLT
+     */
+    DLT,
+    /**
+     * HTTP запрос к REST API
+     */
+    REST
+}
@@ -0,0 +1,55 @@
+package gigabank.accountmanagement.enums;
+
+import lombok.Getter;
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.Map;
+
+/**
+ * Профиль настроек продюсера Kafka: сжатие, накопление батча и гарантии подтверждения записи
+ */
+@Getter
+public enum ProducerProfile {
+    /**
+     * Крупные сжатые батчи: максимум записей и байт в секунду ценой задержки до linger.ms
+     */
+    THROUGHPUT("lz4", 20, 262_144, "1", 5, false),
+    /**
+     * Отправка без ожидания заполнения батча и без сжатия — минимальная задержка одной записи
+     */
+    LATENCY("none", 0, 16_384, "1", 5, false),
+    /**
+     * Идемпотентный продюсер с подтверждением всех реплик и плотным сжатием zstd
+     */
+    DURABLE("zstd", 5, 65_536, "all", 5, true);
+
+    private final String compressionType;
+    private final int lingerMs;
+    private final int batchBytes;
+    private final String acks;
+    private final int maxInFlight;
+    private final boolean idempotent;
+
+    ProducerProfile(String compressionType, int lingerMs, int batchBytes, String acks, int maxInFlight,
+                    boolean idempotent) {
+        this.compressionType = compressionType;
+        this.lingerMs = lingerMs;
+        this.batchBytes = batchBytes;
+        this.acks = acks;
+        this.maxInFlight = maxInFlight;
+        this.idempotent = idempotent;
+    }
+
+    /**
+     * Записывает настройки профиля поверх свойств продюсера
+     */
+    public Map<String, Object> applyTo(Map<String, Object> props) {
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchBytes);
+        props.put(ProducerConfig.ACKS_CONFIG, acks);
+        props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, maxInFlight);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, idempotent);
+        return props;
+    }
+}
@@ -0,0 +1,11 @@
+package gigabank.accountmanagement.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class AccountUpdateConflictException extends RuntimeException {
+    public AccountUpdateConflictException(Long accountId) {
+        super("Счет с id " + accountId + " одновременно изменен другой операцией, повторите запрос");
+    }
+}
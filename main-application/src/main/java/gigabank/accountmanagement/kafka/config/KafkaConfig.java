@@ -1,17 +1,29 @@
 package gigabank.accountmanagement.kafka.config;
 
+import gigabank.accountmanagement.kafka.serialization.BinaryMessageDeserializer;
+import gigabank.accountmanagement.kafka.tracing.PolledAtInterceptor;
+import gigabank.accountmanagement.service.BatchIngestBuffer;
+import gigabank.accountmanagement.service.idempotency.IdempotencyStore;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
 import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.util.backoff.ExponentialBackOff;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -19,62 +31,159 @@ import java.util.Map;
 public class KafkaConfig {
 
     private final KafkaProperties kafkaProperties;
+    private final boolean virtualThreads;
 
-    public KafkaConfig(KafkaProperties kafkaProperties) {
+    public KafkaConfig(KafkaProperties kafkaProperties,
+                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         this.kafkaProperties = kafkaProperties;
+        this.virtualThreads = virtualThreads;
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Object> atMostOnceContainerFactory() {
-        return createContainerFactory(true, ContainerProperties.AckMode.BATCH);
+    public ConcurrentKafkaListenerContainerFactory<String, Object> atMostOnceContainerFactory(
+            @Value("${app.kafka.topics.at-most-once.concurrency:1}") int concurrency) {
+        return createContainerFactory(true, ContainerProperties.AckMode.BATCH, concurrency);
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Object> atLeastOnceContainerFactory() {
-        return createContainerFactory(false, ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+    public ConcurrentKafkaListenerContainerFactory<String, Object> atLeastOnceContainerFactory(
+            @Value("${app.kafka.topics.at-least-once.concurrency:1}") int concurrency) {
+        return createContainerFactory(false, ContainerProperties.AckMode.MANUAL_IMMEDIATE, concurrency);
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Object> exactlyOnceContainerFactory() {
-        var factory = createContainerFactory(false, ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+    public ConcurrentKafkaListenerContainerFactory<String, Object> exactlyOnceContainerFactory(
+            IdempotencyStore idempotencyStore,
+            @Value("${app.kafka.topics.exactly-once.concurrency:1}") int concurrency) {
+        var factory = createContainerFactory(false, ContainerProperties.AckMode.MANUAL_IMMEDIATE, concurrency);
+        configureExactlyOnce(factory, getBaseConsumerProperties(), idempotencyStore);
+        return factory;
+    }
 
-        Map<String, Object> props = getBaseConsumerProperties();
-        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+    /**
+     * Фабрики батч контейнеров для параллельной обработки разных счетов внутри партиции.
+     * Ошибка записи передается обработчику ошибок через BatchListenerFailedException:
+     * фиксируются смещения до первой неуспешной записи, остальные читаются повторно
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> parallelAtLeastOnceContainerFactory(
+            @Value("${app.kafka.topics.at-least-once.concurrency:1}") int concurrency,
+            @Value("${app.kafka.parallel.max-poll-records:500}") int maxPollRecords) {
+        return createParallelContainerFactory(getBaseConsumerProperties(), concurrency, maxPollRecords);
+    }
 
-        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props));
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> parallelExactlyOnceContainerFactory(
+            IdempotencyStore idempotencyStore,
+            @Value("${app.kafka.topics.exactly-once.concurrency:1}") int concurrency,
+            @Value("${app.kafka.parallel.max-poll-records:500}") int maxPollRecords) {
+        Map<String, Object> props = getBaseConsumerProperties();
+        var factory = createParallelContainerFactory(props, concurrency, maxPollRecords);
+        configureExactlyOnce(factory, props, idempotencyStore);
         return factory;
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Object> retryDltContainerFactory() {
-        var factory = createContainerFactory(false, ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+    public ConcurrentKafkaListenerContainerFactory<String, Object> retryDltContainerFactory(
+            @Value("${app.kafka.topics.retry-dlt.concurrency:1}") int concurrency) {
+        var factory = createContainerFactory(false, ContainerProperties.AckMode.MANUAL_IMMEDIATE, concurrency);
         factory.setCommonErrorHandler(errorHandler());
         return factory;
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Object> outboxEventsContainerFactory() {
-        return createContainerFactory(false, ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+    public ConcurrentKafkaListenerContainerFactory<String, Object> outboxEventsContainerFactory(
+            @Value("${app.kafka.topics.outbox-events.concurrency:1}") int concurrency) {
+        return createContainerFactory(false, ContainerProperties.AckMode.MANUAL_IMMEDIATE, concurrency);
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Object> batchContainerFactory() {
-        var factory = new ConcurrentKafkaListenerContainerFactory<String, Object>();
+    public ConcurrentKafkaListenerContainerFactory<String, Object> batchContainerFactory(
+            BatchIngestBuffer batchIngestBuffer,
+            @Value("${app.kafka.batch.size:20}") int batchSize,
+            @Value("${app.kafka.batch.timeout-ms:500}") int batchTimeoutMs,
+            @Value("${app.kafka.topics.batch.concurrency:1}") int concurrency) {
+        return createBatchContainerFactory(batchIngestBuffer, batchSize, batchTimeoutMs, concurrency,
+                BinaryMessageDeserializer.class);
+    }
+
+    /**
+     * Фабрика батч контейнера с сырыми значениями записей: разбор выполняет сам листенер
+     * через переиспользуемые держатели сообщений
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> rawBatchContainerFactory(
+            BatchIngestBuffer batchIngestBuffer,
+            @Value("${app.kafka.batch.size:20}") int batchSize,
+            @Value("${app.kafka.batch.timeout-ms:500}") int batchTimeoutMs,
+            @Value("${app.kafka.topics.batch.concurrency:1}") int concurrency) {
+        return createBatchContainerFactory(batchIngestBuffer, batchSize, batchTimeoutMs, concurrency,
+                ByteArrayDeserializer.class);
+    }
+
+    private <V> ConcurrentKafkaListenerContainerFactory<String, V> createBatchContainerFactory(
+            BatchIngestBuffer batchIngestBuffer, int batchSize, int batchTimeoutMs, int concurrency,
+            Class<? extends Deserializer<?>> valueDeserializer) {
+        var factory = new ConcurrentKafkaListenerContainerFactory<String, V>();
         Map<String, Object> props = getBaseConsumerProperties();
 
-        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 20);
-        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 500);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, valueDeserializer);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchSize);
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, batchTimeoutMs);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
 
         factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props));
+        factory.setConcurrency(concurrency);
+        applyListenerTaskExecutor(factory);
         factory.setBatchListener(true);
-        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(new ConsumerAwareRebalanceListener() {
+            @Override
+            public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                if (batchIngestBuffer.isEnabled()) {
+                    batchIngestBuffer.flush();
+                }
+            }
+        });
         factory.setCommonErrorHandler(batchErrorHandler());
 
         return factory;
     }
 
+    private ConcurrentKafkaListenerContainerFactory<String, Object> createParallelContainerFactory(
+            Map<String, Object> props, int concurrency, int maxPollRecords) {
+        var factory = new ConcurrentKafkaListenerContainerFactory<String, Object>();
+
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props));
+        factory.setConcurrency(concurrency);
+        applyListenerTaskExecutor(factory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setCommonErrorHandler(batchErrorHandler());
+
+        return factory;
+    }
+
+    /**
+     * Читает только зафиксированные записи и обновляет хранилище идемпотентности при назначении партиций
+     */
+    private void configureExactlyOnce(ConcurrentKafkaListenerContainerFactory<String, Object> factory,
+                                      Map<String, Object> props, IdempotencyStore idempotencyStore) {
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props));
+        factory.getContainerProperties().setConsumerRebalanceListener(new ConsumerAwareRebalanceListener() {
+            @Override
+            public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                idempotencyStore.refresh();
+            }
+        });
+    }
+
     private ConcurrentKafkaListenerContainerFactory<String, Object> createContainerFactory(
-            boolean autoCommit, ContainerProperties.AckMode ackMode) {
+            boolean autoCommit, ContainerProperties.AckMode ackMode, int concurrency) {
 
         var factory = new ConcurrentKafkaListenerContainerFactory<String, Object>();
         Map<String, Object> props = getBaseConsumerProperties();
@@ -85,11 +194,26 @@ public class KafkaConfig {
         }
 
         factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props));
+        factory.setConcurrency(concurrency);
+        applyListenerTaskExecutor(factory);
         factory.getContainerProperties().setAckMode(ackMode);
 
         return factory;
     }
 
+    /**
+     * Spring Boot переводит на виртуальные потоки только автоконфигурированную фабрику,
+     * поэтому для собственных фабрик исполнитель потоков контейнера задается явно
+     */
+    private void applyListenerTaskExecutor(ConcurrentKafkaListenerContainerFactory<?, ?> factory) {
+        if (!virtualThreads) {
+            return;
+        }
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("kafka-listener-");
+        executor.setVirtualThreads(true);
+        factory.getContainerProperties().setListenerTaskExecutor(executor);
+    }
+
     private Map<String, Object> getBaseConsumerProperties() {
         Map<String, Object> props = new HashMap<>();
 
@@ -102,14 +226,15 @@ public class KafkaConfig {
 
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG,
                 org.apache.kafka.common.serialization.StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
-                org.springframework.kafka.support.serializer.JsonDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, BinaryMessageDeserializer.class);
 
         props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
         props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
         props.put(JsonDeserializer.VALUE_DEFAULT_TYPE,
                 "gigabank.accountmanagement.dto.kafka.TransactionMessage");
 
+        props.put(ConsumerConfig.INTERCEPTOR_CLASSES_CONFIG, PolledAtInterceptor.class.getName());
+
         props.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, 30000);
         props.put(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, 10000);
         props.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, 300000);
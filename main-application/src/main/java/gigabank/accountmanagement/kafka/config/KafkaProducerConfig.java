@@ -0,0 +1,74 @@
+package gigabank.accountmanagement.kafka.config;
+
+import gigabank.accountmanagement.enums.ProducerProfile;
+import gigabank.accountmanagement.kafka.producer.ProducerProfileRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Продюсеры Kafka: основной (свойства spring.kafka.producer) и транзакционный
+ * для exactly-once генерации. Объявление собственной фабрики отключает автоконфигурацию Spring Boot,
+ * поэтому основные фабрика и шаблон объявлены здесь же и помечены @Primary
+ */
+@Configuration
+public class KafkaProducerConfig {
+
+    private final KafkaProperties kafkaProperties;
+
+    public KafkaProducerConfig(KafkaProperties kafkaProperties) {
+        this.kafkaProperties = kafkaProperties;
+    }
+
+    @Bean
+    @Primary
+    public ProducerFactory<Object, Object> kafkaProducerFactory() {
+        return new DefaultKafkaProducerFactory<>(kafkaProperties.buildProducerProperties(null));
+    }
+
+    @Bean
+    @Primary
+    public KafkaTemplate<?, ?> kafkaTemplate(ProducerFactory<Object, Object> kafkaProducerFactory) {
+        return new KafkaTemplate<>(kafkaProducerFactory);
+    }
+
+    /**
+     * Идемпотентный транзакционный продюсер с настройками профиля DURABLE: до 5 запросов в полете
+     * на соединение без нарушения порядка, записи транзакции собираются в общие батчи
+     * и фиксируются одним commit
+     */
+    @Bean
+    public ProducerFactory<String, Object> transactionalProducerFactory(
+            @Value("${app.kafka.producer.transactional.id-prefix:gigabank-tx-}") String transactionIdPrefix,
+            @Value("${app.kafka.producer.transactional.linger-ms:5}") int lingerMs,
+            @Value("${app.kafka.producer.transactional.batch-bytes:65536}") int batchBytes,
+            MeterRegistry meterRegistry) {
+        Map<String, Object> props = ProducerProfile.DURABLE.applyTo(kafkaProperties.buildProducerProperties(null));
+        props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchBytes);
+
+        var factory = new DefaultKafkaProducerFactory<String, Object>(props);
+        factory.setTransactionIdPrefix(transactionIdPrefix);
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry,
+                List.of(Tag.of("profile", ProducerProfileRegistry.TRANSACTIONAL))));
+        return factory;
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> transactionalKafkaTemplate(
+            ProducerFactory<String, Object> transactionalProducerFactory) {
+        return new KafkaTemplate<>(transactionalProducerFactory);
+    }
+}
@@ -1,6 +1,7 @@
 package gigabank.accountmanagement.kafka.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
@@ -9,56 +10,62 @@ import org.springframework.kafka.config.TopicBuilder;
 public class KafkaTopicConfig {
 
     @Bean
-    public NewTopic transactionsAtMostOnceTopic() {
+    public NewTopic transactionsAtMostOnceTopic(
+            @Value("${app.kafka.topics.at-most-once.partitions:3}") int partitions) {
         return TopicBuilder
                 .name("transactions-at-most-once")
-                .partitions(3)
+                .partitions(partitions)
                 .replicas(1)
                 .build();
     }
 
     @Bean
-    public NewTopic transactionsAtLeastOnceTopic() {
+    public NewTopic transactionsAtLeastOnceTopic(
+            @Value("${app.kafka.topics.at-least-once.partitions:3}") int partitions) {
         return TopicBuilder
                 .name("transactions-at-least-once")
-                .partitions(3)
+                .partitions(partitions)
                 .replicas(1)
                 .build();
     }
 
     @Bean
-    public NewTopic transactionsExactlyOnceTopic() {
+    public NewTopic transactionsExactlyOnceTopic(
+            @Value("${app.kafka.topics.exactly-once.partitions:3}") int partitions) {
         return TopicBuilder
                 .name("transactions-exactly-once")
-                .partitions(3)
+                .partitions(partitions)
                 .replicas(1)
                 .build();
     }
 
     @Bean
-    public NewTopic transactionsBatchTopic() {
+    public NewTopic transactionsBatchTopic(
+            @Value("${app.kafka.topics.batch.partitions:3}") int partitions) {
         return TopicBuilder
                 .name("transactions-batch")
-                .partitions(3)
+                .partitions(partitions)
                 .replicas(1)
                 .build();
     }
 
     @Bean
-    public NewTopic transactionsDLTTopic() {
+    public NewTopic transactionsDLTTopic(
+            @Value("${app.kafka.topics.retry-dlt.partitions:1}") int partitions) {
         return TopicBuilder
                 .name("transactions-retry-dlt")
-                .partitions(1)
+                .partitions(partitions)
                 .replicas(1)
                 .build();
     }
 
     @Bean
-    public NewTopic transactionsOutboxTopic() {
+    public NewTopic transactionsOutboxTopic(
+            @Value("${app.kafka.topics.outbox-events.partitions:3}") int partitions) {
         return TopicBuilder
                 .name("transaction-outbox-events")
-                .partitions(3)
+                .partitions(partitions)
                 .replicas(1)
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,200 @@
+package gigabank.accountmanagement.kafka.consumer;
+
+import gigabank.accountmanagement.service.MetricsService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Адаптивный размер батча для transactions-batch.
+ * Периодически оценивает p99 длительности батча и отставание консьюмера
+ * и в заданных границах меняет max.poll.records и fetch.max.wait.ms:
+ * при превышении целевого p99 батч уменьшается вдвое, при отставании и запасе по задержке — удваивается.
+ * Между порогами уменьшения (target-p99-ms) и увеличения (доля GROW_HEADROOM от него) значения не меняются.
+ * Новые значения применяются перезапуском контейнера слушателя, что вызывает ребалансировку группы,
+ * поэтому изменения применяются не чаще min-change-interval-ms и только если значения после ограничения
+ * границами действительно изменились
+ */
+@Slf4j
+@Component
+public class AdaptiveBatchController {
+    private static final double GROW_HEADROOM = 0.7;
+    private static final double MIN_RELATIVE_CHANGE = 0.1;
+    private static final int MIN_SAMPLES = 5;
+
+    private final KafkaListenerEndpointRegistry listenerEndpointRegistry;
+    private final MetricsService metricsService;
+
+    private final boolean enabled;
+    private final int minSize;
+    private final int maxSize;
+    private final int minTimeoutMs;
+    private final int maxTimeoutMs;
+    private final long targetP99Ms;
+    private final long minChangeIntervalNanos;
+
+    private volatile int currentSize;
+    private volatile int currentTimeoutMs;
+    private volatile long lastP99Ms;
+    private volatile double lastLag;
+    private volatile long lastChangeNanos;
+
+    public AdaptiveBatchController(KafkaListenerEndpointRegistry listenerEndpointRegistry,
+                                   MetricsService metricsService,
+                                   @Value("${app.kafka.batch.adaptive.enabled:false}") boolean enabled,
+                                   @Value("${app.kafka.batch.size:20}") int initialSize,
+                                   @Value("${app.kafka.batch.timeout-ms:500}") int initialTimeoutMs,
+                                   @Value("${app.kafka.batch.adaptive.min-size:10}") int minSize,
+                                   @Value("${app.kafka.batch.adaptive.max-size:500}") int maxSize,
+                                   @Value("${app.kafka.batch.adaptive.min-timeout-ms:50}") int minTimeoutMs,
+                                   @Value("${app.kafka.batch.adaptive.max-timeout-ms:1000}") int maxTimeoutMs,
+                                   @Value("${app.kafka.batch.adaptive.target-p99-ms:200}") long targetP99Ms,
+                                   @Value("${app.kafka.batch.adaptive.min-change-interval-ms:120000}") long minChangeIntervalMs) {
+        this.listenerEndpointRegistry = listenerEndpointRegistry;
+        this.metricsService = metricsService;
+        this.enabled = enabled;
+        this.currentSize = initialSize;
+        this.currentTimeoutMs = initialTimeoutMs;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.minTimeoutMs = minTimeoutMs;
+        this.maxTimeoutMs = maxTimeoutMs;
+        this.targetP99Ms = targetP99Ms;
+        this.minChangeIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minChangeIntervalMs);
+        this.lastChangeNanos = System.nanoTime() - minChangeIntervalNanos;
+    }
+
+    private MessageListenerContainer runningBatchContainer() {
+        for (String id : List.of(BatchTransactionConsumer.BATCH_LISTENER_ID,
+                BatchTransactionConsumer.RAW_BATCH_LISTENER_ID)) {
+            MessageListenerContainer container = listenerEndpointRegistry.getListenerContainer(id);
+            if (container != null && container.isRunning()) {
+                return container;
+            }
+        }
+        return null;
+    }
+
+    @Scheduled(fixedDelayString = "${app.kafka.batch.adaptive.adjust-interval-ms:30000}")
+    public void adjust() {
+        if (!enabled) {
+            return;
+        }
+
+        MessageListenerContainer container = runningBatchContainer();
+        if (container == null) {
+            return;
+        }
+
+        long[] samples = metricsService.drainRecentBatchTimes();
+        if (samples.length < MIN_SAMPLES) {
+            return;
+        }
+
+        long p99 = percentile(samples, 0.99);
+        double lag = maxRecordsLag(container);
+        lastP99Ms = p99;
+        lastLag = lag;
+
+        int newSize = currentSize;
+        int newTimeoutMs = currentTimeoutMs;
+
+        if (p99 > targetP99Ms) {
+            newSize = Math.max(minSize, currentSize / 2);
+            newTimeoutMs = Math.max(minTimeoutMs, currentTimeoutMs / 2);
+        } else if (p99 < targetP99Ms * GROW_HEADROOM) {
+            if (lag > currentSize) {
+                newSize = Math.min(maxSize, currentSize * 2);
+            } else {
+                newTimeoutMs = Math.min(maxTimeoutMs, currentTimeoutMs + currentTimeoutMs / 2);
+            }
+        }
+
+        if (newSize == currentSize && newTimeoutMs == currentTimeoutMs) {
+            return;
+        }
+        if (!significantChange(currentSize, newSize) && !significantChange(currentTimeoutMs, newTimeoutMs)) {
+            return;
+        }
+        if (System.nanoTime() - lastChangeNanos < minChangeIntervalNanos) {
+            log.debug("[Adaptive batch] p99={}ms, lag={}: изменение size {} -> {} отложено до истечения min-change-interval",
+                    p99, (long) lag, currentSize, newSize);
+            return;
+        }
+
+        log.info("[Adaptive batch] p99={}ms, lag={}, size {} -> {}, fetchWait {}ms -> {}ms",
+                p99, (long) lag, currentSize, newSize, currentTimeoutMs, newTimeoutMs);
+        apply(container, newSize, newTimeoutMs);
+    }
+
+    public int getCurrentSize() {
+        return currentSize;
+    }
+
+    public int getCurrentTimeoutMs() {
+        return currentTimeoutMs;
+    }
+
+    public long getLastP99Ms() {
+        return lastP99Ms;
+    }
+
+    public double getLastLag() {
+        return lastLag;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private void apply(MessageListenerContainer container, int size, int timeoutMs) {
+        Properties overrides = new Properties();
+        overrides.putAll(container.getContainerProperties().getKafkaConsumerProperties());
+        overrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(size));
+        overrides.setProperty(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, String.valueOf(timeoutMs));
+        container.getContainerProperties().setKafkaConsumerProperties(overrides);
+
+        currentSize = size;
+        currentTimeoutMs = timeoutMs;
+        lastChangeNanos = System.nanoTime();
+
+        container.stop(container::start);
+    }
+
+    private double maxRecordsLag(MessageListenerContainer container) {
+        double maxLag = 0;
+        for (Map<MetricName, ? extends Metric> clientMetrics : container.metrics().values()) {
+            for (Map.Entry<MetricName, ? extends Metric> entry : clientMetrics.entrySet()) {
+                if ("records-lag-max".equals(entry.getKey().name())
+                        && entry.getValue().metricValue() instanceof Double value
+                        && !value.isNaN()) {
+                    maxLag = Math.max(maxLag, value);
+                }
+            }
+        }
+        return maxLag;
+    }
+
+    private static long percentile(long[] samples, double quantile) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static boolean significantChange(int current, int proposed) {
+        return Math.abs(proposed - current) >= Math.max(1, current * MIN_RELATIVE_CHANGE);
+    }
+}
@@ -1,33 +1,93 @@
 package gigabank.accountmanagement.kafka.consumer;
 
 import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import gigabank.accountmanagement.kafka.serialization.PooledTransactionBatch;
+import gigabank.accountmanagement.kafka.tracing.PipelineTracer;
+import gigabank.accountmanagement.service.BatchIngestBuffer;
 import gigabank.accountmanagement.service.TransactionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class BatchTransactionConsumer {
+    public static final String BATCH_LISTENER_ID = "transactions-batch-listener";
+    public static final String RAW_BATCH_LISTENER_ID = "transactions-batch-raw-listener";
 
     private final TransactionService transactionService;
+    private final BatchIngestBuffer batchIngestBuffer;
+    private final PipelineTracer pipelineTracer;
+    private final ThreadLocal<PooledTransactionBatch> pooledBatches =
+            ThreadLocal.withInitial(PooledTransactionBatch::new);
 
     /**
-     * Батч консьюмер для пакетной обработки
+     * Батч консьюмер для пакетной обработки.
+     * В режиме ingest-mode=copy сообщения накапливаются и записываются через COPY,
+     * смещения подтверждаются после записи буфера; этапы DB и COMMIT в этом режиме не измеряются
      */
     @KafkaListener(
+            id = BATCH_LISTENER_ID,
             topics = "transactions-batch",
             groupId = "${app.kafka.consumer-groups.batch}",
-            containerFactory = "batchContainerFactory"
+            containerFactory = "batchContainerFactory",
+            autoStartup = "#{!${app.kafka.batch.raw.enabled:false}}"
     )
-    public void consumeBatch(List<TransactionMessage> transactions) {
+    public void consumeBatch(List<ConsumerRecord<String, TransactionMessage>> records, Acknowledgment ack) {
+        long start = pipelineTracer.received(records, "batch");
+        List<TransactionMessage> transactions = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, TransactionMessage> record : records) {
+            if (record.value() != null) {
+                transactions.add(record.value());
+            }
+        }
+        processBatch(records, transactions, ack, start);
+    }
+
+    /**
+     * Вариант батч консьюмера, который получает сырые значения записей и разбирает их
+     * в переиспользуемые объекты сообщений без промежуточной десериализации контейнером.
+     * Включается вместо consumeBatch свойством app.kafka.batch.raw.enabled
+     */
+    @KafkaListener(
+            id = RAW_BATCH_LISTENER_ID,
+            topics = "transactions-batch",
+            groupId = "${app.kafka.consumer-groups.batch}",
+            containerFactory = "rawBatchContainerFactory",
+            autoStartup = "${app.kafka.batch.raw.enabled:false}"
+    )
+    public void consumeRawBatch(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+        long start = pipelineTracer.received(records, "batch");
+        List<TransactionMessage> transactions = pooledBatches.get().decode(records);
+        pipelineTracer.deserialized("batch", start, records.size());
+
+        // Буфер COPY хранит сообщения дольше одного poll, поэтому держатели из пула ему не передаются
+        if (batchIngestBuffer.isEnabled()) {
+            List<TransactionMessage> copies = new ArrayList<>(transactions.size());
+            transactions.forEach(transaction -> copies.add(transaction.toBuilder().build()));
+            transactions = copies;
+        }
+
+        processBatch(records, transactions, ack, System.nanoTime());
+    }
+
+    private void processBatch(List<? extends ConsumerRecord<String, ?>> records, List<TransactionMessage> transactions,
+                              Acknowledgment ack, long start) {
         try {
             log.info("Получен батч: {} транзакций", transactions.size());
 
+            if (batchIngestBuffer.isEnabled()) {
+                batchIngestBuffer.append(transactions, ack);
+                return;
+            }
+
             if (!transactions.isEmpty()) {
                 boolean success = transactionService.processTransactionBatch(transactions, "batch");
                 if (success) {
@@ -37,6 +97,9 @@ public class BatchTransactionConsumer {
                     throw new RuntimeException("Batch processing failed");
                 }
             }
+            long processed = pipelineTracer.processed("batch", start, transactions.size());
+            ack.acknowledge();
+            pipelineTracer.committed(records, "batch", processed);
 
         } catch (Exception e) {
             log.error("Критическая ошибка обработки батча: {} сообщений",
@@ -44,4 +107,4 @@ public class BatchTransactionConsumer {
             throw e;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,154 @@
+package gigabank.accountmanagement.kafka.consumer;
+
+import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Параллельная обработка записей одного poll с сохранением порядка по счету.
+ * Записи раскладываются по дорожкам по bankAccountId (при его отсутствии — по ключу записи);
+ * дорожки выполняются параллельно, записи внутри дорожки — по порядку. Счет всегда попадает
+ * в одну партицию, а партиция принадлежит одному потоку контейнера, поэтому порядок по счету
+ * сохраняется и между poll.
+ * При ошибке дорожка останавливается, а обработчику ошибок контейнера передается индекс
+ * первой неуспешной записи: все записи до него обработаны, их смещения фиксируются.
+ * Успешно обработанные записи после этого индекса будут прочитаны повторно
+ */
+@Slf4j
+@Component
+public class KeyOrderedParallelProcessor {
+    private final boolean enabled;
+    private final int threads;
+    private final boolean virtualThreads;
+
+    private ExecutorService executor;
+
+    public KeyOrderedParallelProcessor(@Value("${app.kafka.parallel.enabled:false}") boolean enabled,
+                                       @Value("${app.kafka.parallel.threads:8}") int threads,
+                                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.enabled = enabled;
+        this.threads = threads;
+        this.virtualThreads = virtualThreads;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        // Число дорожек poll ограничено threads, поэтому в режиме виртуальных потоков пул не нужен
+        if (virtualThreads) {
+            executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("kafka-parallel-", 1).factory());
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "kafka-parallel-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        log.info("[Parallel] Запущена параллельная обработка по счетам: threads={}, virtual={}",
+                threads, virtualThreads);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Обрабатывает записи poll и возвращается после завершения всех дорожек
+     *
+     * @param records записи в порядке, полученном от контейнера
+     * @param handler обработчик одной транзакции
+     * @throws BatchListenerFailedException с индексом первой неуспешной записи
+     */
+    public void process(List<ConsumerRecord<String, TransactionMessage>> records,
+                        Consumer<TransactionMessage> handler) {
+        int laneCount = Math.min(threads, records.size());
+        if (laneCount == 0) {
+            return;
+        }
+
+        List<List<Integer>> lanes = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            lanes.add(new ArrayList<>());
+        }
+        for (int i = 0; i < records.size(); i++) {
+            lanes.get(Math.floorMod(laneKey(records.get(i)), laneCount)).add(i);
+        }
+
+        List<CompletableFuture<LaneFailure>> futures = new ArrayList<>(laneCount);
+        for (List<Integer> lane : lanes) {
+            if (!lane.isEmpty()) {
+                futures.add(CompletableFuture.supplyAsync(() -> processLane(records, lane, handler), executor));
+            }
+        }
+
+        LaneFailure firstFailure = null;
+        for (CompletableFuture<LaneFailure> future : futures) {
+            LaneFailure failure = future.join();
+            if (failure != null && (firstFailure == null || failure.index() < firstFailure.index())) {
+                firstFailure = failure;
+            }
+        }
+
+        if (firstFailure != null) {
+            throw new BatchListenerFailedException("Ошибка обработки записи в параллельном режиме",
+                    firstFailure.cause(), firstFailure.index());
+        }
+    }
+
+    private LaneFailure processLane(List<ConsumerRecord<String, TransactionMessage>> records, List<Integer> lane,
+                                    Consumer<TransactionMessage> handler) {
+        for (int index : lane) {
+            TransactionMessage message = records.get(index).value();
+            if (message == null) {
+                log.warn("[Parallel] Пропущена запись без значения: index={}", index);
+                continue;
+            }
+            try {
+                handler.accept(message);
+            } catch (Exception e) {
+                return new LaneFailure(index, e);
+            }
+        }
+        return null;
+    }
+
+    private static int laneKey(ConsumerRecord<String, TransactionMessage> record) {
+        TransactionMessage message = record.value();
+        if (message != null && message.getBankAccountId() != null) {
+            return Long.hashCode(message.getBankAccountId());
+        }
+        return Objects.hashCode(record.key());
+    }
+
+    private record LaneFailure(int index, Exception cause) {
+    }
+}
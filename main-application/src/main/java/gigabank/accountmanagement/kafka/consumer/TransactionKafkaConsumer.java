@@ -1,29 +1,45 @@
 package gigabank.accountmanagement.kafka.consumer;
 
 import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import gigabank.accountmanagement.enums.ProcessingPath;
 import gigabank.accountmanagement.kafka.producer.DeadLetterTopicProducer;
+import gigabank.accountmanagement.kafka.tracing.PipelineTracer;
+import gigabank.accountmanagement.service.MetricsService;
 import gigabank.accountmanagement.service.TransactionService;
+import gigabank.accountmanagement.service.idempotency.IdempotencyStore;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 
 @Component
 @Slf4j
 public class TransactionKafkaConsumer {
+    private static final String SEQUENTIAL_AUTO_STARTUP = "#{!${app.kafka.parallel.enabled:false}}";
+    private static final String PARALLEL_AUTO_STARTUP = "${app.kafka.parallel.enabled:false}";
 
     private final TransactionService transactionService;
     private final DeadLetterTopicProducer deadLetterTopicProducer;
-    private final ConcurrentHashMap<Long, Boolean> processedTransactions;
+    private final IdempotencyStore idempotencyStore;
+    private final MetricsService metricsService;
+    private final KeyOrderedParallelProcessor parallelProcessor;
+    private final PipelineTracer pipelineTracer;
 
     public TransactionKafkaConsumer(TransactionService transactionService,
-                                    DeadLetterTopicProducer deadLetterTopicProducer) {
+                                    DeadLetterTopicProducer deadLetterTopicProducer,
+                                    IdempotencyStore idempotencyStore,
+                                    MetricsService metricsService,
+                                    KeyOrderedParallelProcessor parallelProcessor,
+                                    PipelineTracer pipelineTracer) {
         this.transactionService = transactionService;
         this.deadLetterTopicProducer = deadLetterTopicProducer;
-        this.processedTransactions = new ConcurrentHashMap<>();
+        this.idempotencyStore = idempotencyStore;
+        this.metricsService = metricsService;
+        this.parallelProcessor = parallelProcessor;
+        this.pipelineTracer = pipelineTracer;
     }
 
     /**
@@ -34,10 +50,15 @@ public class TransactionKafkaConsumer {
             groupId = "${app.kafka.consumer-groups.at-most-once}",
             containerFactory = "atMostOnceContainerFactory"
     )
-    public void consumeAtMostOnce(TransactionMessage transaction) {
+    public void consumeAtMostOnce(ConsumerRecord<String, TransactionMessage> record) {
+        TransactionMessage transaction = record.value();
+
         try {
             log.info("[At-Most-Once] Получена транзакция: transactionId={}", transaction.getId());
+            long start = pipelineTracer.received(record, "at-most-once");
             transactionService.processTransaction(transaction, "at-most-once");
+            pipelineTracer.processed("at-most-once", start, 1);
+            pipelineTracer.completed(record, "at-most-once");
             log.info("[At-Most-Once] Транзакция обработана: transactionId={}", transaction.getId());
         } catch (Exception e) {
             log.error("[At-Most-Once] Ошибка обработки: transactionId={}", transaction.getId(), e);
@@ -50,7 +71,8 @@ public class TransactionKafkaConsumer {
     @KafkaListener(
             topics = "transactions-at-least-once",
             groupId = "${app.kafka.consumer-groups.at-least-once}",
-            containerFactory = "atLeastOnceContainerFactory"
+            containerFactory = "atLeastOnceContainerFactory",
+            autoStartup = SEQUENTIAL_AUTO_STARTUP
     )
     public void consumeAtLeastOnce(ConsumerRecord<String, TransactionMessage> record,
                                    Acknowledgment ack) {
@@ -58,8 +80,11 @@ public class TransactionKafkaConsumer {
 
         try {
             log.info("[At-Least-Once] Получена транзакция: transactionId={}", transaction.getId());
+            long start = pipelineTracer.received(record, "at-least-once");
             transactionService.processTransaction(transaction, "at-least-once");
+            long processed = pipelineTracer.processed("at-least-once", start, 1);
             ack.acknowledge();
+            pipelineTracer.committed(record, "at-least-once", processed);
             log.info("[At-Least-Once] Транзакция обработана: transactionId={}", transaction.getId());
         } catch (Exception e) {
             log.error("[At-Least-Once] Ошибка обработки: transactionId={}", transaction.getId(), e);
@@ -73,7 +98,8 @@ public class TransactionKafkaConsumer {
     @KafkaListener(
             topics = "transactions-exactly-once",
             groupId = "${app.kafka.consumer-groups.exactly-once}",
-            containerFactory = "exactlyOnceContainerFactory"
+            containerFactory = "exactlyOnceContainerFactory",
+            autoStartup = SEQUENTIAL_AUTO_STARTUP
     )
     public void consumeExactlyOnce(ConsumerRecord<String, TransactionMessage> record,
                                    Acknowledgment ack) {
@@ -82,26 +108,74 @@ public class TransactionKafkaConsumer {
 
         try {
             log.info("[Exactly-Once] Получена транзакция: transactionId={}", transactionId);
+            long start = pipelineTracer.received(record, "exactly-once");
 
-            if (processedTransactions.containsKey(transactionId)) {
+            if (idempotencyStore.isProcessed(transactionId)) {
                 log.info("[Exactly-Once] Дубликат пропущен: transactionId={}", transactionId);
                 ack.acknowledge();
                 return;
             }
 
             transactionService.processTransaction(transaction, "exactly-once");
-            processedTransactions.put(transactionId, true);
+            long processed = pipelineTracer.processed("exactly-once", start, 1);
             ack.acknowledge();
+            pipelineTracer.committed(record, "exactly-once", processed);
 
             log.info("[Exactly-Once] Транзакция обработана: transactionId={}", transactionId);
 
         } catch (Exception e) {
             log.error("[Exactly-Once] Ошибка обработки: transactionId={}", transactionId, e);
-            processedTransactions.remove(transactionId);
             throw e;
         }
     }
 
+    /**
+     * At-least-once консьюмер с параллельной обработкой разных счетов внутри poll
+     */
+    @KafkaListener(
+            topics = "transactions-at-least-once",
+            groupId = "${app.kafka.consumer-groups.at-least-once}",
+            containerFactory = "parallelAtLeastOnceContainerFactory",
+            autoStartup = PARALLEL_AUTO_STARTUP
+    )
+    public void consumeAtLeastOnceParallel(List<ConsumerRecord<String, TransactionMessage>> records,
+                                           Acknowledgment ack) {
+        log.info("[At-Least-Once parallel] Получено записей: {}", records.size());
+        pipelineTracer.received(records, "at-least-once");
+        parallelProcessor.process(records, transaction -> {
+            long start = System.nanoTime();
+            transactionService.processTransaction(transaction, "at-least-once");
+            pipelineTracer.processed("at-least-once", start, 1);
+        });
+        long ackStart = System.nanoTime();
+        ack.acknowledge();
+        pipelineTracer.committed(records, "at-least-once", ackStart);
+    }
+
+    /**
+     * Exactly-once консьюмер с параллельной обработкой разных счетов внутри poll.
+     * Дубликаты отсекаются в TransactionService по хранилищу идемпотентности
+     */
+    @KafkaListener(
+            topics = "transactions-exactly-once",
+            groupId = "${app.kafka.consumer-groups.exactly-once}",
+            containerFactory = "parallelExactlyOnceContainerFactory",
+            autoStartup = PARALLEL_AUTO_STARTUP
+    )
+    public void consumeExactlyOnceParallel(List<ConsumerRecord<String, TransactionMessage>> records,
+                                           Acknowledgment ack) {
+        log.info("[Exactly-Once parallel] Получено записей: {}", records.size());
+        pipelineTracer.received(records, "exactly-once");
+        parallelProcessor.process(records, transaction -> {
+            long start = System.nanoTime();
+            transactionService.processTransaction(transaction, "exactly-once");
+            pipelineTracer.processed("exactly-once", start, 1);
+        });
+        long ackStart = System.nanoTime();
+        ack.acknowledge();
+        pipelineTracer.committed(records, "exactly-once", ackStart);
+    }
+
     /**
      * Retry + DLT консьюмер
      */
@@ -113,18 +187,24 @@ public class TransactionKafkaConsumer {
     public void consumeWithRetryAndDlt(ConsumerRecord<String, TransactionMessage> record,
                                        Acknowledgment ack) {
         TransactionMessage transaction = record.value();
+        long startTime = pipelineTracer.received(record, "retry-dlt");
 
         try {
             log.info("[Retry-DLT] Получена транзакция: transactionId={}", transaction.getId());
             transactionService.processTransaction(transaction, "at-least-once");
+            long processed = pipelineTracer.processed("retry-dlt", startTime, 1);
             ack.acknowledge();
+            pipelineTracer.committed(record, "retry-dlt", processed);
             log.info("[Retry-DLT] Транзакция обработана: transactionId={}", transaction.getId());
         } catch (Exception e) {
             log.error("[Retry-DLT] Критическая ошибка после всех попыток: transactionId={}",
                     transaction.getId(), e);
             deadLetterTopicProducer.sendToDlt(record, e);
+            metricsService.getSingleProcessingMetrics().incrementDltMessages();
             ack.acknowledge();
             log.warn("[Retry-DLT] Сообщение отправлено в DLT: transactionId={}", transaction.getId());
+        } finally {
+            metricsService.recordLatency(ProcessingPath.DLT, System.nanoTime() - startTime);
         }
     }
 
@@ -138,8 +218,11 @@ public class TransactionKafkaConsumer {
 
         try {
             log.info("[Outbox events] Получена транзакция: transactionId={}", transaction.getId());
+            long start = pipelineTracer.received(record, "outbox-events");
             transactionService.processTransaction(transaction, "at-least-once", false);
+            long processed = pipelineTracer.processed("outbox-events", start, 1);
             ack.acknowledge();
+            pipelineTracer.committed(record, "outbox-events", processed);
             log.info("[Outbox events] Транзакция обработана: transactionId={}", transaction.getId());
         } catch (Exception e) {
             log.error("[Outbox events] Ошибка обработки: transactionId={}", transaction.getId(), e);
@@ -0,0 +1,142 @@
+package gigabank.accountmanagement.kafka.producer;
+
+import gigabank.accountmanagement.dto.kafka.ProducerProfileStats;
+import gigabank.accountmanagement.enums.ProducerProfile;
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Продюсеры Kafka по профилям ProducerProfile и выбор профиля для режима доставки.
+ * Профиль режима задается свойствами app.kafka.producer.profiles.*; exactly-once всегда отправляется
+ * транзакционным продюсером KafkaProducerConfig (настройки DURABLE). Каждый продюсер публикует
+ * метрики клиента в Micrometer (kafka.producer.*) с тегом profile
+ */
+@Slf4j
+@Component
+public class ProducerProfileRegistry implements DisposableBean {
+    public static final String TRANSACTIONAL = "transactional";
+    private static final String METRIC_PREFIX = "kafka.producer.";
+
+    private final Map<ProducerProfile, DefaultKafkaProducerFactory<String, Object>> factories =
+            new EnumMap<>(ProducerProfile.class);
+    private final Map<ProducerProfile, KafkaTemplate<String, Object>> templates =
+            new EnumMap<>(ProducerProfile.class);
+    private final Map<String, ProducerProfile> modeProfiles = new LinkedHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public ProducerProfileRegistry(KafkaProperties kafkaProperties,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.kafka.producer.profiles.at-most-once:latency}") String atMostOnce,
+                                   @Value("${app.kafka.producer.profiles.at-least-once:durable}") String atLeastOnce,
+                                   @Value("${app.kafka.producer.profiles.batch:throughput}") String batch) {
+        this.meterRegistry = meterRegistry;
+        modeProfiles.put("at-most-once", ProducerProfile.valueOf(atMostOnce.toUpperCase()));
+        modeProfiles.put("at-least-once", ProducerProfile.valueOf(atLeastOnce.toUpperCase()));
+        modeProfiles.put("batch", ProducerProfile.valueOf(batch.toUpperCase()));
+
+        for (ProducerProfile profile : ProducerProfile.values()) {
+            Map<String, Object> props = profile.applyTo(kafkaProperties.buildProducerProperties(null));
+            // Профили отправляют только TransactionMessage, консьюмеры берут его как тип по умолчанию
+            props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+            DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(props);
+            factory.addListener(new MicrometerProducerListener<>(meterRegistry,
+                    List.of(Tag.of("profile", profile.name().toLowerCase()))));
+            factories.put(profile, factory);
+            templates.put(profile, new KafkaTemplate<>(factory));
+        }
+
+        log.info("Профили продюсера Kafka по режимам доставки: {}", modeProfiles);
+    }
+
+    /**
+     * @param deliveryMode режим доставки; неизвестные режимы отправляются как at-least-once
+     * @return профиль продюсера для режима
+     */
+    public ProducerProfile profileFor(String deliveryMode) {
+        return modeProfiles.getOrDefault(deliveryMode.toLowerCase(), modeProfiles.get("at-least-once"));
+    }
+
+    /**
+     * @return шаблон нетранзакционного продюсера для режима доставки
+     */
+    public KafkaTemplate<String, Object> templateFor(String deliveryMode) {
+        return templates.get(profileFor(deliveryMode));
+    }
+
+    /**
+     * @return метрики продюсеров всех профилей и транзакционного продюсера exactly-once
+     */
+    public List<ProducerProfileStats> getStats() {
+        List<ProducerProfileStats> stats = new ArrayList<>();
+        for (ProducerProfile profile : ProducerProfile.values()) {
+            List<String> modes = modeProfiles.entrySet().stream()
+                    .filter(entry -> entry.getValue() == profile)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            stats.add(toStats(profile.name().toLowerCase(), modes, profile));
+        }
+        stats.add(toStats(TRANSACTIONAL, List.of("exactly-once"), ProducerProfile.DURABLE));
+        return stats;
+    }
+
+    private ProducerProfileStats toStats(String name, List<String> modes, ProducerProfile profile) {
+        return new ProducerProfileStats(
+                name,
+                modes,
+                profile.getCompressionType(),
+                profile.getLingerMs(),
+                profile.getBatchBytes(),
+                profile.getAcks(),
+                sum("record.send.rate", name),
+                sum("outgoing.byte.rate", name),
+                sum("record.send.total", name),
+                sum("record.error.rate", name),
+                mean("compression.rate.avg", name),
+                mean("batch.size.avg", name),
+                mean("records.per.request.avg", name),
+                mean("request.latency.avg", name));
+    }
+
+    /**
+     * Метрики клиента, привязанные MicrometerProducerListener. Продюсер создается фабрикой
+     * при первой отправке — до нее метрик нет и значение равно NaN.
+     * Транзакционная фабрика держит отдельный продюсер на поток, поэтому значения агрегируются
+     */
+    private double sum(String metric, String profile) {
+        return values(metric, profile).sum();
+    }
+
+    private double mean(String metric, String profile) {
+        return values(metric, profile).average().orElse(Double.NaN);
+    }
+
+    private DoubleStream values(String metric, String profile) {
+        return meterRegistry.find(METRIC_PREFIX + metric).tag("profile", profile).meters().stream()
+                .flatMap(meter -> StreamSupport.stream(meter.measure().spliterator(), false))
+                .mapToDouble(Measurement::getValue)
+                .filter(Double::isFinite);
+    }
+
+    @Override
+    public void destroy() {
+        factories.values().forEach(DefaultKafkaProducerFactory::destroy);
+    }
+}
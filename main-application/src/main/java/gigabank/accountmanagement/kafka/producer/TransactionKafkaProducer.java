@@ -1,26 +1,138 @@
 package gigabank.accountmanagement.kafka.producer;
 
 import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class TransactionKafkaProducer {
     private static final Logger log = LoggerFactory.getLogger(TransactionKafkaProducer.class);
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ProducerProfileRegistry producerProfiles;
+    private final KafkaTemplate<String, Object> transactionalKafkaTemplate;
+    private final int transactionSize;
+    private final ExecutorService transactionExecutor;
 
-    public TransactionKafkaProducer(KafkaTemplate<String, Object> kafkaTemplate) {
-        this.kafkaTemplate = kafkaTemplate;
+    public TransactionKafkaProducer(ProducerProfileRegistry producerProfiles,
+                                    @Qualifier("transactionalKafkaTemplate")
+                                    KafkaTemplate<String, Object> transactionalKafkaTemplate,
+                                    @Value("${app.kafka.producer.transactional.records-per-transaction:500}")
+                                    int transactionSize,
+                                    @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.producerProfiles = producerProfiles;
+        this.transactionalKafkaTemplate = transactionalKafkaTemplate;
+        this.transactionSize = transactionSize;
+        if (virtualThreads) {
+            this.transactionExecutor = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("kafka-tx-", 1).factory());
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.transactionExecutor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "kafka-tx-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        transactionExecutor.shutdown();
+        try {
+            transactionExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Отправляет пакет транзакций без ожидания подтверждения каждой записи.
+     * В режиме exactly-once записи группируются в транзакции Kafka по records-per-transaction
+     * и отправляются в отдельном потоке: отправки внутри транзакции идут конвейером,
+     * commit дожидается подтверждения всех записей, вызывающий поток не ждет.
+     * Остальные режимы отправляются асинхронно продюсером профиля режима (ProducerProfileRegistry)
+     *
+     * @param messages сообщения транзакций; ключ записи — bankAccountId
+     * @param deliveryMode режим доставки
+     * @return future с числом подтвержденных записей; завершается после подтверждения всех отправок
+     */
+    public CompletableFuture<Integer> sendBatch(List<TransactionMessage> messages, String deliveryMode) {
+        String topicName = topicFor(deliveryMode);
+        if ("exactly-once".equalsIgnoreCase(deliveryMode)) {
+            return CompletableFuture.supplyAsync(() -> sendInTransactions(messages, topicName), transactionExecutor);
+        }
+
+        KafkaTemplate<String, Object> kafkaTemplate = producerProfiles.templateFor(deliveryMode);
+        List<CompletableFuture<SendResult<String, Object>>> futures = new ArrayList<>(messages.size());
+        for (TransactionMessage message : messages) {
+            futures.add(kafkaTemplate.send(topicName, String.valueOf(message.getBankAccountId()), message));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .handle((ignored, ex) -> (int) futures.stream()
+                        .filter(future -> !future.isCompletedExceptionally())
+                        .count());
     }
 
     /**
-     * Отправляет транзакцию с учетом режима доставки
+     * Асинхронно отправляет одну транзакцию продюсером профиля режима доставки, без логирования результата.
+     * Для exactly-once используйте sendBatch — записи этого режима отправляются только в транзакциях
+     *
+     * @return future подтверждения записи брокером
+     */
+    public CompletableFuture<SendResult<String, Object>> sendAsync(TransactionMessage message, String deliveryMode) {
+        return producerProfiles.templateFor(deliveryMode)
+                .send(topicFor(deliveryMode), String.valueOf(message.getBankAccountId()), message);
+    }
+
+    private int sendInTransactions(List<TransactionMessage> messages, String topicName) {
+        int delivered = 0;
+        for (int from = 0; from < messages.size(); from += transactionSize) {
+            List<TransactionMessage> chunk = messages.subList(from, Math.min(from + transactionSize, messages.size()));
+            try {
+                transactionalKafkaTemplate.executeInTransaction(operations -> {
+                    chunk.forEach(message ->
+                            operations.send(topicName, String.valueOf(message.getBankAccountId()), message));
+                    return null;
+                });
+                delivered += chunk.size();
+            } catch (Exception e) {
+                log.error("Exactly-once: транзакция Kafka отменена: records={}, error: {}",
+                        chunk.size(), e.getMessage(), e);
+            }
+        }
+
+        log.info("Exactly-once: зафиксировано {}/{} записей в транзакциях по {}",
+                delivered, messages.size(), transactionSize);
+        return delivered;
+    }
+
+    private static String topicFor(String deliveryMode) {
+        return switch (deliveryMode.toLowerCase()) {
+            case "at-most-once" -> "transactions-at-most-once";
+            case "exactly-once" -> "transactions-exactly-once";
+            case "batch" -> "transactions-batch";
+            default -> "transactions-at-least-once";
+        };
+    }
+
+    /**
+     * Отправляет транзакцию с учетом режима доставки продюсером профиля,
+     * назначенного режиму в app.kafka.producer.profiles
      */
     public void sendWithDeliveryMode(TransactionMessage message, String accountId, String deliveryMode) {
         String topicName;
@@ -31,7 +143,7 @@ public class TransactionKafkaProducer {
                 break;
             case "at-least-once":
                 topicName = "transactions-at-least-once";
-                sendAtLeastOnce(message, accountId, topicName);
+                sendAtLeastOnce(message, accountId, topicName, "at-least-once");
                 break;
             case "exactly-once":
                 topicName = "transactions-exactly-once";
@@ -39,26 +151,27 @@ public class TransactionKafkaProducer {
                 break;
             case "batch":
                 topicName = "transactions-batch";
-                sendAtLeastOnce(message, accountId, topicName);
+                sendAtLeastOnce(message, accountId, topicName, "batch");
                 break;
             default:
                 topicName = "transactions-at-least-once";
-                sendAtLeastOnce(message, accountId, topicName);
+                sendAtLeastOnce(message, accountId, topicName, "at-least-once");
         }
     }
 
     private void sendAtMostOnce(TransactionMessage transactionMessage, String accountId, String topicName) {
         try {
-            kafkaTemplate.send(topicName, accountId, transactionMessage);
+            producerProfiles.templateFor("at-most-once").send(topicName, accountId, transactionMessage);
         }
         catch (Exception e) {
             log.error("At-most-once: Не удалось отправить транзакцию: accountId={}", accountId, e);
         }
     }
 
-    private void sendAtLeastOnce(TransactionMessage message, String accountId, String topicName) {
+    private void sendAtLeastOnce(TransactionMessage message, String accountId, String topicName, String deliveryMode) {
         String accountKey = String.valueOf(accountId);
-        CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(topicName, accountKey, message);
+        CompletableFuture<SendResult<String, Object>> future = producerProfiles.templateFor(deliveryMode)
+                .send(topicName, accountKey, message);
 
         future.whenComplete((result, ex) -> {
             if (ex == null) {
@@ -74,17 +187,15 @@ public class TransactionKafkaProducer {
     }
 
     /**
-     * Exactly-once: идемпотентная отправка
+     * Exactly-once: отправка одной записи в транзакции идемпотентного продюсера.
+     * Для генерации нагрузки используйте sendBatch — он фиксирует сотни записей одним commit
      */
     private void sendExactlyOnce(TransactionMessage message, String accountId, String topicName) {
         try {
-            SendResult<String, Object> result = kafkaTemplate.send(topicName, accountId, message).get();
-
-            log.info("Exactly-once: Transaction delivered exactly once: accountId={}, partition={}, offset={}",
-                    accountId,
-                    result.getRecordMetadata().partition(),
-                    result.getRecordMetadata().offset());
+            transactionalKafkaTemplate.executeInTransaction(operations ->
+                    operations.send(topicName, accountId, message));
 
+            log.info("Exactly-once: Transaction committed: accountId={}", accountId);
         } catch (Exception e) {
             log.error("Exactly-once: Transaction failed: accountId={}", accountId, e);
         }
@@ -0,0 +1,406 @@
+package gigabank.accountmanagement.kafka.serialization;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import gigabank.accountmanagement.dto.kafka.DeadLetterMessage;
+import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import gigabank.accountmanagement.enums.TransactionType;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Бинарный формат сообщений Kafka.
+ * Заголовок: магический байт, версия схемы, вид сообщения; далее битовая маска заполненных полей и сами поля.
+ * BigDecimal кодируется как scale и unscaled long (длинные значения — байтами BigInteger),
+ * LocalDateTime — как микросекунды от эпохи UTC, строки — длиной varint и UTF-8.
+ * Первый байт JSON никогда не совпадает с MAGIC, поэтому старые JSON записи распознаются по нему.
+ * Примитивы кодирования полей и Writer открыты для бинарного формата значений кэша CacheValueCodec
+ */
+public final class BinaryMessageCodec {
+    public static final byte MAGIC = (byte) 0xB7;
+    public static final byte VERSION = 1;
+
+    static final byte KIND_TRANSACTION = 1;
+    static final byte KIND_DEAD_LETTER = 2;
+
+    private static final byte DECIMAL_LONG = 0;
+    private static final byte DECIMAL_BIG = 1;
+    private static final byte ORIGINAL_TRANSACTION = 1;
+    private static final byte ORIGINAL_JSON = 2;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private BinaryMessageCodec() {
+    }
+
+    public static boolean supports(Object value) {
+        return value instanceof TransactionMessage || value instanceof DeadLetterMessage;
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(Object value) {
+        Writer writer = new Writer(128);
+        writer.writeByte(MAGIC);
+        writer.writeByte(VERSION);
+        if (value instanceof TransactionMessage message) {
+            writer.writeByte(KIND_TRANSACTION);
+            writeTransaction(writer, message);
+        } else if (value instanceof DeadLetterMessage message) {
+            writer.writeByte(KIND_DEAD_LETTER);
+            writeDeadLetter(writer, message);
+        } else {
+            throw new IllegalArgumentException("Тип не поддерживается бинарным форматом: " + value.getClass());
+        }
+        return writer.toByteArray();
+    }
+
+    public static Object decode(byte[] data) {
+        return decode(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Читает сообщение из буфера начиная с его текущей позиции
+     *
+     * @throws IllegalArgumentException если заголовок или версия схемы не распознаны
+     */
+    public static Object decode(ByteBuffer buffer) {
+        try {
+            if (buffer.get() != MAGIC) {
+                throw new IllegalArgumentException("Неизвестный формат сообщения");
+            }
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Неподдерживаемая версия схемы: " + version);
+            }
+
+            byte kind = buffer.get();
+            return switch (kind) {
+                case KIND_TRANSACTION -> readTransaction(buffer);
+                case KIND_DEAD_LETTER -> readDeadLetter(buffer);
+                default -> throw new IllegalArgumentException("Неизвестный вид сообщения: " + kind);
+            };
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Сообщение обрезано", e);
+        }
+    }
+
+    static void writeTransaction(Writer writer, TransactionMessage message) {
+        int mask = presence(message.getId(), message.getValue(), message.getType(), message.getCategory(),
+                message.getCreatedDate(), message.getSourceAccount(), message.getTargetAccount(),
+                message.getBankAccountId());
+        writer.writeByte((byte) mask);
+
+        if (message.getId() != null) {
+            writer.writeLong(message.getId());
+        }
+        if (message.getValue() != null) {
+            writeDecimal(writer, message.getValue());
+        }
+        if (message.getType() != null) {
+            writer.writeByte(typeCode(message.getType()));
+        }
+        if (message.getCategory() != null) {
+            writer.writeString(message.getCategory());
+        }
+        if (message.getCreatedDate() != null) {
+            writer.writeLong(toEpochMicros(message.getCreatedDate()));
+        }
+        if (message.getSourceAccount() != null) {
+            writer.writeString(message.getSourceAccount());
+        }
+        if (message.getTargetAccount() != null) {
+            writer.writeString(message.getTargetAccount());
+        }
+        if (message.getBankAccountId() != null) {
+            writer.writeLong(message.getBankAccountId());
+        }
+    }
+
+    /**
+     * Читает поля TransactionMessage в переданный объект, что позволяет переиспользовать его между записями
+     */
+    static void readTransactionInto(ByteBuffer buffer, TransactionMessage target) {
+        int mask = buffer.get() & 0xFF;
+        target.setId(has(mask, 0) ? buffer.getLong() : null);
+        target.setValue(has(mask, 1) ? readDecimal(buffer) : null);
+        target.setType(has(mask, 2) ? typeOf(buffer.get()) : null);
+        target.setCategory(has(mask, 3) ? readString(buffer) : null);
+        target.setCreatedDate(has(mask, 4) ? fromEpochMicros(buffer.getLong()) : null);
+        target.setSourceAccount(has(mask, 5) ? readString(buffer) : null);
+        target.setTargetAccount(has(mask, 6) ? readString(buffer) : null);
+        target.setBankAccountId(has(mask, 7) ? buffer.getLong() : null);
+    }
+
+    private static TransactionMessage readTransaction(ByteBuffer buffer) {
+        TransactionMessage message = new TransactionMessage();
+        readTransactionInto(buffer, message);
+        return message;
+    }
+
+    private static void writeDeadLetter(Writer writer, DeadLetterMessage message) {
+        int mask = presence(message.getOriginalMessage(), message.getExceptionMessage(), message.getStackTrace(),
+                message.getTimestamp(), message.getTopic(), message.getPartition(), message.getOffset(),
+                message.getConsumerGroup());
+        writer.writeByte((byte) mask);
+
+        Object original = message.getOriginalMessage();
+        if (original instanceof TransactionMessage transaction) {
+            writer.writeByte(ORIGINAL_TRANSACTION);
+            writeTransaction(writer, transaction);
+        } else if (original != null) {
+            writer.writeByte(ORIGINAL_JSON);
+            writer.writeString(toJson(original));
+        }
+        if (message.getExceptionMessage() != null) {
+            writer.writeString(message.getExceptionMessage());
+        }
+        if (message.getStackTrace() != null) {
+            writer.writeString(message.getStackTrace());
+        }
+        if (message.getTimestamp() != null) {
+            writer.writeLong(toEpochMicros(message.getTimestamp()));
+        }
+        if (message.getTopic() != null) {
+            writer.writeString(message.getTopic());
+        }
+        if (message.getPartition() != null) {
+            writer.writeInt(message.getPartition());
+        }
+        if (message.getOffset() != null) {
+            writer.writeLong(message.getOffset());
+        }
+        if (message.getConsumerGroup() != null) {
+            writer.writeString(message.getConsumerGroup());
+        }
+    }
+
+    private static DeadLetterMessage readDeadLetter(ByteBuffer buffer) {
+        int mask = buffer.get() & 0xFF;
+        DeadLetterMessage message = new DeadLetterMessage();
+
+        if (has(mask, 0)) {
+            byte originalKind = buffer.get();
+            message.setOriginalMessage(originalKind == ORIGINAL_TRANSACTION
+                    ? readTransaction(buffer)
+                    : fromJson(readString(buffer)));
+        }
+        if (has(mask, 1)) {
+            message.setExceptionMessage(readString(buffer));
+        }
+        if (has(mask, 2)) {
+            message.setStackTrace(readString(buffer));
+        }
+        if (has(mask, 3)) {
+            message.setTimestamp(fromEpochMicros(buffer.getLong()));
+        }
+        if (has(mask, 4)) {
+            message.setTopic(readString(buffer));
+        }
+        if (has(mask, 5)) {
+            message.setPartition(buffer.getInt());
+        }
+        if (has(mask, 6)) {
+            message.setOffset(buffer.getLong());
+        }
+        if (has(mask, 7)) {
+            message.setConsumerGroup(readString(buffer));
+        }
+        return message;
+    }
+
+    public static int presence(Object... fields) {
+        int mask = 0;
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] != null) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    public static boolean has(int mask, int bit) {
+        return (mask & (1 << bit)) != 0;
+    }
+
+    public static void writeDecimal(Writer writer, BigDecimal value) {
+        writer.writeVarInt(zigZag(value.scale()));
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() < 64) {
+            writer.writeByte(DECIMAL_LONG);
+            writer.writeLong(unscaled.longValue());
+        } else {
+            byte[] bytes = unscaled.toByteArray();
+            writer.writeByte(DECIMAL_BIG);
+            writer.writeVarInt(bytes.length);
+            writer.writeBytes(bytes);
+        }
+    }
+
+    public static BigDecimal readDecimal(ByteBuffer buffer) {
+        int scale = unZigZag(readVarInt(buffer));
+        if (buffer.get() == DECIMAL_LONG) {
+            return BigDecimal.valueOf(buffer.getLong(), scale);
+        }
+        byte[] bytes = new byte[readVarInt(buffer)];
+        buffer.get(bytes);
+        return new BigDecimal(new BigInteger(bytes), scale);
+    }
+
+    public static byte typeCode(TransactionType type) {
+        return switch (type) {
+            case PAYMENT -> 1;
+            case DEPOSIT -> 2;
+            case WITHDRAWAL -> 3;
+        };
+    }
+
+    public static TransactionType typeOf(byte code) {
+        return switch (code) {
+            case 1 -> TransactionType.PAYMENT;
+            case 2 -> TransactionType.DEPOSIT;
+            case 3 -> TransactionType.WITHDRAWAL;
+            default -> throw new IllegalArgumentException("Неизвестный код типа транзакции: " + code);
+        };
+    }
+
+    public static long toEpochMicros(LocalDateTime value) {
+        return Math.addExact(Math.multiplyExact(value.toEpochSecond(ZoneOffset.UTC), 1_000_000L),
+                value.getNano() / 1_000);
+    }
+
+    public static LocalDateTime fromEpochMicros(long micros) {
+        long seconds = Math.floorDiv(micros, 1_000_000L);
+        int nanos = (int) Math.floorMod(micros, 1_000_000L) * 1_000;
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    public static String readString(ByteBuffer buffer) {
+        int length = readVarInt(buffer);
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                    StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(buffer.position(), bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    public static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 28) {
+                throw new IllegalArgumentException("Некорректный varint");
+            }
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static String toJson(Object value) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Не удалось сериализовать исходное сообщение", e);
+        }
+    }
+
+    private static Object fromJson(String json) {
+        try {
+            return OBJECT_MAPPER.readValue(json, Object.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Не удалось разобрать исходное сообщение", e);
+        }
+    }
+
+    /**
+     * Растущий буфер записи без промежуточных потоков
+     */
+    public static final class Writer {
+        private byte[] buffer;
+        private int position;
+
+        public Writer(int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        public void writeByte(byte value) {
+            ensureCapacity(1);
+            buffer[position++] = value;
+        }
+
+        public void writeInt(int value) {
+            ensureCapacity(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        public void writeLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        public void writeVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        public void writeBytes(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        public void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            writeBytes(bytes);
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int additional) {
+            if (position + additional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additional));
+            }
+        }
+    }
+}
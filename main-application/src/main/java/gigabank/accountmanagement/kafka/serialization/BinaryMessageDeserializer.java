@@ -0,0 +1,63 @@
+package gigabank.accountmanagement.kafka.serialization;
+
+import gigabank.accountmanagement.kafka.tracing.TraceHeaders;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * Десериализатор значений Kafka: записи в бинарном формате распознаются по магическому байту,
+ * остальные передаются JsonDeserializer с теми же настройками — так читаются записи,
+ * отправленные до перехода на бинарный формат
+ */
+public class BinaryMessageDeserializer implements Deserializer<Object> {
+    private final JsonDeserializer<Object> jsonDeserializer = new JsonDeserializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    /**
+     * Длительность разбора записывается в заголовок TraceHeaders.DESERIALIZE_NANOS записи
+     */
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (headers == null) {
+            return decode(topic, null, data);
+        }
+
+        long start = System.nanoTime();
+        Object value = decode(topic, headers, data);
+        TraceHeaders.put(headers, TraceHeaders.DESERIALIZE_NANOS, System.nanoTime() - start);
+        return value;
+    }
+
+    private Object decode(String topic, Headers headers, byte[] data) {
+        if (BinaryMessageCodec.isBinary(data)) {
+            try {
+                return BinaryMessageCodec.decode(data);
+            } catch (IllegalArgumentException e) {
+                throw new SerializationException("Ошибка чтения бинарного сообщения из топика " + topic, e);
+            }
+        }
+        return headers != null ? jsonDeserializer.deserialize(topic, headers, data)
+                : jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -0,0 +1,48 @@
+package gigabank.accountmanagement.kafka.serialization;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+
+/**
+ * Сериализатор значений Kafka: TransactionMessage и DeadLetterMessage пишутся в бинарном формате
+ * BinaryMessageCodec, остальные типы — через JsonSerializer.
+ * Свойство gigabank.wire.format=json возвращает JSON для всех сообщений — используется на время
+ * rolling upgrade, пока не все консьюмеры умеют читать бинарный формат
+ */
+public class BinaryMessageSerializer implements Serializer<Object> {
+    public static final String WIRE_FORMAT_CONFIG = "gigabank.wire.format";
+
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+    private boolean binary = true;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object format = configs.get(WIRE_FORMAT_CONFIG);
+        binary = format == null || "binary".equalsIgnoreCase(format.toString());
+        jsonSerializer.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return serialize(topic, null, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (binary && BinaryMessageCodec.supports(data)) {
+            return BinaryMessageCodec.encode(data);
+        }
+        return headers != null ? jsonSerializer.serialize(topic, headers, data) : jsonSerializer.serialize(topic, data);
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+}
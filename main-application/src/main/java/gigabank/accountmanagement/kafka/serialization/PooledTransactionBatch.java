@@ -0,0 +1,89 @@
+package gigabank.accountmanagement.kafka.serialization;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбирает сырые значения записей Kafka в переиспользуемые объекты TransactionMessage.
+ * Держатели сообщений и список результата живут между вызовами, поэтому в установившемся режиме
+ * на запись выделяются только значения полей. Бинарные записи читаются прямо из буфера,
+ * JSON записи старого формата — через Jackson в тот же держатель.
+ * Экземпляр не потокобезопасен; сообщения действительны до следующего вызова decode
+ */
+@Slf4j
+public class PooledTransactionBatch {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final ObjectReader jsonReader = OBJECT_MAPPER.readerFor(TransactionMessage.class);
+    private final List<TransactionMessage> holders = new ArrayList<>();
+    private final List<TransactionMessage> messages = new ArrayList<>();
+
+    /**
+     * @param records записи с сырыми значениями
+     * @return разобранные сообщения; записи, которые не удалось разобрать, пропускаются
+     */
+    public List<TransactionMessage> decode(List<? extends ConsumerRecord<?, byte[]>> records) {
+        messages.clear();
+
+        for (ConsumerRecord<?, byte[]> record : records) {
+            byte[] value = record.value();
+            if (value == null) {
+                continue;
+            }
+
+            TransactionMessage holder = holder(messages.size());
+            try {
+                decodeInto(value, holder);
+                messages.add(holder);
+            } catch (Exception e) {
+                log.warn("Не удалось разобрать запись: topic={}, partition={}, offset={}, error: {}",
+                        record.topic(), record.partition(), record.offset(), e.getMessage());
+            }
+        }
+        return messages;
+    }
+
+    private void decodeInto(byte[] value, TransactionMessage holder) throws IOException {
+        if (BinaryMessageCodec.isBinary(value)) {
+            ByteBuffer buffer = ByteBuffer.wrap(value);
+            buffer.position(2);
+            if (value[1] != BinaryMessageCodec.VERSION || buffer.get() != BinaryMessageCodec.KIND_TRANSACTION) {
+                throw new IllegalArgumentException("Неподдерживаемая версия или вид сообщения");
+            }
+            BinaryMessageCodec.readTransactionInto(buffer, holder);
+        } else {
+            clear(holder);
+            jsonReader.withValueToUpdate(holder).readValue(value);
+        }
+    }
+
+    private TransactionMessage holder(int index) {
+        if (index == holders.size()) {
+            holders.add(new TransactionMessage());
+        }
+        return holders.get(index);
+    }
+
+    private static void clear(TransactionMessage holder) {
+        holder.setId(null);
+        holder.setValue(null);
+        holder.setType(null);
+        holder.setCategory(null);
+        holder.setCreatedDate(null);
+        holder.setSourceAccount(null);
+        holder.setTargetAccount(null);
+        holder.setBankAccountId(null);
+    }
+}
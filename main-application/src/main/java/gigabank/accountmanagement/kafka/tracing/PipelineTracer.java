@@ -0,0 +1,128 @@
+package gigabank.accountmanagement.kafka.tracing;
+
+import gigabank.accountmanagement.enums.LatencyStage;
+import gigabank.accountmanagement.service.MetricsService;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измеряет этапы пути транзакции в слушателях Kafka и записывает их в MetricsService по режиму доставки.
+ * Этапы до слушателя восстанавливаются по заголовкам TraceHeaders; записи без заголовков
+ * (отправленные до включения трассировки) учитываются только в этапах внутри слушателя.
+ * При AckMode.MANUAL смещение фиксируется контейнером после возврата из слушателя,
+ * поэтому в таких режимах COMMIT и END_TO_END заканчиваются на acknowledge()
+ */
+@Component
+@RequiredArgsConstructor
+public class PipelineTracer {
+    private final MetricsService metricsService;
+
+    /**
+     * Записывает этапы QUEUE, DESERIALIZE и DISPATCH при входе записи в слушатель
+     *
+     * @return отметка System.nanoTime() начала обработки
+     */
+    public long received(ConsumerRecord<?, ?> record, String deliveryMode) {
+        recordArrival(record.headers(), deliveryMode, TraceHeaders.nowMicros());
+        return System.nanoTime();
+    }
+
+    /**
+     * Пакетный вариант received для батч слушателей
+     */
+    public long received(List<? extends ConsumerRecord<?, ?>> records, String deliveryMode) {
+        long nowMicros = TraceHeaders.nowMicros();
+        for (ConsumerRecord<?, ?> record : records) {
+            recordArrival(record.headers(), deliveryMode, nowMicros);
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Записывает длительность десериализации, выполненной самим слушателем, в расчете на запись
+     */
+    public void deserialized(String deliveryMode, long startNanos, int records) {
+        if (records > 0) {
+            long perRecord = (System.nanoTime() - startNanos) / records;
+            for (int i = 0; i < records; i++) {
+                metricsService.recordStage(deliveryMode, LatencyStage.DESERIALIZE, perRecord);
+            }
+        }
+    }
+
+    /**
+     * Записывает этап DB
+     *
+     * @param startNanos отметка начала обработки
+     * @param records число транзакций, обработанных за это время
+     * @return отметка System.nanoTime() окончания обработки
+     */
+    public long processed(String deliveryMode, long startNanos, int records) {
+        long now = System.nanoTime();
+        for (int i = 0; i < records; i++) {
+            metricsService.recordStage(deliveryMode, LatencyStage.DB, now - startNanos);
+        }
+        return now;
+    }
+
+    /**
+     * Записывает этапы COMMIT и END_TO_END после подтверждения смещения
+     *
+     * @param ackStartNanos отметка перед вызовом acknowledge()
+     */
+    public void committed(ConsumerRecord<?, ?> record, String deliveryMode, long ackStartNanos) {
+        metricsService.recordStage(deliveryMode, LatencyStage.COMMIT, System.nanoTime() - ackStartNanos);
+        recordEndToEnd(record.headers(), deliveryMode, TraceHeaders.nowMicros());
+    }
+
+    /**
+     * Пакетный вариант committed: одно подтверждение на весь батч
+     */
+    public void committed(List<? extends ConsumerRecord<?, ?>> records, String deliveryMode, long ackStartNanos) {
+        long commitNanos = System.nanoTime() - ackStartNanos;
+        long nowMicros = TraceHeaders.nowMicros();
+        for (ConsumerRecord<?, ?> record : records) {
+            metricsService.recordStage(deliveryMode, LatencyStage.COMMIT, commitNanos);
+            recordEndToEnd(record.headers(), deliveryMode, nowMicros);
+        }
+    }
+
+    /**
+     * Завершение обработки без подтверждения смещения (автокоммит at-most-once): только END_TO_END
+     */
+    public void completed(ConsumerRecord<?, ?> record, String deliveryMode) {
+        recordEndToEnd(record.headers(), deliveryMode, TraceHeaders.nowMicros());
+    }
+
+    private void recordArrival(Headers headers, String deliveryMode, long nowMicros) {
+        long producedAt = TraceHeaders.get(headers, TraceHeaders.PRODUCED_AT);
+        long polledAt = TraceHeaders.get(headers, TraceHeaders.POLLED_AT);
+        long deserializeNanos = TraceHeaders.get(headers, TraceHeaders.DESERIALIZE_NANOS);
+
+        if (producedAt > 0 && polledAt > 0) {
+            metricsService.recordStage(deliveryMode, LatencyStage.QUEUE, toNanos(polledAt - producedAt));
+        }
+        if (deserializeNanos >= 0) {
+            metricsService.recordStage(deliveryMode, LatencyStage.DESERIALIZE, deserializeNanos);
+        }
+        if (polledAt > 0) {
+            metricsService.recordStage(deliveryMode, LatencyStage.DISPATCH, toNanos(nowMicros - polledAt));
+        }
+    }
+
+    private void recordEndToEnd(Headers headers, String deliveryMode, long nowMicros) {
+        long producedAt = TraceHeaders.get(headers, TraceHeaders.PRODUCED_AT);
+        if (producedAt > 0) {
+            metricsService.recordStage(deliveryMode, LatencyStage.END_TO_END, toNanos(nowMicros - producedAt));
+        }
+    }
+
+    private static long toNanos(long micros) {
+        return TimeUnit.MICROSECONDS.toNanos(micros);
+    }
+}
@@ -0,0 +1,37 @@
+package gigabank.accountmanagement.kafka.tracing;
+
+import org.apache.kafka.clients.consumer.ConsumerInterceptor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Map;
+
+/**
+ * Отмечает в заголовке записи время ее возврата из poll.
+ * Подключается свойством консьюмера interceptor.classes
+ */
+public class PolledAtInterceptor implements ConsumerInterceptor<Object, Object> {
+
+    @Override
+    public ConsumerRecords<Object, Object> onConsume(ConsumerRecords<Object, Object> records) {
+        long polledAt = TraceHeaders.nowMicros();
+        for (ConsumerRecord<Object, Object> record : records) {
+            TraceHeaders.put(record.headers(), TraceHeaders.POLLED_AT, polledAt);
+        }
+        return records;
+    }
+
+    @Override
+    public void onCommit(Map<TopicPartition, OffsetAndMetadata> offsets) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+    }
+}
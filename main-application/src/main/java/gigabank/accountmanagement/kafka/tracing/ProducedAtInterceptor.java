@@ -0,0 +1,32 @@
+package gigabank.accountmanagement.kafka.tracing;
+
+import org.apache.kafka.clients.producer.ProducerInterceptor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+import java.util.Map;
+
+/**
+ * Добавляет к каждой отправляемой записи заголовок с временем отправки.
+ * Подключается свойством продюсера interceptor.classes
+ */
+public class ProducedAtInterceptor implements ProducerInterceptor<Object, Object> {
+
+    @Override
+    public ProducerRecord<Object, Object> onSend(ProducerRecord<Object, Object> record) {
+        TraceHeaders.put(record.headers(), TraceHeaders.PRODUCED_AT, TraceHeaders.nowMicros());
+        return record;
+    }
+
+    @Override
+    public void onAcknowledgement(RecordMetadata metadata, Exception exception) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+    }
+}
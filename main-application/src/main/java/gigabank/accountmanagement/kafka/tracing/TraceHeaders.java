@@ -0,0 +1,54 @@
+package gigabank.accountmanagement.kafka.tracing;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+/**
+ * Заголовки записей Kafka с отметками времени для измерения задержек по этапам.
+ * Значения — 8 байт big-endian; отметки времени в микросекундах от эпохи, поэтому задержка
+ * между хостами включает расхождение их часов
+ */
+public final class TraceHeaders {
+    /**
+     * Время отправки продюсером, мкс от эпохи
+     */
+    public static final String PRODUCED_AT = "gigabank-produced-at-us";
+    /**
+     * Время возврата записи из poll, мкс от эпохи
+     */
+    public static final String POLLED_AT = "gigabank-polled-at-us";
+    /**
+     * Длительность десериализации значения, нс
+     */
+    public static final String DESERIALIZE_NANOS = "gigabank-deserialize-ns";
+
+    private TraceHeaders() {
+    }
+
+    public static long nowMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000 + now.getNano() / 1_000;
+    }
+
+    /**
+     * Заменяет значение заголовка
+     */
+    public static void put(Headers headers, String name, long value) {
+        headers.remove(name);
+        headers.add(name, ByteBuffer.allocate(Long.BYTES).putLong(value).array());
+    }
+
+    /**
+     * @return значение заголовка или -1, если заголовка нет или он другого формата
+     */
+    public static long get(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        if (header == null || header.value() == null || header.value().length != Long.BYTES) {
+            return -1;
+        }
+        return ByteBuffer.wrap(header.value()).getLong();
+    }
+}
@@ -14,6 +14,22 @@ public interface TransactionMapper {
     @Mapping(source = "bankAccountEntity.owner.name", target = "accountOwnerName")
     TransactionResponse toResponse(TransactionEntity transaction);
 
+    /**
+     * Запись истории счета без полей счета — не загружает связанные счет и владельца
+     */
+    @Mapping(target = "accountId", ignore = true)
+    @Mapping(target = "accountOwnerName", ignore = true)
+    TransactionResponse toHistoryEntry(TransactionEntity transaction);
+
+    /**
+     * Запись истории из сообщения, вставленного пакетом; id сообщения — не id строки,
+     * его заменяет выделенный при вставке идентификатор
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "accountId", ignore = true)
+    @Mapping(target = "accountOwnerName", ignore = true)
+    TransactionResponse toHistoryEntry(TransactionMessage message);
+
     @Mapping(source = "bankAccountEntity.id", target = "bankAccountId")
     TransactionMessage toMessage(TransactionEntity transaction);
 
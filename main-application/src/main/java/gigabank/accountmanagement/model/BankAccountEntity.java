@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -35,6 +36,14 @@ public class BankAccountEntity {
     @Column(name = "is_blocked", nullable = false)
     private boolean blocked;
 
+    /**
+     * Версия строки: увеличивается при каждом изменении счета, в том числе пакетными UPDATE баланса
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
     @OneToMany(mappedBy = "bankAccountEntity", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<TransactionEntity> transactionEntities = new ArrayList<>();
 }
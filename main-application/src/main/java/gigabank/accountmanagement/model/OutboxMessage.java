@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
@@ -27,6 +28,23 @@ public class OutboxMessage {
 
     private boolean processed = false;
 
+    /**
+     * Число неудачных попыток подготовить сообщение к отправке
+     */
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int attempts;
+
+    /**
+     * Сообщение исчерпало попытки и больше не захватывается relay; остается в таблице для разбора
+     */
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean failed;
+
+    @Column(length = 1000)
+    private String lastError;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 }
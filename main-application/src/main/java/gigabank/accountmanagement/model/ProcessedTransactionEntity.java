@@ -0,0 +1,27 @@
+package gigabank.accountmanagement.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Отметка об обработанной exactly-once транзакции.
+ * Переживает рестарты и ребалансировки консьюмеров
+ */
+@Entity
+@Table(name = "processed_transaction",
+        indexes = @Index(name = "idx_processed_transaction_processed_at", columnList = "processed_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProcessedTransactionEntity {
+    @Id
+    @Column(name = "transaction_id")
+    private Long transactionId;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+}
@@ -11,10 +11,17 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
- * Информация о совершенной банковской транзакции
+ * Информация о совершенной банковской транзакции.
+ * Индексы покрывают постраничное чтение по ключу (date, id) с фильтром по счету и без него
+ * и историю счета по id
  */
 @Entity
-@Table(name = "app_transaction")
+@Table(name = "app_transaction",
+        indexes = {
+                @Index(name = "idx_transaction_account_date_id", columnList = "bank_account_id, date, id"),
+                @Index(name = "idx_transaction_date_id", columnList = "date, id"),
+                @Index(name = "idx_transaction_account_id", columnList = "bank_account_id, id")
+        })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
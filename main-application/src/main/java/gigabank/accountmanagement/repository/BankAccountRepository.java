@@ -1,11 +1,19 @@
 package gigabank.accountmanagement.repository;
 
 import gigabank.accountmanagement.model.BankAccountEntity;
+import gigabank.accountmanagement.service.cache.AccountState;
+import jakarta.persistence.LockModeType;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +23,37 @@ public interface BankAccountRepository extends JpaRepository<BankAccountEntity,
     @NotNull
     Page<BankAccountEntity> findAll(@NotNull Pageable pageable);
     List<BankAccountEntity> findAllByOwnerId(Long ownerId);
+
+    @Query("SELECT b.id FROM BankAccountEntity b ORDER BY b.id")
+    List<Long> findAllIds();
+
+    /**
+     * Загружает счета с блокировкой строк: SELECT ... FOR UPDATE в порядке id,
+     * чтобы параллельные батчи захватывали блокировки в одном порядке
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM BankAccountEntity b WHERE b.id IN :accountIds ORDER BY b.id")
+    List<BankAccountEntity> findAllByIdForUpdate(@Param("accountIds") Collection<Long> accountIds);
+
+    @Modifying
+    @Query("UPDATE BankAccountEntity b SET b.balance = b.balance + :delta, b.version = b.version + 1 " +
+            "WHERE b.id = :accountId")
+    int applyBalanceDelta(@Param("accountId") Long accountId, @Param("delta") BigDecimal delta);
+
+    @Modifying
+    @Query("UPDATE BankAccountEntity b SET b.balance = b.balance + :delta, b.version = b.version + 1 " +
+            "WHERE b.id = :accountId AND b.version = :version")
+    int applyBalanceDeltaAtVersion(@Param("accountId") Long accountId, @Param("delta") BigDecimal delta,
+                                   @Param("version") long version);
+
+    @Query("SELECT u.name FROM BankAccountEntity b JOIN b.owner u WHERE b.id = :accountId")
+    Optional<String> findOwnerNameById(@Param("accountId") Long accountId);
+
+    @Query("SELECT new gigabank.accountmanagement.service.cache.AccountState(b.id, b.balance, b.blocked, b.version) " +
+            "FROM BankAccountEntity b WHERE b.id = :accountId")
+    Optional<AccountState> findStateById(@Param("accountId") Long accountId);
+
+    @Query("SELECT new gigabank.accountmanagement.service.cache.AccountState(b.id, b.balance, b.blocked, b.version) " +
+            "FROM BankAccountEntity b WHERE b.id IN :accountIds")
+    List<AccountState> findStatesByIdIn(@Param("accountIds") Collection<Long> accountIds);
 }
@@ -0,0 +1,31 @@
+package gigabank.accountmanagement.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Определяет СУБД, к которой подключено приложение.
+ * Используется для включения возможностей, специфичных для PostgreSQL
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DatabasePlatform {
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    public boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            String productName = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            result = "PostgreSQL".equalsIgnoreCase(productName);
+            postgres = result;
+            log.info("Подключенная СУБД: {}", productName);
+        }
+        return result;
+    }
+}
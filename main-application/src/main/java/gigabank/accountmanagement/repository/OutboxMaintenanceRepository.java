@@ -0,0 +1,50 @@
+package gigabank.accountmanagement.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Обслуживание таблицы outbox_messages: частичный индекс по необработанным строкам
+ * и удаление обработанных сообщений порциями
+ */
+@Repository
+@RequiredArgsConstructor
+public class OutboxMaintenanceRepository {
+    private static final String PENDING_INDEX_SQL = "CREATE INDEX IF NOT EXISTS idx_outbox_messages_pending " +
+            "ON outbox_messages (id) WHERE processed = false";
+
+    private static final String DELETE_PROCESSED_SQL = "DELETE FROM outbox_messages WHERE id IN (" +
+            "SELECT id FROM outbox_messages WHERE processed = true AND created_at < ? ORDER BY id LIMIT ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+
+    /**
+     * Создает частичный индекс, по которому relay выбирает необработанные сообщения.
+     * Размер индекса пропорционален числу ожидающих сообщений, а не всей истории
+     *
+     * @return true если индекс создан или уже существует, false если СУБД не поддерживает частичные индексы
+     */
+    public boolean ensurePendingIndex() {
+        if (!databasePlatform.isPostgres()) {
+            return false;
+        }
+        jdbcTemplate.execute(PENDING_INDEX_SQL);
+        return true;
+    }
+
+    /**
+     * Удаляет одну порцию обработанных сообщений, созданных раньше указанного момента
+     *
+     * @param threshold граница по времени создания
+     * @param limit максимальный размер порции
+     * @return число удаленных строк
+     */
+    public int deleteProcessedBefore(LocalDateTime threshold, int limit) {
+        return jdbcTemplate.update(DELETE_PROCESSED_SQL, Timestamp.valueOf(threshold), limit);
+    }
+}
@@ -1,10 +1,32 @@
 package gigabank.accountmanagement.repository;
 
 import gigabank.accountmanagement.model.OutboxMessage;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
     List<OutboxMessage> findByProcessedFalseOrderByCreatedAtAsc();
+
+    /**
+     * Захватывает порцию необработанных сообщений: SELECT ... FOR UPDATE SKIP LOCKED.
+     * Строки, уже захваченные другим экземпляром, и сообщения, исчерпавшие попытки, пропускаются
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM OutboxMessage o WHERE o.processed = false AND o.failed = false ORDER BY o.id")
+    List<OutboxMessage> claimUnprocessed(Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OutboxMessage o SET o.processed = true WHERE o.id IN :ids")
+    int markProcessed(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,33 @@
+package gigabank.accountmanagement.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Сигнализирует relay о новых сообщениях outbox через PostgreSQL NOTIFY.
+ * Уведомление ставится в текущей транзакции и доставляется слушателям только после ее фиксации;
+ * одинаковые уведомления одной транзакции PostgreSQL объединяет
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxNotifier {
+    public static final String CHANNEL = "outbox_events";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+
+    @Value("${app.outbox.notify.enabled:true}")
+    private boolean enabled;
+
+    public boolean isEnabled() {
+        return enabled && databasePlatform.isPostgres();
+    }
+
+    public void notifyPending() {
+        if (isEnabled()) {
+            jdbcTemplate.queryForObject("SELECT pg_notify(?, '')", Object.class, CHANNEL);
+        }
+    }
+}
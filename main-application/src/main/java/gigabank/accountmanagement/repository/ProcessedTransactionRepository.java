@@ -0,0 +1,17 @@
+package gigabank.accountmanagement.repository;
+
+import gigabank.accountmanagement.model.ProcessedTransactionEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface ProcessedTransactionRepository extends JpaRepository<ProcessedTransactionEntity, Long> {
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ProcessedTransactionEntity p WHERE p.processedAt < :threshold")
+    int deleteProcessedBefore(@Param("threshold") LocalDateTime threshold);
+}
@@ -0,0 +1,117 @@
+package gigabank.accountmanagement.repository;
+
+import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пакетная запись транзакций через JDBC в обход Hibernate.
+ * Стратегия IDENTITY у TransactionEntity отключает пакетную вставку Hibernate,
+ * поэтому для пакетного консьюмера идентификаторы выделяются блоком из последовательности,
+ * а строки вставляются одним JDBC batch
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionBatchRepository {
+    private static final String INSERT_WITH_ID_SQL = "INSERT INTO app_transaction " +
+            "(id, amount, type, category, date, source, target, bank_account_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_SQL = "INSERT INTO app_transaction " +
+            "(amount, type, category, date, source, target, bank_account_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String ALLOCATE_IDS_SQL = "SELECT nextval(pg_get_serial_sequence('app_transaction', 'id')) " +
+            "FROM generate_series(1, ?)";
+
+    private static final String APPLY_DELTA_SQL = "UPDATE bank_account SET balance = balance + ?, version = version + 1 " +
+            "WHERE id = ? AND balance + ? >= 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+
+    /**
+     * Вставляет транзакции одним JDBC batch.
+     * В PostgreSQL идентификаторы предварительно выделяются одним запросом к последовательности
+     *
+     * @param transactions транзакции в порядке вставки
+     * @return идентификаторы вставленных строк или null, если СУБД не поддерживает выделение блока
+     */
+    public long[] insertTransactions(List<TransactionMessage> transactions) {
+        if (transactions.isEmpty()) {
+            return new long[0];
+        }
+
+        long[] ids = databasePlatform.isPostgres() ? allocateIds(transactions.size()) : null;
+        String sql = ids != null ? INSERT_WITH_ID_SQL : INSERT_SQL;
+
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                TransactionMessage transaction = transactions.get(i);
+                int index = 1;
+                if (ids != null) {
+                    ps.setLong(index++, ids[i]);
+                }
+                ps.setBigDecimal(index++, transaction.getValue());
+                ps.setString(index++, transaction.getType().name());
+                ps.setString(index++, transaction.getCategory());
+                ps.setTimestamp(index++, Timestamp.valueOf(transaction.getCreatedDate()));
+                ps.setString(index++, transaction.getSourceAccount());
+                ps.setString(index++, transaction.getTargetAccount());
+                ps.setLong(index, transaction.getBankAccountId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return transactions.size();
+            }
+        });
+        return ids;
+    }
+
+    /**
+     * Применяет суммарные изменения балансов: один UPDATE на счет в одном JDBC batch.
+     * Счета обновляются в порядке итерации карты — вызывающий код передает отсортированную карту,
+     * чтобы параллельные батчи захватывали блокировки строк в одном порядке.
+     * UPDATE не уводит баланс в минус: счет, для которого условие не выполнено, не обновляется
+     *
+     * @param balanceDeltas изменение баланса по идентификатору счета
+     * @throws IllegalStateException если изменение не применено хотя бы к одному счету;
+     *                               вызывающая транзакция должна откатиться целиком
+     */
+    public void applyBalanceDeltas(Map<Long, BigDecimal> balanceDeltas) {
+        if (balanceDeltas.isEmpty()) {
+            return;
+        }
+
+        List<Long> accountIds = new ArrayList<>(balanceDeltas.keySet());
+        List<Object[]> rows = new ArrayList<>(balanceDeltas.size());
+        balanceDeltas.forEach((accountId, delta) -> rows.add(new Object[]{delta, accountId, delta}));
+        int[] updated = jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, rows,
+                new int[]{Types.NUMERIC, Types.BIGINT, Types.NUMERIC});
+
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                throw new IllegalStateException("Изменение баланса не применено: счет не найден " +
+                        "или недостаточно средств, accountId=" + accountIds.get(i));
+            }
+        }
+    }
+
+    private long[] allocateIds(int count) {
+        List<Long> ids = jdbcTemplate.queryForList(ALLOCATE_IDS_SQL, Long.class, count);
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+}
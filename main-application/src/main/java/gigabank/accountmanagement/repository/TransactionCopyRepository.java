@@ -0,0 +1,189 @@
+package gigabank.accountmanagement.repository;
+
+import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Потоковая запись транзакций в PostgreSQL через COPY FROM STDIN в бинарном формате.
+ * Используется режимом ingest-mode=copy пакетного консьюмера для догрузок и повторных прогонов
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionCopyRepository {
+    private static final String COPY_SQL = "COPY app_transaction " +
+            "(amount, type, category, date, source, target, bank_account_id) FROM STDIN (FORMAT binary)";
+
+    private static final String APPLY_DELTAS_SQL = "UPDATE bank_account b SET balance = b.balance + d.delta, version = b.version + 1 " +
+            "FROM unnest(?, ?) AS d(id, delta) WHERE b.id = d.id AND b.balance + d.delta >= 0 RETURNING b.id";
+
+    private static final byte[] COPY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final LocalDateTime POSTGRES_EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final short FIELD_COUNT = 7;
+    private static final int NUMERIC_POSITIVE = 0x0000;
+    private static final int NUMERIC_NEGATIVE = 0x4000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+
+    /**
+     * Передает транзакции в app_transaction одной командой COPY в текущей транзакции Spring
+     *
+     * @param transactions транзакции для вставки
+     * @throws IllegalStateException если подключенная СУБД не PostgreSQL
+     */
+    public void copyTransactions(List<TransactionMessage> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        if (!databasePlatform.isPostgres()) {
+            throw new IllegalStateException("COPY ingest поддерживается только для PostgreSQL");
+        }
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new PGCopyOutputStream(pgConnection, COPY_SQL), 64 * 1024))) {
+                out.write(COPY_SIGNATURE);
+                out.writeInt(0);
+                out.writeInt(0);
+
+                for (TransactionMessage transaction : transactions) {
+                    writeRow(out, transaction);
+                }
+
+                out.writeShort(-1);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Ошибка записи COPY потока", e);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Применяет суммарные изменения балансов одним set-based UPDATE.
+     * UPDATE не уводит баланс в минус и возвращает id обновленных счетов, которые сверяются с переданными
+     *
+     * @param balanceDeltas изменение баланса по идентификатору счета
+     * @throws IllegalStateException если изменение не применено хотя бы к одному счету;
+     *                               вызывающая транзакция должна откатиться целиком
+     */
+    public void applyBalanceDeltas(Map<Long, BigDecimal> balanceDeltas) {
+        if (balanceDeltas.isEmpty()) {
+            return;
+        }
+
+        List<Long> accountIds = new ArrayList<>(balanceDeltas.keySet());
+        List<BigDecimal> deltas = new ArrayList<>(balanceDeltas.values());
+
+        List<Long> updatedIds = jdbcTemplate.query(APPLY_DELTAS_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            Array idArray = connection.createArrayOf("bigint", accountIds.toArray());
+            Array deltaArray = connection.createArrayOf("numeric", deltas.toArray());
+            ps.setArray(1, idArray);
+            ps.setArray(2, deltaArray);
+        }, (rs, rowNum) -> rs.getLong(1));
+
+        if (updatedIds.size() != accountIds.size()) {
+            Set<Long> notUpdated = new TreeSet<>(accountIds);
+            updatedIds.forEach(notUpdated::remove);
+            throw new IllegalStateException("Изменение баланса не применено: счета не найдены " +
+                    "или недостаточно средств, accountIds=" + notUpdated);
+        }
+    }
+
+    private void writeRow(DataOutputStream out, TransactionMessage transaction) throws IOException {
+        out.writeShort(FIELD_COUNT);
+        writeNumeric(out, transaction.getValue());
+        writeText(out, transaction.getType().name());
+        writeText(out, transaction.getCategory());
+        writeTimestamp(out, transaction.getCreatedDate());
+        writeText(out, transaction.getSourceAccount());
+        writeText(out, transaction.getTargetAccount());
+        out.writeInt(8);
+        out.writeLong(transaction.getBankAccountId());
+    }
+
+    private void writeText(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeTimestamp(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeInt(8);
+        out.writeLong(ChronoUnit.MICROS.between(POSTGRES_EPOCH, value));
+    }
+
+    /**
+     * Кодирует BigDecimal в бинарный формат numeric PostgreSQL:
+     * ndigits, weight, sign, dscale и цифры по основанию 10000
+     */
+    private void writeNumeric(DataOutputStream out, BigDecimal value) throws IOException {
+        int dscale = Math.max(value.scale(), 0);
+        String plain = value.abs().setScale(dscale, RoundingMode.UNNECESSARY).toPlainString();
+
+        int pointIndex = plain.indexOf('.');
+        String integerPart = pointIndex >= 0 ? plain.substring(0, pointIndex) : plain;
+        String fractionPart = pointIndex >= 0 ? plain.substring(pointIndex + 1) : "";
+
+        int integerPad = (4 - integerPart.length() % 4) % 4;
+        integerPart = "0".repeat(integerPad) + integerPart;
+        int fractionPad = (4 - fractionPart.length() % 4) % 4;
+        fractionPart = fractionPart + "0".repeat(fractionPad);
+
+        List<Short> digits = new ArrayList<>();
+        for (int i = 0; i < integerPart.length(); i += 4) {
+            digits.add(Short.parseShort(integerPart.substring(i, i + 4)));
+        }
+        for (int i = 0; i < fractionPart.length(); i += 4) {
+            digits.add(Short.parseShort(fractionPart.substring(i, i + 4)));
+        }
+
+        int weight = integerPart.length() / 4 - 1;
+        while (!digits.isEmpty() && digits.get(0) == 0) {
+            digits.remove(0);
+            weight--;
+        }
+        while (!digits.isEmpty() && digits.get(digits.size() - 1) == 0) {
+            digits.remove(digits.size() - 1);
+        }
+        if (digits.isEmpty()) {
+            weight = 0;
+        }
+
+        out.writeInt(8 + digits.size() * 2);
+        out.writeShort(digits.size());
+        out.writeShort(weight);
+        out.writeShort(value.signum() < 0 ? NUMERIC_NEGATIVE : NUMERIC_POSITIVE);
+        out.writeShort(dscale);
+        for (short digit : digits) {
+            out.writeShort(digit);
+        }
+    }
+}
@@ -18,6 +18,24 @@ public interface TransactionRepository extends JpaRepository<TransactionEntity,
     @Query("SELECT t FROM TransactionEntity t WHERE t.bankAccountEntity.id = :accountId")
     List<TransactionEntity> findByAccountId(@Param("accountId") Long accountId);
 
+    @Query("SELECT t FROM TransactionEntity t WHERE t.bankAccountEntity.id = :accountId ORDER BY t.id")
+    List<TransactionEntity> findByAccountIdOrderById(@Param("accountId") Long accountId);
+
+    /**
+     * Последние транзакции счета от новых к старым
+     */
+    @Query("SELECT t FROM TransactionEntity t WHERE t.bankAccountEntity.id = :accountId ORDER BY t.id DESC")
+    List<TransactionEntity> findHistoryPage(@Param("accountId") Long accountId, Pageable pageable);
+
+    /**
+     * Транзакции счета с id меньше beforeId от новых к старым — следующая страница после beforeId
+     */
+    @Query("SELECT t FROM TransactionEntity t WHERE t.bankAccountEntity.id = :accountId AND t.id < :beforeId " +
+            "ORDER BY t.id DESC")
+    List<TransactionEntity> findHistoryPageBefore(@Param("accountId") Long accountId,
+                                                  @Param("beforeId") Long beforeId,
+                                                  Pageable pageable);
+
     @Query("SELECT t FROM TransactionEntity t JOIN t.bankAccountEntity b JOIN b.owner u WHERE u.id = :userId")
     List<TransactionEntity> findByUserId(@Param("userId") Long userId);
 
@@ -50,4 +68,52 @@ public interface TransactionRepository extends JpaRepository<TransactionEntity,
                                                  @Param("category") String category,
                                                  @Param("startDateStr") String startDateStr,
                                                  Pageable pageable);
+
+    /**
+     * Первая страница отфильтрованных транзакций по ключу (date, id) от новых к старым, без подсчета
+     */
+    @Query(value = "SELECT * FROM app_transaction t WHERE " +
+            "(:accountIdStr IS NULL OR t.bank_account_id = CAST(:accountIdStr AS BIGINT)) AND " +
+            "(:typeStr IS NULL OR t.type = CAST(:typeStr AS TEXT)) AND " +
+            "(:category IS NULL OR t.category = CAST(:category AS TEXT)) AND " +
+            "(:startDateStr IS NULL OR t.date >= CAST(:startDateStr AS TIMESTAMP)) " +
+            "ORDER BY t.date DESC, t.id DESC",
+            nativeQuery = true)
+    List<TransactionEntity> findWithFiltersSeek(@Param("accountIdStr") String accountIdStr,
+                                                @Param("typeStr") String typeStr,
+                                                @Param("category") String category,
+                                                @Param("startDateStr") String startDateStr,
+                                                Pageable pageable);
+
+    /**
+     * Страница отфильтрованных транзакций строго после ключа (cursorDate, cursorId) в порядке
+     * date DESC, id DESC. Сравнение строк (date, id) < (...) выполняется как диапазон индекса,
+     * поэтому стоимость страницы не зависит от ее номера
+     */
+    @Query(value = "SELECT * FROM app_transaction t WHERE " +
+            "(:accountIdStr IS NULL OR t.bank_account_id = CAST(:accountIdStr AS BIGINT)) AND " +
+            "(:typeStr IS NULL OR t.type = CAST(:typeStr AS TEXT)) AND " +
+            "(:category IS NULL OR t.category = CAST(:category AS TEXT)) AND " +
+            "(:startDateStr IS NULL OR t.date >= CAST(:startDateStr AS TIMESTAMP)) AND " +
+            "(t.date, t.id) < (:cursorDate, :cursorId) " +
+            "ORDER BY t.date DESC, t.id DESC",
+            nativeQuery = true)
+    List<TransactionEntity> findWithFiltersSeekAfter(@Param("accountIdStr") String accountIdStr,
+                                                     @Param("typeStr") String typeStr,
+                                                     @Param("category") String category,
+                                                     @Param("startDateStr") String startDateStr,
+                                                     @Param("cursorDate") LocalDateTime cursorDate,
+                                                     @Param("cursorId") Long cursorId,
+                                                     Pageable pageable);
+
+    @Query(value = "SELECT count(*) FROM app_transaction t WHERE " +
+            "(:accountIdStr IS NULL OR t.bank_account_id = CAST(:accountIdStr AS BIGINT)) AND " +
+            "(:typeStr IS NULL OR t.type = CAST(:typeStr AS TEXT)) AND " +
+            "(:category IS NULL OR t.category = CAST(:category AS TEXT)) AND " +
+            "(:startDateStr IS NULL OR t.date >= CAST(:startDateStr AS TIMESTAMP))",
+            nativeQuery = true)
+    long countWithFiltersNative(@Param("accountIdStr") String accountIdStr,
+                                @Param("typeStr") String typeStr,
+                                @Param("category") String category,
+                                @Param("startDateStr") String startDateStr);
 }
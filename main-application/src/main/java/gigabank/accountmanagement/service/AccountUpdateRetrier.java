@@ -0,0 +1,62 @@
+package gigabank.accountmanagement.service;
+
+import gigabank.accountmanagement.exception.AccountUpdateConflictException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Выполняет чтение, изменение и запись счета в отдельной транзакции и повторяет их, если версия строки
+ * bank_account изменилась между чтением и фиксацией — например, пакетным UPDATE баланса
+ * из Kafka или ledger. Каждая попытка заново читает счет, поэтому применяется к актуальному балансу
+ */
+@Slf4j
+@Component
+public class AccountUpdateRetrier {
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMs;
+
+    public AccountUpdateRetrier(PlatformTransactionManager transactionManager,
+                                @Value("${app.accounts.update-retry.max-attempts:3}") int maxAttempts,
+                                @Value("${app.accounts.update-retry.backoff-ms:10}") long backoffMs) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+    }
+
+    /**
+     * @param accountId идентификатор изменяемого счета
+     * @param action изменение счета; выполняется целиком заново при каждой попытке
+     * @return результат успешной попытки
+     * @throws AccountUpdateConflictException если все попытки завершились конфликтом версий
+     */
+    public <T> T execute(Long accountId, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("Конфликт версий счета {} не разрешен за {} попыток", accountId, maxAttempts);
+                    throw new AccountUpdateConflictException(accountId);
+                }
+                log.debug("Конфликт версий счета {}, попытка {} из {}", accountId, attempt, maxAttempts);
+                pause(attempt);
+            }
+        }
+    }
+
+    private void pause(int attempt) {
+        try {
+            Thread.sleep(backoffMs * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Прервано ожидание повтора изменения счета", e);
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package gigabank.accountmanagement.service;
 
 import gigabank.accountmanagement.dto.request.DepositWithdrawRequest;
+import gigabank.accountmanagement.dto.response.AccountBalanceResponse;
 import gigabank.accountmanagement.dto.response.BankAccountResponse;
 import gigabank.accountmanagement.enums.TransactionType;
 import gigabank.accountmanagement.exception.AccountNotFoundException;
+import gigabank.accountmanagement.exception.AccountUpdateConflictException;
 import gigabank.accountmanagement.exception.OperationForbiddenException;
 import gigabank.accountmanagement.exception.ValidationException;
 import gigabank.accountmanagement.mapper.BankAccountMapper;
@@ -13,6 +15,10 @@ import gigabank.accountmanagement.model.UserEntity;
 import gigabank.accountmanagement.repository.BankAccountRepository;
 import gigabank.accountmanagement.repository.TransactionRepository;
 import gigabank.accountmanagement.repository.UserRepository;
+import gigabank.accountmanagement.service.cache.AccountState;
+import gigabank.accountmanagement.service.cache.AccountStateCache;
+import gigabank.accountmanagement.service.cache.TransactionHistoryCache;
+import gigabank.accountmanagement.service.ledger.LedgerEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.Cache;
@@ -24,6 +30,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -43,6 +50,10 @@ public class BankAccountService {
     private final BankAccountMapper bankAccountMapper;
     private final UserRepository userRepository;
     private final CacheManager cacheManager;
+    private final LedgerEngine ledgerEngine;
+    private final AccountStateCache accountStateCache;
+    private final TransactionHistoryCache transactionHistoryCache;
+    private final AccountUpdateRetrier accountUpdateRetrier;
 
     /**
      * Получает все счета с пагинацией.
@@ -108,6 +119,19 @@ public class BankAccountService {
         return bankAccountMapper.toResponse(account);
     }
 
+    /**
+     * Получает баланс и статус блокировки счета из кэша состояния счетов, без обращения к БД при попадании.
+     *
+     * @param accountId идентификатор счета
+     * @return DTO с балансом, статусом блокировки и версией состояния
+     * @throws AccountNotFoundException если счет не найден
+     */
+    public AccountBalanceResponse getAccountBalance(Long accountId) {
+        AccountState state = accountStateCache.get(accountId);
+        return new AccountBalanceResponse(state.getAccountId(), state.getBalance(), state.isBlocked(),
+                state.getVersion());
+    }
+
     /**
      * Закрывает банковский счет.
      *
@@ -127,6 +151,8 @@ public class BankAccountService {
         transactionRepository.deleteByAccountId(accountId);
         bankAccountRepository.deleteById(accountId);
         evictAccountCaches(accountId, userId);
+        accountStateCache.evictAfterCommit(accountId);
+        transactionHistoryCache.evictAfterCommit(List.of(accountId));
         log.info("Счет ID {} успешно закрыт", accountId);
     }
 
@@ -136,17 +162,21 @@ public class BankAccountService {
      * @param accountId идентификатор счета
      * @return DTO обновленной сущности банковского счета
      * @throws AccountNotFoundException если счет не найден
+     * @throws AccountUpdateConflictException если счет одновременно изменен другой операцией во всех попытках
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BankAccountResponse toggleAccountBlock(Long accountId) {
         log.info("Переключение блокировки счета ID: {}", accountId);
-        BankAccountEntity account = findAccountById(accountId);
-        Long userId = account.getOwner().getId();
+        return accountUpdateRetrier.execute(accountId, () -> {
+            BankAccountEntity account = findAccountById(accountId);
+            Long userId = account.getOwner().getId();
 
-        account.setBlocked(!account.isBlocked());
-        evictAccountCaches(accountId, userId);
+            account.setBlocked(!account.isBlocked());
+            evictAccountCaches(accountId, userId);
+            accountStateCache.putAfterCommit(account);
 
-        return bankAccountMapper.toResponse(bankAccountRepository.save(account));
+            return bankAccountMapper.toResponse(bankAccountRepository.save(account));
+        });
     }
 
     /**
@@ -157,25 +187,28 @@ public class BankAccountService {
      * @return DTO с обновленной информацией о счете
      * @throws AccountNotFoundException если счет не найден
      * @throws OperationForbiddenException если счет заблокирован
+     * @throws AccountUpdateConflictException если счет одновременно изменен другой операцией во всех попытках
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BankAccountResponse deposit(Long accountId, DepositWithdrawRequest request) {
         log.info("Пополнение счета ID: {} на сумму: {}", accountId, request.getAmount());
+        return accountUpdateRetrier.execute(accountId, () -> {
+            BankAccountEntity account = findAccountById(accountId);
+            Long userId = account.getOwner().getId();
+            if (account.isBlocked()) {
+                throw new OperationForbiddenException("Аккаунт заблокирован");
+            }
 
-        BankAccountEntity account = findAccountById(accountId);
-        Long userId = account.getOwner().getId();
-        if (account.isBlocked()) {
-            throw new OperationForbiddenException("Аккаунт заблокирован");
-        }
+            account.setBalance(account.getBalance().add(request.getAmount()));
+            BankAccountResponse response = bankAccountMapper.toResponse(bankAccountRepository.save(account));
 
-        account.setBalance(account.getBalance().add(request.getAmount()));
-        BankAccountResponse response = bankAccountMapper.toResponse(bankAccountRepository.save(account));
+            evictAccountCaches(accountId, userId);
+            accountStateCache.putAfterCommit(account);
 
-        evictAccountCaches(accountId, userId);
-
-        log.info("Счет ID {} пополнен. Новый баланс: {}",
-                accountId, account.getBalance());
-        return response;
+            log.info("Счет ID {} пополнен. Новый баланс: {}",
+                    accountId, account.getBalance());
+            return response;
+        });
     }
 
     /**
@@ -187,28 +220,32 @@ public class BankAccountService {
      * @throws AccountNotFoundException если счет не найден
      * @throws OperationForbiddenException если счет заблокирован
      * @throws ValidationException если сумма снятия превышает баланс
+     * @throws AccountUpdateConflictException если счет одновременно изменен другой операцией во всех попытках
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BankAccountResponse withdraw(Long accountId, DepositWithdrawRequest request) {
         log.info("Снятие со счета ID: {} суммы: {}", accountId, request.getAmount());
-        BankAccountEntity account = findAccountById(accountId);
-        Long userId = account.getOwner().getId();
-        if (account.isBlocked()) {
-            throw new OperationForbiddenException("Аккаунт заблокирован");
-        }
-        if (account.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new ValidationException("Сумма снятия превышает баланс на счете");
-        }
+        return accountUpdateRetrier.execute(accountId, () -> {
+            BankAccountEntity account = findAccountById(accountId);
+            Long userId = account.getOwner().getId();
+            if (account.isBlocked()) {
+                throw new OperationForbiddenException("Аккаунт заблокирован");
+            }
+            if (account.getBalance().compareTo(request.getAmount()) < 0) {
+                throw new ValidationException("Сумма снятия превышает баланс на счете");
+            }
 
-        account.setBalance(account.getBalance().subtract(request.getAmount()));
+            account.setBalance(account.getBalance().subtract(request.getAmount()));
 
-        BankAccountResponse response = bankAccountMapper.toResponse(bankAccountRepository.save(account));
+            BankAccountResponse response = bankAccountMapper.toResponse(bankAccountRepository.save(account));
 
-        evictAccountCaches(accountId, userId);
+            evictAccountCaches(accountId, userId);
+            accountStateCache.putAfterCommit(account);
 
-        log.info("Со счета ID {} снято {}. Новый баланс: {}",
-                accountId, request.getAmount(), account.getBalance());
-        return response;
+            log.info("Со счета ID {} снято {}. Новый баланс: {}",
+                    accountId, request.getAmount(), account.getBalance());
+            return response;
+        });
     }
 
     /**
@@ -253,7 +290,8 @@ public class BankAccountService {
     }
 
     /**
-     * Вспомогательный метод для инвалидации кэша через идентификаторы аккаунта и пользователя
+     * Вспомогательный метод для инвалидации кэша и резидентного состояния ledger
+     * через идентификаторы аккаунта и пользователя
      * @param accountId идентификатор аккаунта
      * @param userId идентификатор пользователя
      */
@@ -263,5 +301,6 @@ public class BankAccountService {
             cache.evict("account_" + accountId);
             cache.evict("user_" + userId);
         }
+        ledgerEngine.invalidate(accountId);
     }
 }
\ No newline at end of file
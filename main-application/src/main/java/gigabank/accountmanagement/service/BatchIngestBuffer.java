@@ -0,0 +1,109 @@
+package gigabank.accountmanagement.service;
+
+import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import gigabank.accountmanagement.enums.BatchIngestMode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Накапливает сообщения пакетного консьюмера для режима ingest-mode=copy.
+ * Сбрасывает их в БД через COPY при достижении flush-size или по таймеру flush-interval-ms.
+ * Смещения Kafka подтверждаются только после успешной записи
+ */
+@Slf4j
+@Component
+public class BatchIngestBuffer {
+    private final TransactionService transactionService;
+    private final BatchIngestMode ingestMode;
+    private final int flushSize;
+    private final int maxBufferedMessages;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private List<TransactionMessage> bufferedMessages = new ArrayList<>();
+    private List<Acknowledgment> pendingAcks = new ArrayList<>();
+
+    public BatchIngestBuffer(TransactionService transactionService,
+                             @Value("${app.kafka.batch.ingest-mode:jdbc}") String ingestMode,
+                             @Value("${app.kafka.batch.copy.flush-size:5000}") int flushSize,
+                             @Value("${app.kafka.batch.copy.max-buffered-messages:50000}") int maxBufferedMessages) {
+        this.transactionService = transactionService;
+        this.ingestMode = BatchIngestMode.valueOf(ingestMode.toUpperCase());
+        this.flushSize = flushSize;
+        this.maxBufferedMessages = maxBufferedMessages;
+    }
+
+    public boolean isEnabled() {
+        return ingestMode == BatchIngestMode.COPY;
+    }
+
+    /**
+     * Добавляет сообщения poll в буфер и сбрасывает его при достижении flush-size
+     *
+     * @param transactions сообщения из Kafka
+     * @param ack подтверждение смещений этого poll
+     * @throws IllegalStateException если буфер переполнен из-за ошибок записи
+     */
+    public void append(List<TransactionMessage> transactions, Acknowledgment ack) {
+        lock.lock();
+        try {
+            if (bufferedMessages.size() + transactions.size() > maxBufferedMessages) {
+                throw new IllegalStateException("Буфер COPY ingest переполнен: " + bufferedMessages.size());
+            }
+
+            bufferedMessages.addAll(transactions);
+            pendingAcks.add(ack);
+
+            if (bufferedMessages.size() >= flushSize) {
+                flush();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.kafka.batch.copy.flush-interval-ms:1000}")
+    public void flushOnInterval() {
+        if (isEnabled()) {
+            flush();
+        }
+    }
+
+    /**
+     * Записывает накопленные сообщения одной командой COPY и подтверждает смещения.
+     * При ошибке сообщения остаются в буфере до следующей попытки
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            if (bufferedMessages.isEmpty()) {
+                return;
+            }
+
+            List<TransactionMessage> messages = bufferedMessages;
+            List<Acknowledgment> acks = pendingAcks;
+
+            try {
+                transactionService.processTransactionBatch(messages, "batch", BatchIngestMode.COPY);
+            } catch (Exception e) {
+                log.error("[Copy] Ошибка записи буфера: {} сообщений, повтор при следующем сбросе",
+                        messages.size(), e);
+                return;
+            }
+
+            bufferedMessages = new ArrayList<>(flushSize);
+            pendingAcks = new ArrayList<>();
+            acks.forEach(Acknowledgment::acknowledge);
+
+            log.info("[Copy] Буфер записан: {} сообщений, {} poll", messages.size(), acks.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -1,11 +1,30 @@
 package gigabank.accountmanagement.service;
 
 import gigabank.accountmanagement.dto.kafka.ProcessingMetrics;
+import gigabank.accountmanagement.enums.LatencyStage;
+import gigabank.accountmanagement.enums.ProcessingPath;
+import gigabank.accountmanagement.service.metrics.LatencySnapshot;
+import gigabank.accountmanagement.service.metrics.LatencyTracker;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
 import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToDoubleFunction;
 
 @Getter
 @Service
@@ -16,34 +35,208 @@ public class MetricsService {
 
     private final ConcurrentHashMap<String, AtomicLong> processingTimes = new ConcurrentHashMap<>();
 
-    public void recordSingleTransactionTime(long durationMs) {
-        singleProcessingMetrics.setAvgTransactionTimeMs(
-                calculateMovingAverage(singleProcessingMetrics.getAvgTransactionTimeMs(),
-                        singleProcessingMetrics.getSuccessfulTransactions().get(),
-                        durationMs)
-        );
+    private static final int RECENT_BATCH_WINDOW = 1024;
+    @Getter(AccessLevel.NONE)
+    private final long[] recentBatchTimes = new long[RECENT_BATCH_WINDOW];
+    @Getter(AccessLevel.NONE)
+    private int recentBatchCount = 0;
+    @Getter(AccessLevel.NONE)
+    private final ReentrantLock recentBatchLock = new ReentrantLock();
+
+    @Getter(AccessLevel.NONE)
+    private final Map<ProcessingPath, LatencyTracker> latencyTrackers;
+    @Getter(AccessLevel.NONE)
+    private final LongAdder batchTimeMicros = new LongAdder();
+    @Getter(AccessLevel.NONE)
+    private final LongAdder batchTransactions = new LongAdder();
+    @Getter(AccessLevel.NONE)
+    private final LongAdder batches = new LongAdder();
+    @Getter(AccessLevel.NONE)
+    private final ConcurrentHashMap<String, Map<LatencyStage, LatencyTracker>> stageTrackers =
+            new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final MeterRegistry meterRegistry;
+    @Getter(AccessLevel.NONE)
+    private final long latencyWindowMs;
+
+    public MetricsService(MeterRegistry meterRegistry,
+                          @Value("${app.metrics.latency.window-ms:60000}") long latencyWindowMs) {
+        this.meterRegistry = meterRegistry;
+        this.latencyWindowMs = latencyWindowMs;
+        long now = System.currentTimeMillis();
+        Map<ProcessingPath, LatencyTracker> trackers = new EnumMap<>(ProcessingPath.class);
+        for (ProcessingPath path : ProcessingPath.values()) {
+            trackers.put(path, new LatencyTracker(latencyWindowMs, now));
+        }
+        this.latencyTrackers = Collections.unmodifiableMap(trackers);
+
+        trackers.forEach((path, tracker) -> registerMeters(meterRegistry, path, tracker));
+    }
+
+    /**
+     * Записывает задержку пути обработки; вызывается из рабочих потоков без блокировок
+     *
+     * @param path путь обработки
+     * @param durationNanos длительность в наносекундах
+     */
+    public void recordLatency(ProcessingPath path, long durationNanos) {
+        latencyTrackers.get(path).recordNanos(durationNanos);
+    }
+
+    /**
+     * Записывает длительность этапа пути транзакции для режима доставки;
+     * трекеры режима создаются при первой записи
+     *
+     * @param deliveryMode режим доставки
+     * @param stage этап
+     * @param durationNanos длительность в наносекундах
+     */
+    public void recordStage(String deliveryMode, LatencyStage stage, long durationNanos) {
+        stageTrackers.computeIfAbsent(deliveryMode, this::createStageTrackers).get(stage).recordNanos(durationNanos);
+    }
+
+    /**
+     * Снимает распределения задержек по этапам за скользящее окно
+     *
+     * @return снимки по режимам доставки и этапам
+     */
+    public Map<String, Map<LatencyStage, LatencySnapshot>> getStageLatencySnapshots() {
+        long now = System.currentTimeMillis();
+        Map<String, Map<LatencyStage, LatencySnapshot>> snapshots = new TreeMap<>();
+        stageTrackers.forEach((mode, trackers) -> {
+            Map<LatencyStage, LatencySnapshot> stages = new EnumMap<>(LatencyStage.class);
+            trackers.forEach((stage, tracker) -> stages.put(stage, tracker.snapshot(now)));
+            snapshots.put(mode, stages);
+        });
+        return snapshots;
+    }
+
+    public void recordSingleTransactionTime(long durationNanos) {
+        recordLatency(ProcessingPath.SINGLE, durationNanos);
+    }
+
+    public void recordBatchProcessingTime(long durationNanos, int batchSize) {
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        recentBatchLock.lock();
+        try {
+            recentBatchTimes[recentBatchCount % RECENT_BATCH_WINDOW] = durationMs;
+            recentBatchCount++;
+        } finally {
+            recentBatchLock.unlock();
+        }
+
+        recordLatency(ProcessingPath.BATCH, durationNanos);
+        batchTimeMicros.add(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+        batchTransactions.add(batchSize);
+        batches.increment();
     }
 
-    public void recordBatchProcessingTime(long durationMs, int batchSize) {
-        batchProcessingMetrics.setAvgBatchTimeMs(
-                calculateMovingAverage(batchProcessingMetrics.getAvgBatchTimeMs(),
-                        batchProcessingMetrics.getSuccessfulBatches().get(),
-                        durationMs)
-        );
+    /**
+     * Снимает распределение задержек пути за скользящее окно
+     *
+     * @param path путь обработки
+     * @return снимок распределения
+     */
+    public LatencySnapshot getLatencySnapshot(ProcessingPath path) {
+        return latencyTrackers.get(path).snapshot(System.currentTimeMillis());
+    }
+
+    /**
+     * @return среднее время обработки одной транзакции в составе батча с момента запуска
+     */
+    public double getAvgBatchTransactionTimeMs() {
+        long transactions = batchTransactions.sum();
+        return transactions > 0 ? batchTimeMicros.sum() / 1000.0 / transactions : 0.0;
+    }
+
+    /**
+     * @return средний размер обработанного батча с момента запуска
+     */
+    public double getAvgBatchSize() {
+        long count = batches.sum();
+        return count > 0 ? (double) batchTransactions.sum() / count : 0.0;
+    }
+
+    /**
+     * Обновляет снимки, которые читают метрики Micrometer
+     */
+    @Scheduled(fixedDelayString = "${app.metrics.latency.snapshot-interval-ms:5000}")
+    public void refreshLatencySnapshots() {
+        long now = System.currentTimeMillis();
+        latencyTrackers.values().forEach(tracker -> tracker.snapshot(now));
+        stageTrackers.values().forEach(trackers -> trackers.values().forEach(tracker -> tracker.snapshot(now)));
+    }
 
-        double avgTransactionTimeInBatch = (double) durationMs / batchSize;
-        batchProcessingMetrics.setAvgTransactionTimeMs(
-                calculateMovingAverage(batchProcessingMetrics.getAvgTransactionTimeMs(),
-                        batchProcessingMetrics.getSuccessfulTransactions().get(),
-                        avgTransactionTimeInBatch)
-        );
+    /**
+     * Возвращает длительности батчей, записанные с момента предыдущего вызова
+     * (не более последних 1024), и очищает окно
+     *
+     * @return длительности батчей в миллисекундах
+     */
+    public long[] drainRecentBatchTimes() {
+        recentBatchLock.lock();
+        try {
+            long[] result = Arrays.copyOf(recentBatchTimes, Math.min(recentBatchCount, RECENT_BATCH_WINDOW));
+            recentBatchCount = 0;
+            return result;
+        } finally {
+            recentBatchLock.unlock();
+        }
     }
 
-    private double calculateMovingAverage(double currentAverage, long count, double newValue) {
-        if (count == 0) {
-            return newValue;
+    private Map<LatencyStage, LatencyTracker> createStageTrackers(String deliveryMode) {
+        long now = System.currentTimeMillis();
+        Map<LatencyStage, LatencyTracker> trackers = new EnumMap<>(LatencyStage.class);
+        for (LatencyStage stage : LatencyStage.values()) {
+            LatencyTracker tracker = new LatencyTracker(latencyWindowMs, now);
+            trackers.put(stage, tracker);
+
+            String stageTag = stage.name().toLowerCase();
+            registerStageGauge(deliveryMode, stageTag, "0.5", tracker, LatencySnapshot::getP50Ms);
+            registerStageGauge(deliveryMode, stageTag, "0.99", tracker, LatencySnapshot::getP99Ms);
+            registerStageGauge(deliveryMode, stageTag, "0.999", tracker, LatencySnapshot::getP999Ms);
+            registerStageGauge(deliveryMode, stageTag, "1.0", tracker, LatencySnapshot::getMaxMs);
         }
-        return (currentAverage * count + newValue) / (count + 1);
+        return Collections.unmodifiableMap(trackers);
+    }
+
+    private void registerStageGauge(String deliveryMode, String stageTag, String quantile,
+                                    LatencyTracker tracker, ToDoubleFunction<LatencySnapshot> value) {
+        Gauge.builder("gigabank.pipeline.latency", tracker, t -> value.applyAsDouble(t.lastSnapshot()))
+                .description("Задержка этапа пути транзакции за скользящее окно")
+                .baseUnit("milliseconds")
+                .tag("mode", deliveryMode)
+                .tag("stage", stageTag)
+                .tag("quantile", quantile)
+                .register(meterRegistry);
+    }
+
+    private void registerMeters(MeterRegistry meterRegistry, ProcessingPath path, LatencyTracker tracker) {
+        String pathTag = path.name().toLowerCase();
+
+        registerLatencyGauge(meterRegistry, pathTag, "0.5", tracker, LatencySnapshot::getP50Ms);
+        registerLatencyGauge(meterRegistry, pathTag, "0.9", tracker, LatencySnapshot::getP90Ms);
+        registerLatencyGauge(meterRegistry, pathTag, "0.99", tracker, LatencySnapshot::getP99Ms);
+        registerLatencyGauge(meterRegistry, pathTag, "0.999", tracker, LatencySnapshot::getP999Ms);
+        registerLatencyGauge(meterRegistry, pathTag, "1.0", tracker, LatencySnapshot::getMaxMs);
+
+        Gauge.builder("gigabank.processing.throughput", tracker, t -> t.lastSnapshot().getThroughputPerSecond())
+                .description("Обработано за скользящее окно, в секунду")
+                .tag("path", pathTag)
+                .register(meterRegistry);
+        FunctionCounter.builder("gigabank.processing.count", tracker, t -> t.lastSnapshot().getTotalCount())
+                .description("Число измерений задержки с момента запуска")
+                .tag("path", pathTag)
+                .register(meterRegistry);
     }
 
-}
\ No newline at end of file
+    private void registerLatencyGauge(MeterRegistry meterRegistry, String pathTag, String quantile,
+                                      LatencyTracker tracker, ToDoubleFunction<LatencySnapshot> value) {
+        Gauge.builder("gigabank.processing.latency", tracker, t -> value.applyAsDouble(t.lastSnapshot()))
+                .description("Задержка обработки за скользящее окно")
+                .baseUnit("milliseconds")
+                .tag("path", pathTag)
+                .tag("quantile", quantile)
+                .register(meterRegistry);
+    }
+}
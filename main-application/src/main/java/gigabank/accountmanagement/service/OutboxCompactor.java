@@ -0,0 +1,65 @@
+package gigabank.accountmanagement.service;
+
+import gigabank.accountmanagement.repository.OutboxMaintenanceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Фоновое сжатие outbox: обработанные сообщения старше retention-hours удаляются порциями
+ * в отдельных транзакциях, чтобы не держать долгих блокировок и не раздувать WAL одним DELETE.
+ * Вместе с частичным индексом по необработанным строкам это держит стоимость выборки relay
+ * пропорциональной числу ожидающих сообщений
+ */
+@Slf4j
+@Component
+public class OutboxCompactor {
+    private final OutboxMaintenanceRepository outboxMaintenanceRepository;
+    private final long retentionHours;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+
+    public OutboxCompactor(OutboxMaintenanceRepository outboxMaintenanceRepository,
+                           @Value("${app.outbox.compaction.retention-hours:24}") long retentionHours,
+                           @Value("${app.outbox.compaction.chunk-size:10000}") int chunkSize,
+                           @Value("${app.outbox.compaction.max-chunks-per-run:100}") int maxChunksPerRun) {
+        this.outboxMaintenanceRepository = outboxMaintenanceRepository;
+        this.retentionHours = retentionHours;
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createPendingIndex() {
+        try {
+            if (outboxMaintenanceRepository.ensurePendingIndex()) {
+                log.info("[Outbox] Частичный индекс по необработанным сообщениям готов");
+            }
+        } catch (Exception e) {
+            log.warn("[Outbox] Не удалось создать частичный индекс: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.compaction.interval-ms:600000}")
+    public void compact() {
+        LocalDateTime threshold = LocalDateTime.now().minusHours(retentionHours);
+        long totalDeleted = 0;
+
+        for (int i = 0; i < maxChunksPerRun; i++) {
+            int deleted = outboxMaintenanceRepository.deleteProcessedBefore(threshold, chunkSize);
+            totalDeleted += deleted;
+            if (deleted < chunkSize) {
+                break;
+            }
+        }
+
+        if (totalDeleted > 0) {
+            log.info("[Outbox] Удалено {} обработанных сообщений старше {}ч", totalDeleted, retentionHours);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package gigabank.accountmanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gigabank.accountmanagement.model.OutboxMessage;
+import gigabank.accountmanagement.model.TransactionEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Формирует outbox события для сохраненных транзакций
+ */
+@Slf4j
+@Component
+public class OutboxEventFactory {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Создает outbox событие о завершенном переводе
+     *
+     * @param transaction сохраненная транзакция с присвоенным идентификатором
+     * @return несохраненное outbox сообщение
+     */
+    public OutboxMessage createTransferCompletedEvent(TransactionEntity transaction) {
+        OutboxMessage event = new OutboxMessage();
+        event.setAggregateType("Transaction");
+        event.setAggregateId(transaction.getId().toString());
+        event.setEventType("MoneyTransferCompleted");
+        event.setPayload(createEventPayload(transaction));
+        return event;
+    }
+
+    public String createEventPayload(TransactionEntity transaction) {
+        try {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("id", transaction.getId());
+            payload.put("value", transaction.getValue());
+            payload.put("type", transaction.getType() != null ? transaction.getType().name() : null);
+            payload.put("category", transaction.getCategory());
+            payload.put("createdDate", transaction.getCreatedDate().toString());
+            payload.put("sourceAccount", transaction.getSourceAccount());
+            payload.put("targetAccount", transaction.getTargetAccount());
+            payload.put("bankAccountId", transaction.getBankAccountEntity() != null ?
+                    transaction.getBankAccountEntity().getId() : null);
+
+            return objectMapper.writeValueAsString(payload);
+        }
+        catch (Exception e) {
+            log.error("Ошибка создания payload для транзакции {}: {}", transaction.getId(), e.getMessage(), e);
+            throw new RuntimeException("Failed to create outbox payload for transaction: " + transaction.getId(), e);
+        }
+    }
+}
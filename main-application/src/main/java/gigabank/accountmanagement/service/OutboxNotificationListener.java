@@ -0,0 +1,111 @@
+package gigabank.accountmanagement.service;
+
+import gigabank.accountmanagement.repository.OutboxNotifier;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+/**
+ * Держит отдельное соединение с LISTEN на канале outbox и запускает relay сразу после уведомления.
+ * Уведомления, пришедшие во время прохода relay, объединяются в один следующий проход.
+ * При потере соединения переподключается; плановый опрос OutboxProcessor остается страховкой
+ */
+@Slf4j
+@Component
+public class OutboxNotificationListener implements Runnable {
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final OutboxProcessor outboxProcessor;
+    private final OutboxNotifier outboxNotifier;
+    private final DataSourceProperties dataSourceProperties;
+    private final int waitTimeoutMs;
+    private final boolean virtualThreads;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public OutboxNotificationListener(OutboxProcessor outboxProcessor,
+                                      OutboxNotifier outboxNotifier,
+                                      DataSourceProperties dataSourceProperties,
+                                      @Value("${app.outbox.notify.wait-timeout-ms:1000}") int waitTimeoutMs,
+                                      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.outboxProcessor = outboxProcessor;
+        this.outboxNotifier = outboxNotifier;
+        this.dataSourceProperties = dataSourceProperties;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.virtualThreads = virtualThreads;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!outboxNotifier.isEnabled()) {
+            log.info("[Outbox] LISTEN/NOTIFY недоступен, relay работает по расписанию");
+            return;
+        }
+
+        running = true;
+        Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+        thread = builder.name("outbox-listener").start(this);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + OutboxNotifier.CHANNEL);
+                }
+                log.info("[Outbox] Подписка на канал {} установлена", OutboxNotifier.CHANNEL);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                drain();
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(waitTimeoutMs);
+                    if (notifications != null && notifications.length > 0) {
+                        drain();
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("[Outbox] Соединение LISTEN потеряно, переподключение через {}ms: {}",
+                        RECONNECT_DELAY_MS, e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            outboxProcessor.processOutboxMessages();
+        } catch (Exception e) {
+            log.error("[Outbox] Ошибка прохода relay по уведомлению", e);
+        }
+    }
+}
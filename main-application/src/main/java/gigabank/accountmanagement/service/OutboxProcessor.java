@@ -2,54 +2,159 @@ package gigabank.accountmanagement.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import gigabank.accountmanagement.enums.ProcessingPath;
 import gigabank.accountmanagement.model.OutboxMessage;
 import gigabank.accountmanagement.repository.OutboxMessageRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Relay transactional outbox в Kafka.
+ * Захватывает порции сообщений через FOR UPDATE SKIP LOCKED, поэтому несколько экземпляров
+ * работают параллельно без двойной отправки. Сообщения порции отправляются без ожидания друг друга,
+ * после подтверждения брокером вся порция отмечается обработанной одним UPDATE.
+ * Сообщение, которое не удалось подготовить к отправке max-attempts раз, отмечается failed
+ * и перестает захватываться, чтобы не занимать начало очереди.
+ * Пока порции выбираются полностью, следующая захватывается сразу, без ожидания расписания
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class OutboxProcessor {
+    private static final String OUTBOX_TOPIC = "transaction-outbox-events";
+
     private final OutboxMessageRepository outboxMessageRepository;
     private final KafkaTemplate<String, TransactionMessage> kafkaTemplate;
     private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MetricsService metricsService;
+    private final int chunkSize;
+    private final long sendTimeoutMs;
+    private final int maxAttempts;
+
+    public OutboxProcessor(OutboxMessageRepository outboxMessageRepository,
+                           KafkaTemplate<String, TransactionMessage> kafkaTemplate,
+                           ObjectMapper objectMapper,
+                           PlatformTransactionManager transactionManager,
+                           MetricsService metricsService,
+                           @Value("${app.outbox.chunk-size:500}") int chunkSize,
+                           @Value("${app.outbox.send-timeout-ms:10000}") long sendTimeoutMs,
+                           @Value("${app.outbox.max-attempts:3}") int maxAttempts) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.metricsService = metricsService;
+        this.chunkSize = chunkSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.maxAttempts = maxAttempts;
+    }
 
-    @Scheduled(fixedRate = 5000)
-    @Transactional
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:5000}")
     public void processOutboxMessages() {
-        List<OutboxMessage> messages = outboxMessageRepository.findByProcessedFalseOrderByCreatedAtAsc();
+        int totalPublished = 0;
+        ChunkResult result;
 
-        if (messages.isEmpty()) {
+        do {
+            long chunkStartTime = System.nanoTime();
+            result = transactionTemplate.execute(status -> relayChunk());
+            if (result.claimed() > 0) {
+                metricsService.recordLatency(ProcessingPath.OUTBOX, System.nanoTime() - chunkStartTime);
+            }
+            totalPublished += result.published();
+        } while (result.claimed() == chunkSize && (result.published() > 0 || result.failed() > 0));
+
+        if (totalPublished == 0) {
             log.debug("Нет непрочитанных сообщений в outbox");
-            return;
+        } else {
+            log.info("Outbox сообщения отправлены: {}", totalPublished);
         }
+    }
 
-        log.info("Найдено {} непрочитанных сообщений в outbox", messages.size());
+    /**
+     * Захватывает одну порцию, отправляет ее в Kafka и отмечает подтвержденные сообщения обработанными.
+     * Сообщения, которые не удалось отправить, остаются необработанными до следующего прохода;
+     * у сообщений, которые не удалось подготовить, увеличивается счетчик попыток
+     *
+     * @return число захваченных, отправленных и исчерпавших попытки сообщений
+     */
+    private ChunkResult relayChunk() {
+        List<OutboxMessage> messages = outboxMessageRepository.claimUnprocessed(PageRequest.of(0, chunkSize));
+        if (messages.isEmpty()) {
+            return new ChunkResult(0, 0, 0);
+        }
 
+        List<OutboxMessage> sentMessages = new ArrayList<>(messages.size());
+        List<CompletableFuture<SendResult<String, TransactionMessage>>> futures = new ArrayList<>(messages.size());
+        int failed = 0;
         for (OutboxMessage message : messages) {
             try {
-                log.info("Обрабатываем outbox сообщение ID: {}", message.getId());
+                TransactionMessage transactionMessage =
+                        objectMapper.readValue(message.getPayload(), TransactionMessage.class);
+                futures.add(kafkaTemplate.send(OUTBOX_TOPIC, message.getAggregateId(), transactionMessage));
+                sentMessages.add(message);
+            } catch (Exception e) {
+                log.error("Ошибка обработки сообщения {}: {}", message.getId(), e.getMessage());
+                if (recordFailedAttempt(message, e)) {
+                    failed++;
+                }
+            }
+        }
 
-                TransactionMessage transactionMessage = objectMapper.readValue(message.getPayload(), TransactionMessage.class);
+        List<Long> publishedIds = new ArrayList<>(sentMessages.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (int i = 0; i < futures.size(); i++) {
+            Long messageId = sentMessages.get(i).getId();
+            try {
+                futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                publishedIds.add(messageId);
+            } catch (ExecutionException | TimeoutException e) {
+                log.error("Ошибка отправки outbox сообщения {}: {}", messageId, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Прервано ожидание отправки outbox", e);
+            }
+        }
 
-                kafkaTemplate.send("transaction-outbox-events", message.getAggregateId(), transactionMessage);
+        if (!publishedIds.isEmpty()) {
+            outboxMessageRepository.markProcessed(publishedIds);
+        }
 
-                message.setProcessed(true);
-                outboxMessageRepository.save(message);
+        log.debug("Outbox порция: claimed={}, published={}, failed={}", messages.size(), publishedIds.size(), failed);
+        return new ChunkResult(messages.size(), publishedIds.size(), failed);
+    }
 
-                log.info("Outbox сообщение обработано: messageId={}", message.getId());
-            }
-            catch (Exception e) {
-                log.error("Ошибка обработки сообщения {}: {}", message.getId(), e.getMessage());
-            }
+    /**
+     * Увеличивает счетчик попыток захваченного сообщения; изменения фиксируются вместе с порцией
+     *
+     * @return true если сообщение исчерпало попытки и отмечено failed
+     */
+    private boolean recordFailedAttempt(OutboxMessage message, Exception e) {
+        message.setAttempts(message.getAttempts() + 1);
+        String error = String.valueOf(e.getMessage());
+        message.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+        if (message.getAttempts() < maxAttempts) {
+            return false;
         }
+
+        message.setFailed(true);
+        log.warn("Outbox сообщение {} отмечено failed после {} попыток", message.getId(), message.getAttempts());
+        return true;
+    }
+
+    private record ChunkResult(int claimed, int published, int failed) {
     }
 }
@@ -0,0 +1,46 @@
+package gigabank.accountmanagement.service;
+
+import gigabank.accountmanagement.exception.ValidationException;
+import gigabank.accountmanagement.kafka.serialization.BinaryMessageCodec;
+import gigabank.accountmanagement.model.TransactionEntity;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Ключ продолжения постраничного чтения транзакций: (date, id) последней транзакции страницы.
+ * Клиенту передается непрозрачной строкой — Base64url от байта версии, даты в микросекундах UTC и id
+ */
+public record TransactionCursor(LocalDateTime date, long id) {
+    private static final byte VERSION = 1;
+    private static final int LENGTH = 1 + Long.BYTES + Long.BYTES;
+
+    public static TransactionCursor of(TransactionEntity transaction) {
+        return new TransactionCursor(transaction.getCreatedDate(), transaction.getId());
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH)
+                .put(VERSION)
+                .putLong(BinaryMessageCodec.toEpochMicros(date))
+                .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * @throws ValidationException если строка не является ключом продолжения
+     */
+    public static TransactionCursor decode(String token) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+            if (buffer.remaining() != LENGTH || buffer.get() != VERSION) {
+                throw new ValidationException("Некорректный ключ продолжения: " + token);
+            }
+            return new TransactionCursor(BinaryMessageCodec.fromEpochMicros(buffer.getLong()), buffer.getLong());
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new ValidationException("Некорректный ключ продолжения: " + token);
+        }
+    }
+}
@@ -3,15 +3,14 @@ package gigabank.accountmanagement.service;
 import gigabank.accountmanagement.dto.kafka.TransactionMessage;
 import gigabank.accountmanagement.enums.TransactionType;
 import gigabank.accountmanagement.kafka.producer.TransactionKafkaProducer;
-import gigabank.accountmanagement.model.BankAccountEntity;
 import gigabank.accountmanagement.repository.BankAccountRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -34,33 +33,20 @@ public class TransactionLoadService {
      * @param deliveryMode режим доставки для отправки в Kafka
      * @return строку с результатами генерации
      */
-    @Transactional(readOnly = true)
     public String generateBatchLoad(int totalTransactions, String deliveryMode) {
-        List<BankAccountEntity> existingAccounts = bankAccountRepository.findAll();
-        if (existingAccounts.isEmpty()) {
+        List<Long> existingAccountIds = bankAccountRepository.findAllIds();
+        if (existingAccountIds.isEmpty()) {
             return "В базе данных нет счетов.";
         }
 
-        List<Long> existingAccountIds = existingAccounts.stream()
-                .map(BankAccountEntity::getId)
-                .toList();
-
         long baseId = System.currentTimeMillis();
-        int successfulSends = 0;
-
+        List<TransactionMessage> messages = new ArrayList<>(totalTransactions);
         for (int i = 0; i < totalTransactions; i++) {
-            try {
-                TransactionMessage message = createRandomTransaction(baseId + i, existingAccountIds);
-                kafkaProducer.sendWithDeliveryMode(message,
-                        message.getBankAccountId().toString(),
-                        deliveryMode);
-                successfulSends++;
-            } catch (Exception e) {
-                log.warn("Не удалось отправить транзакцию {}/{}: {}",
-                        i + 1, totalTransactions, e.getMessage());
-            }
+            messages.add(createRandomTransaction(baseId + i, existingAccountIds));
         }
 
+        int successfulSends = kafkaProducer.sendBatch(messages, deliveryMode).join();
+
         String result = String.format("Отправлено %d/%d транзакций для %d счетов в режиме %s",
                 successfulSends, totalTransactions, existingAccountIds.size(), deliveryMode);
 
@@ -77,13 +63,23 @@ public class TransactionLoadService {
      * @return сообщение транзакции со случайными данными для отправки в Kafka
      */
     public TransactionMessage createRandomTransaction(Long transactionId, List<Long> availableAccountIds) {
-        TransactionMessage message = new TransactionMessage();
-        message.setId(transactionId);
-
         Long randomAccountId = availableAccountIds.get(
                 ThreadLocalRandom.current().nextInt(availableAccountIds.size())
         );
-        message.setBankAccountId(randomAccountId);
+        return createTransaction(transactionId, randomAccountId);
+    }
+
+    /**
+     * Создает транзакцию со случайным типом операции и суммой для заданного счета
+     *
+     * @param transactionId уникальный идентификатор транзакции
+     * @param accountId идентификатор счета
+     * @return сообщение транзакции для отправки в Kafka
+     */
+    public TransactionMessage createTransaction(Long transactionId, Long accountId) {
+        TransactionMessage message = new TransactionMessage();
+        message.setId(transactionId);
+        message.setBankAccountId(accountId);
 
         message.setType(ThreadLocalRandom.current().nextBoolean() ?
                 TransactionType.DEPOSIT : TransactionType.WITHDRAWAL);
@@ -96,4 +92,4 @@ public class TransactionLoadService {
 
         return message;
     }
-}
\ No newline at end of file
+}
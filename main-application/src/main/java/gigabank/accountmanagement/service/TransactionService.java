@@ -1,10 +1,13 @@
 package gigabank.accountmanagement.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import gigabank.accountmanagement.dto.kafka.TransactionMessage;
 import gigabank.accountmanagement.dto.request.TransactionGenerateRequest;
+import gigabank.accountmanagement.dto.response.TransactionCursorPage;
+import gigabank.accountmanagement.dto.response.TransactionHistoryPage;
 import gigabank.accountmanagement.dto.response.TransactionResponse;
+import gigabank.accountmanagement.enums.BatchIngestMode;
 import gigabank.accountmanagement.enums.TransactionType;
+import gigabank.accountmanagement.exception.ValidationException;
 import gigabank.accountmanagement.kafka.producer.TransactionKafkaProducer;
 import gigabank.accountmanagement.mapper.TransactionMapper;
 import gigabank.accountmanagement.model.BankAccountEntity;
@@ -12,23 +15,32 @@ import gigabank.accountmanagement.model.OutboxMessage;
 import gigabank.accountmanagement.model.TransactionEntity;
 import gigabank.accountmanagement.repository.BankAccountRepository;
 import gigabank.accountmanagement.repository.OutboxMessageRepository;
+import gigabank.accountmanagement.repository.OutboxNotifier;
+import gigabank.accountmanagement.repository.TransactionBatchRepository;
+import gigabank.accountmanagement.repository.TransactionCopyRepository;
 import gigabank.accountmanagement.repository.TransactionRepository;
+import gigabank.accountmanagement.service.cache.AccountStateCache;
+import gigabank.accountmanagement.service.cache.TransactionHistoryCache;
+import gigabank.accountmanagement.service.idempotency.IdempotencyStore;
+import gigabank.accountmanagement.service.ledger.LedgerEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.Cache;
-import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
@@ -40,46 +52,88 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class TransactionService {
     private final TransactionRepository transactionRepository;
+    private final TransactionBatchRepository transactionBatchRepository;
+    private final TransactionCopyRepository transactionCopyRepository;
     private final BankAccountRepository bankAccountRepository;
     private final OutboxMessageRepository outboxMessageRepository;
+    private final OutboxNotifier outboxNotifier;
     private final TransactionMapper transactionMapper;
     private final MetricsService metricsService;
-    private final ConcurrentHashMap<Long, Boolean> processedTransactions = new ConcurrentHashMap<>();
-    private final CacheManager cacheManager;
+    private final IdempotencyStore idempotencyStore;
+    private final OutboxEventFactory outboxEventFactory;
+    private final LedgerEngine ledgerEngine;
+    private final AccountStateCache accountStateCache;
+    private final TransactionHistoryCache transactionHistoryCache;
+    private final AccountUpdateRetrier accountUpdateRetrier;
 
     private final TransactionKafkaProducer transactionKafkaProducer;
     private final Random random = new Random();
 
-    @Transactional
+    @Value("${app.cache.history.max-page-size:500}")
+    private int maxHistoryPageSize;
+
+    @Value("${app.transactions.seek.max-page-size:500}")
+    private int maxSeekPageSize;
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void processTransaction(TransactionMessage transactionMessage, String deliveryMode) {
         processTransaction(transactionMessage, deliveryMode, true);
     }
 
     /**
      * Обрабатывает одиночную транзакцию, полученную из Kafka,
-     * обновляет баланс счета и сохраняет транзакцию в БД
+     * обновляет баланс счета и сохраняет транзакцию в БД.
+     * Выполняется вне транзакции БД: путь через ledger ждет фиксации группы потоком шарда,
+     * которому для записи нужно свое соединение пула, а прямая запись открывает транзакцию сама
      *
      * @param transactionMessage сообщение транзакции из Kafka
      * @param deliveryMode режим доставки (at-most-once, at-least-once, exactly-once)
      * @param createOutbox флаг для создания сообщения в outbox
      * @throws IllegalArgumentException если ID транзакции или счета равны null,
      *                                  счет не найден или заблокирован
+     * @throws gigabank.accountmanagement.exception.AccountUpdateConflictException если конфликт версий счета
+     *                                  с параллельным изменением не разрешен за отведенные попытки
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void processTransaction(TransactionMessage transactionMessage, String deliveryMode, boolean createOutbox) {
         if (transactionMessage.getId() == null || transactionMessage.getBankAccountId() == null) {
             throw new IllegalArgumentException("Транзакции имеют null ID");
         }
 
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
         Long transactionId = transactionMessage.getId();
         Long accountId = transactionMessage.getBankAccountId();
 
-        if ("exactly-once".equals(deliveryMode) && processedTransactions.containsKey(transactionId)) {
+        boolean exactlyOnce = "exactly-once".equals(deliveryMode);
+        if (exactlyOnce && idempotencyStore.isProcessed(transactionId)) {
             log.info("Транзакция уже обработана: transactionId={}, accountId={}", transactionId, accountId);
             return;
         }
 
+        if (ledgerEngine.isEnabled()) {
+            processTransactionThroughLedger(transactionMessage, exactlyOnce, createOutbox, startTime);
+            return;
+        }
+
+        accountUpdateRetrier.execute(accountId, () -> {
+            processTransactionDirectly(transactionMessage, exactlyOnce, createOutbox, startTime);
+            return null;
+        });
+    }
+
+    /**
+     * Применяет транзакцию к счету в текущей транзакции БД
+     *
+     * @param transactionMessage сообщение транзакции из Kafka
+     * @param exactlyOnce отметить транзакцию обработанной
+     * @param createOutbox флаг для создания сообщения в outbox
+     * @param startTime время начала обработки по System.nanoTime
+     */
+    private void processTransactionDirectly(TransactionMessage transactionMessage, boolean exactlyOnce,
+                                            boolean createOutbox, long startTime) {
+        Long transactionId = transactionMessage.getId();
+        Long accountId = transactionMessage.getBankAccountId();
+
         try {
             BankAccountEntity account = bankAccountRepository.findById(accountId)
                     .orElseThrow(() -> new IllegalArgumentException("Счет не найден: " + accountId));
@@ -93,35 +147,33 @@ public class TransactionService {
 
             updateAccountBalance(account, transactionMessage);
             bankAccountRepository.save(account);
+            accountStateCache.putAfterCommit(account);
 
             TransactionEntity savedTransaction = transactionRepository.save(transactionEntity);
             Long savedTransactionId = savedTransaction.getId();
 
             if (createOutbox) {
-                String payload = createEventPayload(savedTransaction);
-
-                OutboxMessage event = new OutboxMessage();
-                event.setAggregateType("Transaction");
-                event.setAggregateId(savedTransactionId.toString());
-                event.setEventType("MoneyTransferCompleted");
-                event.setPayload(payload);
+                OutboxMessage event = outboxEventFactory.createTransferCompletedEvent(savedTransaction);
 
                 outboxMessageRepository.save(event);
+                outboxNotifier.notifyPending();
                 log.info("Outbox создано для транзакции: {}", savedTransactionId);
             }
 
-            if ("exactly-once".equals(deliveryMode)) {
-                processedTransactions.put(transactionId, true);
+            if (exactlyOnce) {
+                idempotencyStore.markProcessed(transactionId);
             }
 
-            long duration = System.currentTimeMillis() - startTime;
             metricsService.getSingleProcessingMetrics().incrementSuccessfulTransactions();
-            metricsService.recordSingleTransactionTime(duration);
+            metricsService.recordSingleTransactionTime(System.nanoTime() - startTime);
 
-            evictTransactionCaches(accountId, transactionId);
+            transactionHistoryCache.appendAfterCommit(accountId, transactionMapper.toHistoryEntry(savedTransaction));
 
+        } catch (OptimisticLockingFailureException e) {
+            // Конфликт версий счета повторяет AccountUpdateRetrier
+            throw e;
         } catch (Exception e) {
-            long duration = System.currentTimeMillis() - startTime;
+            long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
             metricsService.getSingleProcessingMetrics().incrementFailedTransactions();
 
             log.error("[Single] Ошибка обработки транзакции: transactionId={}, duration={}ms",
@@ -130,29 +182,47 @@ public class TransactionService {
         }
     }
 
-    public String createEventPayload(TransactionEntity transaction) {
+    /**
+     * Применяет транзакцию через ledger с единственным писателем на счет.
+     * Ожидает фиксации группы, в которую попала транзакция, чтобы сохранить семантику подтверждения Kafka.
+     * Отметка идемпотентности для exactly-once пишется в той же транзакции, что и группа;
+     * повторная доставка, пришедшая до этой фиксации, отсекается в шарде
+     *
+     * @param transactionMessage сообщение транзакции из Kafka
+     * @param exactlyOnce отметить транзакцию обработанной
+     * @param createOutbox флаг для создания сообщения в outbox
+     * @param startTime время начала обработки по System.nanoTime
+     */
+    private void processTransactionThroughLedger(TransactionMessage transactionMessage, boolean exactlyOnce,
+                                                 boolean createOutbox, long startTime) {
+        Long transactionId = transactionMessage.getId();
+
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
-
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("id", transaction.getId());
-            payload.put("value", transaction.getValue());
-            payload.put("type", transaction.getType() != null ? transaction.getType().name() : null);
-            payload.put("category", transaction.getCategory());
-            payload.put("createdDate", transaction.getCreatedDate().toString());
-            payload.put("sourceAccount", transaction.getSourceAccount());
-            payload.put("targetAccount", transaction.getTargetAccount());
-            payload.put("bankAccountId", transaction.getBankAccountEntity() != null ?
-                    transaction.getBankAccountEntity().getId() : null);
-
-            return objectMapper.writeValueAsString(payload);
-        }
-        catch (Exception e) {
-            log.error("Ошибка создания payload для транзакции {}: {}", transaction.getId(), e.getMessage(), e);
-            throw new RuntimeException("Failed to create outbox payload for transaction: " + transaction.getId(), e);
+            ledgerEngine.submitAndAwait(transactionMessage, createOutbox, exactlyOnce);
+
+            metricsService.getSingleProcessingMetrics().incrementSuccessfulTransactions();
+            metricsService.recordSingleTransactionTime(System.nanoTime() - startTime);
+
+        } catch (ExecutionException e) {
+            metricsService.getSingleProcessingMetrics().incrementFailedTransactions();
+            log.error("[Ledger] Ошибка обработки транзакции: transactionId={}", transactionId, e.getCause());
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Ledger processing failed", e.getCause());
+        } catch (TimeoutException e) {
+            metricsService.getSingleProcessingMetrics().incrementFailedTransactions();
+            throw new IllegalStateException("Превышено время ожидания ledger: transactionId=" + transactionId, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Прервано ожидание ledger: transactionId=" + transactionId, e);
         }
     }
 
+    public String createEventPayload(TransactionEntity transaction) {
+        return outboxEventFactory.createEventPayload(transaction);
+    }
+
     /**
      * Генерирует указанное количество транзакций и отправляет их в Kafka.
      * Сохраняет сгенерированные транзакции в БД после успешной отправки в Kafka
@@ -165,6 +235,7 @@ public class TransactionService {
     @Transactional
     public List<TransactionGenerateRequest> generateTransactions(int count, String deliveryMode) {
         List<TransactionGenerateRequest> transactions = new ArrayList<>();
+        List<TransactionMessage> messages = new ArrayList<>(count);
 
         Set<Long> affectedAccountIds = new HashSet<>();
         List<BankAccountEntity> existingAccounts = bankAccountRepository.findAll();
@@ -189,16 +260,16 @@ public class TransactionService {
             TransactionEntity transactionEntity = transactionMapper.toEntity(transactionGenerateRequest);
             transactionEntity.setBankAccountEntity(randomAccount);
 
-            TransactionMessage message = transactionMapper.toMessage(transactionEntity);
-
-            transactionKafkaProducer.sendWithDeliveryMode(message, transactionGenerateRequest.getAccountId().toString(), deliveryMode);
+            messages.add(transactionMapper.toMessage(transactionEntity));
 
             TransactionEntity savedTransaction = transactionRepository.save(transactionEntity);
-            Long transactionId = savedTransaction.getId();
-
-            evictTransactionCaches(accountId, transactionId);
+            transactionHistoryCache.appendAfterCommit(accountId, transactionMapper.toHistoryEntry(savedTransaction));
         }
 
+        transactionKafkaProducer.sendBatch(messages, deliveryMode)
+                .thenAccept(delivered -> log.info("Отправлено в Kafka {}/{} сгенерированных транзакций в режиме {}",
+                        delivered, messages.size(), deliveryMode));
+
         log.info("Сгенерировано {} транзакций.", count);
         return transactions;
     }
@@ -212,11 +283,27 @@ public class TransactionService {
      */
     @Transactional
     public boolean processTransactionBatch(List<TransactionMessage> transactions, String deliveryMode) {
-        long batchStartTime = System.currentTimeMillis();
+        return processTransactionBatch(transactions, deliveryMode, BatchIngestMode.JDBC);
+    }
+
+    /**
+     * Обрабатывает пакет транзакций с выбранным способом записи в БД.
+     * Счета пакета блокируются до проверок (SELECT ... FOR UPDATE в порядке id),
+     * изменения балансов суммируются в памяти и применяются одним обновлением на счет
+     *
+     * @param transactions список сообщений транзакций из Kafka
+     * @param deliveryMode режим доставки
+     * @param ingestMode способ записи: JDBC batch или COPY FROM STDIN
+     * @return true если обработана хотя бы одна транзакция из пакета, иначе false
+     */
+    @Transactional
+    public boolean processTransactionBatch(List<TransactionMessage> transactions, String deliveryMode,
+                                           BatchIngestMode ingestMode) {
+        long batchStartTime = System.nanoTime();
         int batchSize = transactions.size();
         int successfulTransactions = 0;
 
-        log.info("Начало обработки батча: {} транзакций, режим: {}", batchSize, deliveryMode);
+        log.info("Начало обработки батча: {} транзакций, режим: {}, запись: {}", batchSize, deliveryMode, ingestMode);
 
         try {
             List<Long> accountIds = transactions.stream()
@@ -224,13 +311,17 @@ public class TransactionService {
                     .distinct()
                     .collect(Collectors.toList());
 
-            Map<Long, BankAccountEntity> accountsMap = bankAccountRepository.findAllById(accountIds)
+            // Блокировка строк до проверок: параллельные списания не изменят баланс и статус между
+            // проверкой в памяти и применением суммарного изменения
+            Map<Long, BankAccountEntity> accountsMap = bankAccountRepository.findAllByIdForUpdate(accountIds)
                     .stream()
                     .collect(Collectors.toMap(BankAccountEntity::getId, account -> account));
 
+            BatchWriteState writeState = new BatchWriteState(batchSize);
+
             for (TransactionMessage transaction : transactions) {
                 try {
-                    if (processSingleTransactionInBatch(transaction, deliveryMode, accountsMap)) {
+                    if (processSingleTransactionInBatch(transaction, deliveryMode, accountsMap, writeState)) {
                         successfulTransactions++;
                     }
                 } catch (Exception e) {
@@ -239,9 +330,33 @@ public class TransactionService {
                 }
             }
 
-            long batchDuration = System.currentTimeMillis() - batchStartTime;
+            List<TransactionMessage> acceptedTransactions = writeState.acceptedTransactions;
+            acceptedTransactions.sort(Comparator.comparing(TransactionMessage::getBankAccountId));
+            long[] insertedIds = null;
+            if (ingestMode == BatchIngestMode.COPY) {
+                transactionCopyRepository.copyTransactions(acceptedTransactions);
+                transactionCopyRepository.applyBalanceDeltas(writeState.balanceDeltas);
+            } else {
+                insertedIds = transactionBatchRepository.insertTransactions(acceptedTransactions);
+                transactionBatchRepository.applyBalanceDeltas(writeState.balanceDeltas);
+            }
+
+            if ("exactly-once".equals(deliveryMode)) {
+                idempotencyStore.markProcessed(writeState.transactionIds);
+            }
+
+            accountsMap.keySet().forEach(ledgerEngine::invalidate);
+            accountStateCache.refreshAfterCommit(writeState.balanceDeltas.keySet());
+            if (insertedIds != null) {
+                transactionHistoryCache.appendAfterCommit(historyEntries(acceptedTransactions, insertedIds));
+            } else {
+                transactionHistoryCache.evictAfterCommit(writeState.balanceDeltas.keySet());
+            }
+
+            long batchDurationNanos = System.nanoTime() - batchStartTime;
+            long batchDuration = TimeUnit.NANOSECONDS.toMillis(batchDurationNanos);
             metricsService.getBatchProcessingMetrics().incrementSuccessfulBatches();
-            metricsService.recordBatchProcessingTime(batchDuration, batchSize);
+            metricsService.recordBatchProcessingTime(batchDurationNanos, batchSize);
 
             log.info("[Batch] Батч обработан: successful={}/{} transactions, duration={}ms, successRate={}%",
                     successfulTransactions, batchSize, batchDuration,
@@ -250,7 +365,7 @@ public class TransactionService {
             return successfulTransactions > 0;
 
         } catch (Exception e) {
-            long batchDuration = System.currentTimeMillis() - batchStartTime;
+            long batchDuration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStartTime);
             metricsService.getBatchProcessingMetrics().incrementFailedBatches();
             log.error("[Batch] Критическая ошибка обработки батча: transactions={}, duration={}ms",
                     batchSize, batchDuration, e);
@@ -260,20 +375,24 @@ public class TransactionService {
 
     /**
      * Обрабатывает одиночную транзакцию в рамках пакетной обработки.
-     * Выполняет проверку существования счета и обновление баланса
+     * Выполняет проверку существования счета и баланса, не обращаясь к БД:
+     * принятая транзакция добавляется в пакет на вставку, а изменение баланса суммируется по счету
      *
      * @param transaction сообщение транзакции из Kafka
      * @param deliveryMode режим доставки
      * @param accountsMap мапа предзагруженных счетов для оптимизации
+     * @param writeState накопленные изменения батча
      * @return true если транзакция успешно обработана, false если пропущена
      */
     private boolean processSingleTransactionInBatch(TransactionMessage transaction, String deliveryMode,
-                                                    Map<Long, BankAccountEntity> accountsMap) {
+                                                    Map<Long, BankAccountEntity> accountsMap,
+                                                    BatchWriteState writeState) {
         Long transactionId = transaction.getId();
         Long accountId = transaction.getBankAccountId();
 
         try {
-            if ("exactly-once".equals(deliveryMode) && processedTransactions.containsKey(transactionId)) {
+            if ("exactly-once".equals(deliveryMode) && (writeState.transactionIds.contains(transactionId)
+                    || idempotencyStore.isProcessed(transactionId))) {
                 log.debug("Дубликат в батче: transactionId={}", transactionId);
                 metricsService.getBatchProcessingMetrics().incrementDuplicateTransactions();
                 return true;
@@ -294,16 +413,17 @@ public class TransactionService {
                 return false;
             }
 
-            TransactionEntity transactionEntity = transactionMapper.toEntity(transaction);
-            transactionEntity.setBankAccountEntity(account);
-
-            updateAccountBalance(account, transaction);
-            transactionRepository.save(transactionEntity);
-
-            if ("exactly-once".equals(deliveryMode)) {
-                processedTransactions.put(transactionId, true);
+            if (transaction.getValue() == null || transaction.getCreatedDate() == null) {
+                log.warn("Неполные данные транзакции, пропускаем: transactionId={}, accountId={}",
+                        transactionId, accountId);
+                metricsService.getBatchProcessingMetrics().incrementFailedTransactions();
+                return false;
             }
 
+            BigDecimal currentBalance = writeState.balances.getOrDefault(accountId, account.getBalance());
+            BigDecimal newBalance = calculateNewBalance(currentBalance, transaction, accountId);
+            writeState.accept(transaction, currentBalance, newBalance);
+
             metricsService.getBatchProcessingMetrics().incrementSuccessfulTransactions();
             return true;
 
@@ -324,43 +444,64 @@ public class TransactionService {
      * @throws IllegalArgumentException если недостаточно средств или неизвестный тип транзакции
      */
     private void updateAccountBalance(BankAccountEntity account, TransactionMessage transaction) {
+        account.setBalance(calculateNewBalance(account.getBalance(), transaction, account.getId()));
+    }
+
+    /**
+     * Вычисляет новый баланс счета после применения транзакции
+     *
+     * @param currentBalance текущий баланс счета
+     * @param transaction сообщение транзакции с данными операции
+     * @param accountId идентификатор счета для сообщений об ошибках
+     * @return новый баланс
+     * @throws IllegalArgumentException если недостаточно средств или неизвестный тип транзакции
+     */
+    private BigDecimal calculateNewBalance(BigDecimal currentBalance, TransactionMessage transaction, Long accountId) {
         BigDecimal amount = transaction.getValue();
-        BigDecimal newBalance;
 
         if (transaction.getType() == TransactionType.DEPOSIT) {
-            newBalance = account.getBalance().add(amount);
+            return currentBalance.add(amount);
         } else if (transaction.getType() == TransactionType.WITHDRAWAL) {
-            if (account.getBalance().compareTo(amount) < 0) {
-                throw new IllegalArgumentException("Недостаточно средств на счете: " + account.getId());
+            if (currentBalance.compareTo(amount) < 0) {
+                throw new IllegalArgumentException("Недостаточно средств на счете: " + accountId);
             }
-            newBalance = account.getBalance().subtract(amount);
+            return currentBalance.subtract(amount);
         } else {
             throw new IllegalArgumentException("Неизвестный тип транзакции: " + transaction.getType());
         }
-
-        account.setBalance(newBalance);
     }
 
     /**
-     * Получает все транзакции для указанного счета.
+     * Получает все транзакции для указанного счета из кэша истории.
      *
      * @param accountId идентификатор счета
-     * @return список DTO транзакций для указанного счета
+     * @return список DTO транзакций для указанного счета по возрастанию id
      */
-    @Cacheable(value = "transactionsCache", key = "'account_' + #accountId")
     public List<TransactionResponse> getAccountTransactions(Long accountId) {
         log.info("Получение транзакций для счета ID: {}", accountId);
 
-        List<TransactionEntity> transactionEntities = transactionRepository.findByAccountId(accountId);
-
-        List<TransactionResponse> response = transactionEntities.stream()
-                .map(transactionMapper::toResponse)
-                .collect(Collectors.toList());
+        List<TransactionResponse> response = transactionHistoryCache.getAll(accountId);
 
         log.info("Найдено {} транзакций для счета ID {}", response.size(), accountId);
         return response;
     }
 
+    /**
+     * Получает страницу истории транзакций счета от новых к старым по ключу id.
+     *
+     * @param accountId идентификатор счета
+     * @param beforeId вернуть транзакции с id меньше этого (nextBeforeId предыдущей страницы); null — с последней
+     * @param limit размер страницы
+     * @return страница DTO транзакций и ключ следующей страницы
+     * @throws ValidationException если размер страницы вне допустимого диапазона
+     */
+    public TransactionHistoryPage getAccountTransactionsPage(Long accountId, Long beforeId, int limit) {
+        if (limit < 1 || limit > maxHistoryPageSize) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + maxHistoryPageSize);
+        }
+        return transactionHistoryCache.getPage(accountId, beforeId, limit);
+    }
+
     /**
      * Получает отфильтрованный список транзакций с поддержкой пагинации.
      *
@@ -387,15 +528,90 @@ public class TransactionService {
     }
 
     /**
-     * Вспомогательный метод для инвалидации кэша через идентификаторы аккаунта и транзакций
-     * @param accountId идентификатор аккаунта
-     * @param transactionId идентификатор транзакции
+     * Получает страницу отфильтрованных транзакций по ключу (date, id) от новых к старым.
+     * В отличие от OFFSET пагинации стоимость страницы не зависит от ее номера; подсчет
+     * всех подходящих транзакций выполняется только по запросу.
+     *
+     * @param accountId идентификатор счета для фильтрации (опционально)
+     * @param type тип транзакции для фильтрации (опционально)
+     * @param category категория транзакции для фильтрации (опционально)
+     * @param startDate начальная дата для фильтрации по периоду (опционально)
+     * @param cursor nextCursor предыдущей страницы с теми же фильтрами; null — первая страница
+     * @param size размер страницы
+     * @param withCount подсчитать число всех подходящих транзакций
+     * @return страница DTO транзакций и ключ продолжения
+     * @throws ValidationException если размер страницы вне допустимого диапазона или ключ некорректен
      */
-    private void evictTransactionCaches(Long accountId, Long transactionId) {
-        Cache cache = cacheManager.getCache("transactionsCache");
-        if (cache != null) {
-            cache.evict("account_" + accountId);
-            cache.evict("transaction_" + transactionId);
+    public TransactionCursorPage getFilteredTransactionsSeek(Long accountId, TransactionType type,
+                                                             String category, LocalDateTime startDate,
+                                                             String cursor, int size, boolean withCount) {
+        if (size < 1 || size > maxSeekPageSize) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + maxSeekPageSize);
+        }
+        String accountIdStr = accountId != null ? accountId.toString() : null;
+        String typeStr = type != null ? type.name() : null;
+        String startDateStr = startDate != null ? startDate.toString() : null;
+        Pageable limit = PageRequest.ofSize(size + 1);
+
+        List<TransactionEntity> transactionEntities;
+        if (cursor == null || cursor.isEmpty()) {
+            transactionEntities = transactionRepository.findWithFiltersSeek(
+                    accountIdStr, typeStr, category, startDateStr, limit);
+        } else {
+            TransactionCursor after = TransactionCursor.decode(cursor);
+            transactionEntities = transactionRepository.findWithFiltersSeekAfter(
+                    accountIdStr, typeStr, category, startDateStr, after.date(), after.id(), limit);
+        }
+
+        boolean hasNext = transactionEntities.size() > size;
+        List<TransactionEntity> page = hasNext ? transactionEntities.subList(0, size) : transactionEntities;
+        String nextCursor = hasNext ? TransactionCursor.of(page.get(size - 1)).encode() : null;
+        Long totalCount = withCount
+                ? transactionRepository.countWithFiltersNative(accountIdStr, typeStr, category, startDateStr)
+                : null;
+
+        return new TransactionCursorPage(page.stream().map(transactionMapper::toResponse).toList(),
+                nextCursor, totalCount);
+    }
+
+    /**
+     * Группирует вставленные пакетом транзакции по счетам для кэша истории.
+     * Идентификаторы выделяются из последовательности по порядку вставки, поэтому записи
+     * каждого счета уже идут по возрастанию id
+     *
+     * @param transactions транзакции в порядке вставки
+     * @param ids идентификаторы вставленных строк в том же порядке
+     */
+    private Map<Long, List<TransactionResponse>> historyEntries(List<TransactionMessage> transactions, long[] ids) {
+        Map<Long, List<TransactionResponse>> entries = new LinkedHashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            TransactionMessage transaction = transactions.get(i);
+            TransactionResponse entry = transactionMapper.toHistoryEntry(transaction);
+            entry.setId(ids[i]);
+            entries.computeIfAbsent(transaction.getBankAccountId(), accountId -> new ArrayList<>()).add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Изменения батча, накопленные в памяти до пакетной записи в БД
+     */
+    private static class BatchWriteState {
+        private final Map<Long, BigDecimal> balances = new HashMap<>();
+        private final Map<Long, BigDecimal> balanceDeltas = new TreeMap<>();
+        private final Set<Long> transactionIds = new HashSet<>();
+        private final List<TransactionMessage> acceptedTransactions;
+
+        private BatchWriteState(int batchSize) {
+            this.acceptedTransactions = new ArrayList<>(batchSize);
+        }
+
+        private void accept(TransactionMessage transaction, BigDecimal currentBalance, BigDecimal newBalance) {
+            Long accountId = transaction.getBankAccountId();
+            balances.put(accountId, newBalance);
+            balanceDeltas.merge(accountId, newBalance.subtract(currentBalance), BigDecimal::add);
+            transactionIds.add(transaction.getId());
+            acceptedTransactions.add(transaction);
         }
     }
 }
@@ -0,0 +1,19 @@
+package gigabank.accountmanagement.service.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Зафиксированное состояние счета: баланс, блокировка и версия строки bank_account.
+ * Версия увеличивается каждым изменением счета, поэтому из двух состояний новее то, у которого она больше
+ */
+@Getter
+@AllArgsConstructor
+public class AccountState {
+    private final Long accountId;
+    private final BigDecimal balance;
+    private final boolean blocked;
+    private final long version;
+}
@@ -0,0 +1,199 @@
+package gigabank.accountmanagement.service.cache;
+
+import gigabank.accountmanagement.exception.AccountNotFoundException;
+import gigabank.accountmanagement.model.BankAccountEntity;
+import gigabank.accountmanagement.repository.BankAccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-through кэш состояния счета в Redis: хэш gigabank:account-state:{id} с полями version, balance, blocked.
+ * Запись выполняется Lua скриптом только при версии больше сохраненной, поэтому запоздавшая запись
+ * с другого узла не затирает более новое состояние. Состояние пишется после фиксации транзакции БД,
+ * в которой изменен счет: из сущности с версией, увеличенной при flush, либо, для пакетных UPDATE,
+ * одним чтением затронутых счетов после фиксации. Ошибки Redis не влияют на запись в БД:
+ * чтение в этом случае идет в БД, а запись пропускается до следующего изменения счета или TTL
+ */
+@Slf4j
+@Component
+public class AccountStateCache {
+    private static final RedisScript<Long> COMPARE_AND_SET = new DefaultRedisScript<>("""
+            local current = redis.call('HGET', KEYS[1], 'version')
+            if current and tonumber(current) >= tonumber(ARGV[1]) then
+                return 0
+            end
+            redis.call('HSET', KEYS[1], 'version', ARGV[1], 'balance', ARGV[2], 'blocked', ARGV[3])
+            redis.call('PEXPIRE', KEYS[1], ARGV[4])
+            return 1
+            """, Long.class);
+
+    private static final List<Object> FIELDS = List.of("version", "balance", "blocked");
+
+    private final StringRedisTemplate redisTemplate;
+    private final BankAccountRepository bankAccountRepository;
+    private final boolean enabled;
+    private final String keyPrefix;
+    private final long ttlMillis;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter staleWrites;
+
+    public AccountStateCache(StringRedisTemplate redisTemplate,
+                             BankAccountRepository bankAccountRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.cache.account-state.enabled:true}") boolean enabled,
+                             @Value("${app.cache.account-state.key-prefix:gigabank:account-state:}") String keyPrefix,
+                             @Value("${app.cache.account-state.ttl-seconds:3600}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.bankAccountRepository = bankAccountRepository;
+        this.enabled = enabled;
+        this.keyPrefix = keyPrefix;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.hits = Counter.builder("gigabank.account.state").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("gigabank.account.state").tag("result", "miss").register(meterRegistry);
+        this.staleWrites = Counter.builder("gigabank.account.state").tag("result", "stale_write").register(meterRegistry);
+    }
+
+    /**
+     * Возвращает состояние счета из кэша, при промахе читает его из БД и записывает в кэш
+     *
+     * @throws AccountNotFoundException если счет не найден
+     */
+    public AccountState get(Long accountId) {
+        Optional<AccountState> cached = getCached(accountId);
+        if (cached.isPresent()) {
+            hits.increment();
+            return cached.get();
+        }
+
+        misses.increment();
+        AccountState state = bankAccountRepository.findStateById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+        put(state);
+        return state;
+    }
+
+    public Optional<AccountState> getCached(Long accountId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        try {
+            List<Object> values = redisTemplate.opsForHash().multiGet(key(accountId), FIELDS);
+            if (values.get(0) == null || values.get(1) == null || values.get(2) == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new AccountState(accountId, new BigDecimal((String) values.get(1)),
+                    "1".equals(values.get(2)), Long.parseLong((String) values.get(0))));
+        } catch (Exception e) {
+            log.warn("Не удалось прочитать состояние счета {} из Redis: {}", accountId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Записывает состояние, если его версия новее сохраненной
+     *
+     * @return true, если состояние записано
+     */
+    public boolean put(AccountState state) {
+        if (!enabled) {
+            return false;
+        }
+
+        try {
+            Long written = redisTemplate.execute(COMPARE_AND_SET, List.of(key(state.getAccountId())),
+                    String.valueOf(state.getVersion()), state.getBalance().toPlainString(),
+                    state.isBlocked() ? "1" : "0", String.valueOf(ttlMillis));
+            if (written == null || written == 0) {
+                staleWrites.increment();
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Не удалось записать состояние счета {} в Redis: {}", state.getAccountId(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Записывает состояние сущности после фиксации текущей транзакции; версия к этому моменту
+     * уже увеличена Hibernate при flush
+     */
+    public void putAfterCommit(BankAccountEntity account) {
+        afterCommit(() -> put(new AccountState(account.getId(), account.getBalance(), account.isBlocked(),
+                account.getVersion())));
+    }
+
+    /**
+     * Перечитывает состояние счетов, измененных пакетным UPDATE, после фиксации текущей транзакции
+     */
+    public void refreshAfterCommit(Collection<Long> accountIds) {
+        if (!enabled || accountIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(accountIds);
+        afterCommit(() -> {
+            try {
+                bankAccountRepository.findStatesByIdIn(ids).forEach(this::put);
+            } catch (Exception e) {
+                log.warn("Не удалось обновить состояние {} счетов: {}", ids.size(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Удаляет состояние закрытого счета после фиксации текущей транзакции
+     */
+    public void evictAfterCommit(Long accountId) {
+        afterCommit(() -> evict(accountId));
+    }
+
+    public void evict(Long accountId) {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            redisTemplate.delete(key(accountId));
+        } catch (Exception e) {
+            log.warn("Не удалось удалить состояние счета {} из Redis: {}", accountId, e.getMessage());
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!enabled) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private String key(Long accountId) {
+        return keyPrefix + accountId;
+    }
+}
@@ -0,0 +1,57 @@
+package gigabank.accountmanagement.service.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Сериализатор значений кэшей Redis: DTO ответов и их списки пишутся в бинарном формате CacheValueCodec,
+ * остальные типы — резервным JSON сериализатором. При чтении формат распознается по первому байту,
+ * поэтому записи, сохраненные в JSON до перехода, читаются без сброса кэша.
+ * binary=false оставляет запись в JSON при сохранении чтения обоих форматов — используется на время
+ * rolling upgrade. Значение неизвестной версии схемы (записанное более новым узлом) считается промахом
+ * и перезаписывается после загрузки из базы
+ */
+@Slf4j
+public class BinaryCacheValueSerializer implements RedisSerializer<Object> {
+    private final RedisSerializer<Object> fallback;
+    private final boolean binary;
+    private final int compressionThreshold;
+
+    /**
+     * @param compressionThreshold значения длиннее этого числа байт сжимаются LZ4; 0 отключает сжатие
+     */
+    public BinaryCacheValueSerializer(RedisSerializer<Object> fallback, boolean binary, int compressionThreshold) {
+        this.fallback = fallback;
+        this.binary = binary;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (binary && value != null && CacheValueCodec.supports(value)) {
+            return CacheValueCodec.encode(value, compressionThreshold);
+        }
+        return fallback.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (!CacheValueCodec.isBinary(bytes)) {
+            return fallback.deserialize(bytes);
+        }
+        if (CacheValueCodec.version(bytes) != CacheValueCodec.VERSION) {
+            log.debug("Значение кэша версии {} не поддерживается, считается промахом", CacheValueCodec.version(bytes));
+            return null;
+        }
+
+        try {
+            return CacheValueCodec.decode(bytes);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Ошибка чтения бинарного значения кэша", e);
+        }
+    }
+}
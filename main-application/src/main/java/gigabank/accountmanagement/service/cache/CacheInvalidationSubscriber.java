@@ -0,0 +1,71 @@
+package gigabank.accountmanagement.service.cache;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Подписка локальных кэшей TwoTierCacheManager на канал инвалидаций.
+ * Контейнер подписки не является бином и не стартует вместе с контекстом: подписка выполняется после запуска
+ * приложения, а недоступный Redis не мешает старту — подписка повторяется каждые recovery-interval-ms.
+ * Пока подписки нет, локальные записи устаревают не дольше ttl-seconds локального уровня
+ */
+@Slf4j
+public class CacheInvalidationSubscriber {
+    private final RedisMessageListenerContainer container;
+    private final String channel;
+
+    private volatile boolean active;
+
+    public CacheInvalidationSubscriber(RedisConnectionFactory connectionFactory, TwoTierCacheManager cacheManager,
+                                       String channel) {
+        this.channel = channel;
+        this.container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(channel));
+        container.afterPropertiesSet();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        active = true;
+        subscribe();
+    }
+
+    /**
+     * Повторяет подписку, если Redis был недоступен при старте или контейнер потерял соединение
+     */
+    @Scheduled(initialDelayString = "${app.cache.invalidation-listener.recovery-interval-ms:5000}",
+            fixedDelayString = "${app.cache.invalidation-listener.recovery-interval-ms:5000}")
+    public void ensureSubscribed() {
+        if (active && !container.isListening()) {
+            subscribe();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        active = false;
+        container.destroy();
+    }
+
+    private synchronized void subscribe() {
+        if (!active || container.isListening()) {
+            return;
+        }
+        try {
+            // После неудачной попытки контейнер остается в состоянии running и повторно не подключается сам
+            container.stop();
+            container.start();
+            log.info("[Cache] Подписка на канал инвалидаций {} установлена", channel);
+        } catch (RuntimeException e) {
+            log.warn("[Cache] Redis недоступен, подписка на канал инвалидаций {} будет повторена: {}",
+                    channel, e.getMessage());
+        }
+    }
+}
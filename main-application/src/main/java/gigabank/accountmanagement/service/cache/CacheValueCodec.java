@@ -0,0 +1,366 @@
+package gigabank.accountmanagement.service.cache;
+
+import gigabank.accountmanagement.dto.response.BankAccountResponse;
+import gigabank.accountmanagement.dto.response.TransactionResponse;
+import gigabank.accountmanagement.dto.response.UserAccountResponse;
+import gigabank.accountmanagement.kafka.serialization.BinaryMessageCodec.Writer;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static gigabank.accountmanagement.kafka.serialization.BinaryMessageCodec.fromEpochMicros;
+import static gigabank.accountmanagement.kafka.serialization.BinaryMessageCodec.has;
+import static gigabank.accountmanagement.kafka.serialization.BinaryMessageCodec.presence;
+import static gigabank.accountmanagement.kafka.serialization.BinaryMessageCodec.readDecimal;
+import static gigabank.accountmanagement.kafka.serialization.BinaryMessageCodec.readString;
+import static gigabank.accountmanagement.kafka.serialization.BinaryMessageCodec.readVarInt;
+import static gigabank.accountmanagement.kafka.serialization.BinaryMessageCodec.toEpochMicros;
+import static gigabank.accountmanagement.kafka.serialization.BinaryMessageCodec.typeCode;
+import static gigabank.accountmanagement.kafka.serialization.BinaryMessageCodec.typeOf;
+import static gigabank.accountmanagement.kafka.serialization.BinaryMessageCodec.writeDecimal;
+
+/**
+ * Бинарный формат значений кэша: TransactionResponse, BankAccountResponse, UserAccountResponse и их списки.
+ * Заголовок: магический байт, версия схемы, флаги (бит 0 — тело сжато LZ4); далее вид значения и поля
+ * с битовой маской заполненных, в кодировке BinaryMessageCodec. Сжатое тело предваряется
+ * его исходной длиной varint. Первый байт JSON никогда не совпадает с MAGIC
+ */
+public final class CacheValueCodec {
+    public static final byte MAGIC = (byte) 0xCA;
+    public static final byte VERSION = 1;
+
+    static final byte FLAG_LZ4 = 1;
+
+    private static final byte KIND_TRANSACTION = 1;
+    private static final byte KIND_ACCOUNT = 2;
+    private static final byte KIND_USER = 3;
+    private static final byte KIND_TRANSACTION_LIST = 4;
+    private static final byte KIND_ACCOUNT_LIST = 5;
+    private static final byte KIND_USER_LIST = 6;
+
+    private static final int HEADER_SIZE = 3;
+    private static final int BLOCKED_BIT = 7;
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private CacheValueCodec() {
+    }
+
+    /**
+     * Список поддерживается, если все его элементы не null и одного из поддерживаемых типов
+     */
+    public static boolean supports(Object value) {
+        if (value instanceof List<?> list) {
+            return kindOfList(list) != 0;
+        }
+        return value instanceof TransactionResponse || value instanceof UserAccountResponse
+                || value instanceof BankAccountResponse account && supportsAccount(account);
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= HEADER_SIZE && data[0] == MAGIC;
+    }
+
+    /**
+     * @return версия схемы бинарного значения
+     */
+    public static byte version(byte[] data) {
+        return data[1];
+    }
+
+    /**
+     * @param compressionThreshold тело длиннее этого числа байт сжимается LZ4, если так выходит короче;
+     *                             0 или меньше отключает сжатие
+     */
+    public static byte[] encode(Object value, int compressionThreshold) {
+        Writer writer = new Writer(256);
+        writer.writeByte(MAGIC);
+        writer.writeByte(VERSION);
+        writer.writeByte((byte) 0);
+        writeValue(writer, value);
+        byte[] plain = writer.toByteArray();
+
+        int bodyLength = plain.length - HEADER_SIZE;
+        if (compressionThreshold <= 0 || bodyLength <= compressionThreshold) {
+            return plain;
+        }
+
+        byte[] block = new byte[COMPRESSOR.maxCompressedLength(bodyLength)];
+        int blockLength = COMPRESSOR.compress(plain, HEADER_SIZE, bodyLength, block, 0, block.length);
+        if (blockLength + 5 >= bodyLength) {
+            return plain;
+        }
+
+        Writer compressed = new Writer(HEADER_SIZE + 5 + blockLength);
+        compressed.writeByte(MAGIC);
+        compressed.writeByte(VERSION);
+        compressed.writeByte(FLAG_LZ4);
+        compressed.writeVarInt(bodyLength);
+        compressed.writeBytes(Arrays.copyOf(block, blockLength));
+        return compressed.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException если заголовок или версия схемы не распознаны
+     */
+    public static Object decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new IllegalArgumentException("Неизвестный формат значения кэша");
+        }
+        if (data[1] != VERSION) {
+            throw new IllegalArgumentException("Неподдерживаемая версия схемы значения кэша: " + data[1]);
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data, HEADER_SIZE, data.length - HEADER_SIZE);
+            if ((data[2] & FLAG_LZ4) != 0) {
+                int bodyLength = readVarInt(buffer);
+                if (bodyLength < 0) {
+                    throw new IllegalArgumentException("Некорректная длина сжатого значения кэша: " + bodyLength);
+                }
+                byte[] body = new byte[bodyLength];
+                DECOMPRESSOR.decompress(data, buffer.position(), body, 0, bodyLength);
+                buffer = ByteBuffer.wrap(body);
+            }
+            return readValue(buffer);
+        } catch (BufferUnderflowException | LZ4Exception e) {
+            throw new IllegalArgumentException("Значение кэша повреждено или обрезано", e);
+        }
+    }
+
+    private static void writeValue(Writer writer, Object value) {
+        if (value instanceof TransactionResponse transaction) {
+            writer.writeByte(KIND_TRANSACTION);
+            writeTransaction(writer, transaction);
+        } else if (value instanceof BankAccountResponse account) {
+            writer.writeByte(KIND_ACCOUNT);
+            writeAccount(writer, account);
+        } else if (value instanceof UserAccountResponse user) {
+            writer.writeByte(KIND_USER);
+            writeUser(writer, user);
+        } else if (value instanceof List<?> list && kindOfList(list) != 0) {
+            byte kind = kindOfList(list);
+            writer.writeByte(kind);
+            writer.writeVarInt(list.size());
+            for (Object element : list) {
+                switch (kind) {
+                    case KIND_TRANSACTION_LIST -> writeTransaction(writer, (TransactionResponse) element);
+                    case KIND_ACCOUNT_LIST -> writeAccount(writer, (BankAccountResponse) element);
+                    default -> writeUser(writer, (UserAccountResponse) element);
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("Тип не поддерживается бинарным форматом кэша: "
+                    + (value != null ? value.getClass() : null));
+        }
+    }
+
+    private static Object readValue(ByteBuffer buffer) {
+        byte kind = buffer.get();
+        return switch (kind) {
+            case KIND_TRANSACTION -> readTransaction(buffer);
+            case KIND_ACCOUNT -> readAccount(buffer);
+            case KIND_USER -> readUser(buffer);
+            case KIND_TRANSACTION_LIST, KIND_ACCOUNT_LIST, KIND_USER_LIST -> readList(buffer, kind);
+            default -> throw new IllegalArgumentException("Неизвестный вид значения кэша: " + kind);
+        };
+    }
+
+    private static List<Object> readList(ByteBuffer buffer, byte kind) {
+        int size = readVarInt(buffer);
+        if (size > buffer.remaining()) {
+            throw new IllegalArgumentException("Некорректная длина списка в значении кэша: " + size);
+        }
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(switch (kind) {
+                case KIND_TRANSACTION_LIST -> readTransaction(buffer);
+                case KIND_ACCOUNT_LIST -> readAccount(buffer);
+                default -> readUser(buffer);
+            });
+        }
+        return list;
+    }
+
+    /**
+     * Пустой список кодируется как список транзакций: тип элементов при чтении не важен
+     *
+     * @return вид списка или 0, если список содержит null или элементы разных либо неподдерживаемых типов
+     */
+    private static byte kindOfList(List<?> list) {
+        if (list.isEmpty()) {
+            return KIND_TRANSACTION_LIST;
+        }
+        Object first = list.get(0);
+        byte kind;
+        if (first instanceof TransactionResponse) {
+            kind = KIND_TRANSACTION_LIST;
+        } else if (first instanceof BankAccountResponse) {
+            kind = KIND_ACCOUNT_LIST;
+        } else if (first instanceof UserAccountResponse) {
+            kind = KIND_USER_LIST;
+        } else {
+            return 0;
+        }
+        for (Object element : list) {
+            if (element == null || element.getClass() != first.getClass()
+                    || element instanceof BankAccountResponse account && !supportsAccount(account)) {
+                return 0;
+            }
+        }
+        return kind;
+    }
+
+    private static boolean supportsAccount(BankAccountResponse account) {
+        if (account.getTransactions() == null) {
+            return true;
+        }
+        // List.of и toList() бросают NPE на contains(null), поэтому null ищется перебором
+        for (TransactionResponse transaction : account.getTransactions()) {
+            if (transaction == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeTransaction(Writer writer, TransactionResponse transaction) {
+        int mask = presence(transaction.getId(), transaction.getValue(), transaction.getType(),
+                transaction.getCategory(), transaction.getCreatedDate(), transaction.getAccountId(),
+                transaction.getAccountOwnerName());
+        writer.writeByte((byte) mask);
+
+        if (transaction.getId() != null) {
+            writer.writeLong(transaction.getId());
+        }
+        if (transaction.getValue() != null) {
+            writeDecimal(writer, transaction.getValue());
+        }
+        if (transaction.getType() != null) {
+            writer.writeByte(typeCode(transaction.getType()));
+        }
+        if (transaction.getCategory() != null) {
+            writer.writeString(transaction.getCategory());
+        }
+        if (transaction.getCreatedDate() != null) {
+            writer.writeLong(toEpochMicros(transaction.getCreatedDate()));
+        }
+        if (transaction.getAccountId() != null) {
+            writer.writeLong(transaction.getAccountId());
+        }
+        if (transaction.getAccountOwnerName() != null) {
+            writer.writeString(transaction.getAccountOwnerName());
+        }
+    }
+
+    private static TransactionResponse readTransaction(ByteBuffer buffer) {
+        int mask = buffer.get() & 0xFF;
+        TransactionResponse transaction = new TransactionResponse();
+        transaction.setId(has(mask, 0) ? buffer.getLong() : null);
+        transaction.setValue(has(mask, 1) ? readDecimal(buffer) : null);
+        transaction.setType(has(mask, 2) ? typeOf(buffer.get()) : null);
+        transaction.setCategory(has(mask, 3) ? readString(buffer) : null);
+        transaction.setCreatedDate(has(mask, 4) ? fromEpochMicros(buffer.getLong()) : null);
+        transaction.setAccountId(has(mask, 5) ? buffer.getLong() : null);
+        transaction.setAccountOwnerName(has(mask, 6) ? readString(buffer) : null);
+        return transaction;
+    }
+
+    /**
+     * Флаг blocked хранится в старшем бите маски
+     */
+    private static void writeAccount(Writer writer, BankAccountResponse account) {
+        List<TransactionResponse> transactions = account.getTransactions();
+        int mask = presence(account.getId(), account.getAccountNumber(), account.getBalance(), account.getOwnerId(),
+                account.getOwnerName(), account.getOwnerEmail(), transactions);
+        if (account.isBlocked()) {
+            mask |= 1 << BLOCKED_BIT;
+        }
+        writer.writeByte((byte) mask);
+
+        if (account.getId() != null) {
+            writer.writeLong(account.getId());
+        }
+        if (account.getAccountNumber() != null) {
+            writer.writeString(account.getAccountNumber());
+        }
+        if (account.getBalance() != null) {
+            writeDecimal(writer, account.getBalance());
+        }
+        if (account.getOwnerId() != null) {
+            writer.writeLong(account.getOwnerId());
+        }
+        if (account.getOwnerName() != null) {
+            writer.writeString(account.getOwnerName());
+        }
+        if (account.getOwnerEmail() != null) {
+            writer.writeString(account.getOwnerEmail());
+        }
+        if (transactions != null) {
+            writer.writeVarInt(transactions.size());
+            for (TransactionResponse transaction : transactions) {
+                writeTransaction(writer, transaction);
+            }
+        }
+    }
+
+    private static BankAccountResponse readAccount(ByteBuffer buffer) {
+        int mask = buffer.get() & 0xFF;
+        BankAccountResponse account = new BankAccountResponse();
+        account.setId(has(mask, 0) ? buffer.getLong() : null);
+        account.setAccountNumber(has(mask, 1) ? readString(buffer) : null);
+        account.setBalance(has(mask, 2) ? readDecimal(buffer) : null);
+        account.setOwnerId(has(mask, 3) ? buffer.getLong() : null);
+        account.setOwnerName(has(mask, 4) ? readString(buffer) : null);
+        account.setOwnerEmail(has(mask, 5) ? readString(buffer) : null);
+        if (has(mask, 6)) {
+            int size = readVarInt(buffer);
+            if (size > buffer.remaining()) {
+                throw new IllegalArgumentException("Некорректная длина списка транзакций счета: " + size);
+            }
+            List<TransactionResponse> transactions = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                transactions.add(readTransaction(buffer));
+            }
+            account.setTransactions(transactions);
+        }
+        account.setBlocked(has(mask, BLOCKED_BIT));
+        return account;
+    }
+
+    private static void writeUser(Writer writer, UserAccountResponse user) {
+        int mask = presence(user.getId(), user.getName(), user.getEmail(), user.getPhoneNumber());
+        writer.writeByte((byte) mask);
+
+        if (user.getId() != null) {
+            writer.writeLong(user.getId());
+        }
+        if (user.getName() != null) {
+            writer.writeString(user.getName());
+        }
+        if (user.getEmail() != null) {
+            writer.writeString(user.getEmail());
+        }
+        if (user.getPhoneNumber() != null) {
+            writer.writeString(user.getPhoneNumber());
+        }
+    }
+
+    private static UserAccountResponse readUser(ByteBuffer buffer) {
+        int mask = buffer.get() & 0xFF;
+        UserAccountResponse user = new UserAccountResponse();
+        user.setId(has(mask, 0) ? buffer.getLong() : null);
+        user.setName(has(mask, 1) ? readString(buffer) : null);
+        user.setEmail(has(mask, 2) ? readString(buffer) : null);
+        user.setPhoneNumber(has(mask, 3) ? readString(buffer) : null);
+        return user;
+    }
+}
@@ -0,0 +1,524 @@
+package gigabank.accountmanagement.service.cache;
+
+import gigabank.accountmanagement.dto.response.TransactionHistoryPage;
+import gigabank.accountmanagement.dto.response.TransactionResponse;
+import gigabank.accountmanagement.mapper.TransactionMapper;
+import gigabank.accountmanagement.model.TransactionEntity;
+import gigabank.accountmanagement.repository.BankAccountRepository;
+import gigabank.accountmanagement.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кэш истории транзакций счета в Redis, разбитый на сегменты фиксированного размера.
+ * Записи хранятся по возрастанию id: позиция p лежит в списке сегмента p / segmentSize со смещением
+ * p % segmentSize. Хэш meta хранит число записей, последний id, первый id каждого сегмента и имя владельца
+ * счета — accountId и accountOwnerName одинаковы для всей истории и в записях не хранятся.
+ * Новая транзакция после фиксации дописывается в хвостовой сегмент Lua скриптом; транзакция с id
+ * меньше последнего (фиксация вне порядка id) сбрасывает историю счета, как и пакетная запись без id.
+ * Загрузка из БД сохраняется, только если счетчик dirty не изменился с начала чтения — дописывание
+ * в отсутствующую историю и сброс увеличивают его, поэтому загрузка не затрет транзакцию, зафиксированную
+ * во время чтения. Загружаются не больше maxEntries последних транзакций; более старые страницы
+ * читаются из БД. История, дописанная до 2 * maxEntries записей, сбрасывается и при следующем чтении
+ * загружается заново. Ключи счета используют общий hash tag {accountId}
+ */
+@Slf4j
+@Component
+public class TransactionHistoryCache {
+    private static final long DIRTY_TTL_MILLIS = 60_000;
+
+    private static final RedisScript<Long> APPEND = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                redis.call('INCR', KEYS[2])
+                redis.call('PEXPIRE', KEYS[2], ARGV[6])
+                return 0
+            end
+            local last = tonumber(redis.call('HGET', KEYS[1], 'last'))
+            if tonumber(ARGV[1]) == last then
+                return 0
+            end
+            local size = tonumber(ARGV[3])
+            local count = tonumber(redis.call('HGET', KEYS[1], 'count'))
+            if tonumber(ARGV[1]) < last or count >= tonumber(ARGV[7]) then
+                return -1
+            end
+            local segment = math.floor(count / size)
+            redis.call('RPUSH', ARGV[5] .. segment, ARGV[2])
+            if count % size == 0 then
+                redis.call('HSET', KEYS[1], 'f' .. segment, ARGV[1])
+            end
+            redis.call('HSET', KEYS[1], 'count', count + 1, 'last', ARGV[1])
+            for s = 0, segment do
+                redis.call('PEXPIRE', ARGV[5] .. s, ARGV[4])
+            end
+            redis.call('PEXPIRE', KEYS[1], ARGV[4])
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> STORE = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 or (redis.call('GET', KEYS[2]) or '0') ~= ARGV[7] then
+                return 0
+            end
+            local size = tonumber(ARGV[1])
+            local n = tonumber(ARGV[6])
+            local segments = math.ceil(n / size)
+            for s = 0, segments - 1 do
+                redis.call('DEL', ARGV[3] .. s)
+            end
+            local meta = {'count', n, 'last', n > 0 and ARGV[7 + n] or '0', 'complete', ARGV[4], 'owner', ARGV[5]}
+            for i = 1, n do
+                local p = i - 1
+                local segment = math.floor(p / size)
+                redis.call('RPUSH', ARGV[3] .. segment, ARGV[7 + n + i])
+                if p % size == 0 then
+                    table.insert(meta, 'f' .. segment)
+                    table.insert(meta, ARGV[7 + i])
+                end
+            end
+            redis.call('HSET', KEYS[1], unpack(meta))
+            for s = 0, segments - 1 do
+                redis.call('PEXPIRE', ARGV[3] .. s, ARGV[2])
+            end
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> INVALIDATE = new DefaultRedisScript<>("""
+            local count = tonumber(redis.call('HGET', KEYS[1], 'count') or '0')
+            local segments = math.ceil(count / tonumber(ARGV[1]))
+            for s = 0, segments - 1 do
+                redis.call('DEL', ARGV[2] .. s)
+            end
+            redis.call('DEL', KEYS[1])
+            redis.call('INCR', KEYS[2])
+            redis.call('PEXPIRE', KEYS[2], ARGV[3])
+            return 1
+            """, Long.class);
+
+    private static final RedisSerializer<Long> RESULT_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final TransactionRepository transactionRepository;
+    private final BankAccountRepository bankAccountRepository;
+    private final TransactionMapper transactionMapper;
+    private final boolean enabled;
+    private final String keyPrefix;
+    private final int segmentSize;
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter appends;
+    private final Counter resets;
+
+    public TransactionHistoryCache(StringRedisTemplate redisTemplate,
+                                   TransactionRepository transactionRepository,
+                                   BankAccountRepository bankAccountRepository,
+                                   TransactionMapper transactionMapper,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.cache.history.enabled:true}") boolean enabled,
+                                   @Value("${app.cache.history.key-prefix:gigabank:history:}") String keyPrefix,
+                                   @Value("${app.cache.history.segment-size:100}") int segmentSize,
+                                   @Value("${app.cache.history.max-entries:10000}") int maxEntries,
+                                   @Value("${app.cache.history.ttl-seconds:600}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.transactionRepository = transactionRepository;
+        this.bankAccountRepository = bankAccountRepository;
+        this.transactionMapper = transactionMapper;
+        this.enabled = enabled;
+        this.keyPrefix = keyPrefix;
+        this.segmentSize = segmentSize;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.hits = Counter.builder("gigabank.transaction.history").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("gigabank.transaction.history").tag("result", "miss").register(meterRegistry);
+        this.appends = Counter.builder("gigabank.transaction.history").tag("result", "append").register(meterRegistry);
+        this.resets = Counter.builder("gigabank.transaction.history").tag("result", "reset").register(meterRegistry);
+    }
+
+    /**
+     * Вся история счета по возрастанию id
+     */
+    public List<TransactionResponse> getAll(Long accountId) {
+        History history = cached(accountId);
+        if (history == null) {
+            history = load(accountId);
+            if (history.complete()) {
+                return history.entries();
+            }
+        } else if (history.complete()) {
+            List<TransactionResponse> entries = readRange(accountId, history, 0, history.count());
+            if (entries != null) {
+                hits.increment();
+                return entries;
+            }
+            invalidate(accountId);
+        }
+        return transactionRepository.findByAccountIdOrderById(accountId).stream()
+                .map(transactionMapper::toResponse)
+                .toList();
+    }
+
+    /**
+     * Страница истории от новых транзакций к старым
+     *
+     * @param beforeId вернуть транзакции с id меньше этого; null — начиная с последней
+     * @param limit число транзакций на странице
+     */
+    public TransactionHistoryPage getPage(Long accountId, Long beforeId, int limit) {
+        List<TransactionResponse> items = new ArrayList<>(limit);
+        History history = cached(accountId);
+        if (history == null) {
+            history = load(accountId);
+            takeNewest(history.entries(), beforeId, limit, items);
+        } else {
+            int end = beforeId == null ? history.count() : positionBefore(accountId, history, beforeId);
+            List<TransactionResponse> cached = end < 0 ? null
+                    : readRange(accountId, history, Math.max(0, end - limit), end);
+            if (cached == null) {
+                invalidate(accountId);
+                return pageFromDb(accountId, beforeId, limit);
+            }
+            hits.increment();
+            Collections.reverse(cached);
+            items.addAll(cached);
+        }
+
+        if (items.size() < limit && !history.complete()) {
+            Long below = items.isEmpty() ? beforeId : items.get(items.size() - 1).getId();
+            if (history.firstId() != null && (below == null || below > history.firstId())) {
+                below = history.firstId();
+            }
+            items.addAll(pageFromDb(accountId, below, limit - items.size()).getTransactions());
+        }
+        return page(items, limit);
+    }
+
+    /**
+     * Дописывает транзакцию в историю счета после фиксации текущей транзакции БД
+     *
+     * @param entry транзакция без accountId и accountOwnerName — они берутся из истории при чтении
+     */
+    public void appendAfterCommit(Long accountId, TransactionResponse entry) {
+        afterCommit(() -> append(accountId, entry));
+    }
+
+    /**
+     * Дописывает транзакции пакетной записи в истории их счетов после фиксации текущей транзакции БД
+     *
+     * @param entriesByAccount записи по счетам; записи каждого счета — по возрастанию id
+     */
+    public void appendAfterCommit(Map<Long, List<TransactionResponse>> entriesByAccount) {
+        if (!enabled || entriesByAccount.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> entriesByAccount.forEach((accountId, entries) ->
+                entries.forEach(entry -> append(accountId, entry))));
+    }
+
+    /**
+     * Сбрасывает историю счетов, в которые транзакции записаны без известных id, после фиксации
+     */
+    public void evictAfterCommit(Collection<Long> accountIds) {
+        if (!enabled || accountIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(accountIds);
+        afterCommit(() -> ids.forEach(this::invalidate));
+    }
+
+    public void append(Long accountId, TransactionResponse entry) {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            Long result = redisTemplate.execute(APPEND, RedisSerializer.byteArray(), RESULT_SERIALIZER,
+                    List.of(metaKey(accountId), dirtyKey(accountId)),
+                    bytes(entry.getId()), CacheValueCodec.encode(withoutAccount(entry), 0), bytes(segmentSize), bytes(ttlMillis),
+                    bytes(segmentPrefix(accountId)), bytes(DIRTY_TTL_MILLIS), bytes(2L * maxEntries));
+            if (result != null && result < 0) {
+                log.debug("Транзакция {} записана вне порядка id или история переполнена, история счета {} сброшена",
+                        entry.getId(), accountId);
+                invalidate(accountId);
+            } else if (result != null && result > 0) {
+                appends.increment();
+            }
+        } catch (Exception e) {
+            log.warn("Не удалось дописать транзакцию {} в историю счета {}: {}", entry.getId(), accountId, e.getMessage());
+            invalidate(accountId);
+        }
+    }
+
+    public void invalidate(Long accountId) {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            redisTemplate.execute(INVALIDATE, RedisSerializer.byteArray(), RESULT_SERIALIZER,
+                    List.of(metaKey(accountId), dirtyKey(accountId)),
+                    bytes(segmentSize), bytes(segmentPrefix(accountId)), bytes(DIRTY_TTL_MILLIS));
+            resets.increment();
+        } catch (Exception e) {
+            log.warn("Не удалось сбросить историю счета {}: {}", accountId, e.getMessage());
+        }
+    }
+
+    private History cached(Long accountId) {
+        if (!enabled) {
+            return null;
+        }
+
+        try {
+            Map<Object, Object> meta = redisTemplate.opsForHash().entries(metaKey(accountId));
+            if (meta.isEmpty()) {
+                return null;
+            }
+            int count = Integer.parseInt((String) meta.get("count"));
+            long[] firstIds = new long[(count + segmentSize - 1) / segmentSize];
+            for (int s = 0; s < firstIds.length; s++) {
+                firstIds[s] = Long.parseLong((String) meta.get("f" + s));
+            }
+            String owner = (String) meta.get("owner");
+            return new History(count, "1".equals(meta.get("complete")), owner == null || owner.isEmpty() ? null : owner,
+                    firstIds, firstIds.length > 0 ? firstIds[0] : null, null);
+        } catch (Exception e) {
+            log.warn("Не удалось прочитать историю счета {} из Redis: {}", accountId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Читает из БД не больше maxEntries последних транзакций и сохраняет их, если за время чтения
+     * история счета не изменялась
+     */
+    private History load(Long accountId) {
+        misses.increment();
+        String dirty = enabled ? dirtyMarker(accountId) : null;
+
+        List<TransactionEntity> newest = findNewest(accountId, null, maxEntries + 1);
+        boolean complete = newest.size() <= maxEntries;
+        List<TransactionResponse> entries = new ArrayList<>(Math.min(newest.size(), maxEntries));
+        for (int i = Math.min(newest.size(), maxEntries) - 1; i >= 0; i--) {
+            entries.add(transactionMapper.toHistoryEntry(newest.get(i)));
+        }
+        String owner = bankAccountRepository.findOwnerNameById(accountId).orElse(null);
+        entries.forEach(entry -> fill(entry, accountId, owner));
+
+        if (dirty != null) {
+            store(accountId, entries, complete, owner, dirty);
+        }
+        return new History(entries.size(), complete, owner, null,
+                entries.isEmpty() ? null : entries.get(0).getId(), entries);
+    }
+
+    private String dirtyMarker(Long accountId) {
+        try {
+            String value = redisTemplate.opsForValue().get(dirtyKey(accountId));
+            return value != null ? value : "0";
+        } catch (Exception e) {
+            log.warn("Не удалось прочитать отметку истории счета {}: {}", accountId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void store(Long accountId, List<TransactionResponse> entries, boolean complete, String owner,
+                       String dirty) {
+        int n = entries.size();
+        Object[] args = new Object[7 + 2 * n];
+        args[0] = bytes(segmentSize);
+        args[1] = bytes(ttlMillis);
+        args[2] = bytes(segmentPrefix(accountId));
+        args[3] = bytes(complete ? 1 : 0);
+        args[4] = bytes(owner != null ? owner : "");
+        args[5] = bytes(n);
+        args[6] = bytes(dirty);
+        for (int i = 0; i < n; i++) {
+            TransactionResponse entry = entries.get(i);
+            args[7 + i] = bytes(entry.getId());
+            args[7 + n + i] = CacheValueCodec.encode(withoutAccount(entry), 0);
+        }
+
+        try {
+            redisTemplate.execute(STORE, RedisSerializer.byteArray(), RESULT_SERIALIZER,
+                    List.of(metaKey(accountId), dirtyKey(accountId)), args);
+        } catch (Exception e) {
+            log.warn("Не удалось сохранить историю счета {} в Redis: {}", accountId, e.getMessage());
+        }
+    }
+
+    /**
+     * @return позиция первой записи с id не меньше beforeId, или -1, если сегмент не прочитан
+     */
+    private int positionBefore(Long accountId, History history, long beforeId) {
+        int segment = -1;
+        int low = 0;
+        int high = history.firstIds().length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (history.firstIds()[mid] < beforeId) {
+                segment = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (segment < 0) {
+            return 0;
+        }
+
+        int start = segment * segmentSize;
+        List<TransactionResponse> entries = readRange(accountId, history, start,
+                Math.min(history.count(), start + segmentSize));
+        if (entries == null) {
+            return -1;
+        }
+        int position = start;
+        while (position - start < entries.size() && entries.get(position - start).getId() < beforeId) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Читает позиции [from, to) одним конвейером LRANGE по затронутым сегментам
+     *
+     * @return записи по возрастанию id или null, если часть сегментов уже истекла
+     */
+    private List<TransactionResponse> readRange(Long accountId, History history, int from, int to) {
+        if (from >= to) {
+            return new ArrayList<>();
+        }
+
+        try {
+            int firstSegment = from / segmentSize;
+            int lastSegment = (to - 1) / segmentSize;
+            List<Object> segments = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int s = firstSegment; s <= lastSegment; s++) {
+                    long start = s == firstSegment ? from % segmentSize : 0;
+                    long end = s == lastSegment ? (to - 1) % segmentSize : segmentSize - 1;
+                    lRange(connection, segmentPrefix(accountId) + s, start, end);
+                }
+                return null;
+            }, RedisSerializer.byteArray());
+
+            List<TransactionResponse> entries = new ArrayList<>(to - from);
+            for (Object segment : segments) {
+                for (Object value : (List<?>) segment) {
+                    entries.add(fill((TransactionResponse) CacheValueCodec.decode((byte[]) value),
+                            accountId, history.owner()));
+                }
+            }
+            return entries.size() == to - from ? entries : null;
+        } catch (Exception e) {
+            log.warn("Не удалось прочитать историю счета {} из Redis: {}", accountId, e.getMessage());
+            return null;
+        }
+    }
+
+    private TransactionHistoryPage pageFromDb(Long accountId, Long beforeId, int limit) {
+        List<TransactionResponse> items = findNewest(accountId, beforeId, limit).stream()
+                .map(transactionMapper::toResponse)
+                .toList();
+        return page(new ArrayList<>(items), limit);
+    }
+
+    private List<TransactionEntity> findNewest(Long accountId, Long beforeId, int limit) {
+        return beforeId == null
+                ? transactionRepository.findHistoryPage(accountId, PageRequest.ofSize(limit))
+                : transactionRepository.findHistoryPageBefore(accountId, beforeId, PageRequest.ofSize(limit));
+    }
+
+    private static void takeNewest(List<TransactionResponse> ascending, Long beforeId, int limit,
+                                   List<TransactionResponse> target) {
+        for (int i = ascending.size() - 1; i >= 0 && target.size() < limit; i--) {
+            TransactionResponse entry = ascending.get(i);
+            if (beforeId == null || entry.getId() < beforeId) {
+                target.add(entry);
+            }
+        }
+    }
+
+    private static TransactionHistoryPage page(List<TransactionResponse> items, int limit) {
+        Long next = items.size() == limit && !items.isEmpty() ? items.get(items.size() - 1).getId() : null;
+        return new TransactionHistoryPage(items, next);
+    }
+
+    private static TransactionResponse fill(TransactionResponse entry, Long accountId, String owner) {
+        entry.setAccountId(accountId);
+        entry.setAccountOwnerName(owner);
+        return entry;
+    }
+
+    private static TransactionResponse withoutAccount(TransactionResponse entry) {
+        return new TransactionResponse(entry.getId(), entry.getValue(), entry.getType(), entry.getCategory(),
+                entry.getCreatedDate(), null, null);
+    }
+
+    private static void lRange(RedisConnection connection, String key, long start, long end) {
+        connection.listCommands().lRange(bytes(key), start, end);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!enabled) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private String metaKey(Long accountId) {
+        return keyPrefix + "{" + accountId + "}:meta";
+    }
+
+    private String dirtyKey(Long accountId) {
+        return keyPrefix + "{" + accountId + "}:dirty";
+    }
+
+    private String segmentPrefix(Long accountId) {
+        return keyPrefix + "{" + accountId + "}:s:";
+    }
+
+    private static byte[] bytes(Object value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Метаданные истории; entries заполнены только у только что загруженной из БД истории
+     */
+    private record History(int count, boolean complete, String owner, long[] firstIds, Long firstId,
+                           List<TransactionResponse> entries) {
+    }
+}
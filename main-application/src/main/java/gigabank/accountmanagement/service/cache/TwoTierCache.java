@@ -0,0 +1,202 @@
+package gigabank.accountmanagement.service.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Кэш из двух уровней: локальный Caffeine перед общим кэшем Redis.
+ * Чтение сначала идет в локальный уровень, промах читается из Redis и кладется в локальный.
+ * Запись и удаление выполняются в Redis, затем в локальном уровне, после чего другим узлам
+ * публикуется инвалидация ключа. Ключи локального уровня — строковое представление ключа,
+ * как и в RedisCache. Значения локального уровня разделяются между вызовами и не должны изменяться
+ */
+public class TwoTierCache implements Cache {
+    private final String name;
+    private final Cache remote;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final Consumer<String> invalidationPublisher;
+
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder remoteMisses = new LongAdder();
+
+    /**
+     * @param invalidationPublisher публикует инвалидацию ключа другим узлам; null означает очистку кэша
+     */
+    public TwoTierCache(String name, Cache remote, com.github.benmanes.caffeine.cache.Cache<String, Object> local,
+                        Consumer<String> invalidationPublisher) {
+        this.name = name;
+        this.remote = remote;
+        this.local = local;
+        this.invalidationPublisher = invalidationPublisher;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            return new SimpleValueWrapper(value);
+        }
+
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            remoteHits.increment();
+            local.put(localKey, wrapper.get());
+        } else {
+            remoteMisses.increment();
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Значение кэша " + name + " не является " + type.getName() + ": " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            return (T) value;
+        }
+
+        boolean[] loaded = new boolean[1];
+        T result = remote.get(key, () -> {
+            loaded[0] = true;
+            return valueLoader.call();
+        });
+        if (loaded[0]) {
+            remoteMisses.increment();
+        } else {
+            remoteHits.increment();
+        }
+        if (result != null) {
+            local.put(localKey, result);
+        }
+        return result;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        String localKey = localKey(key);
+        if (value != null) {
+            local.put(localKey, value);
+        } else {
+            local.invalidate(localKey);
+        }
+        invalidationPublisher.accept(localKey);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        String localKey = localKey(key);
+        local.invalidate(localKey);
+        if (existing == null) {
+            invalidationPublisher.accept(localKey);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        evictLocalAndPublish(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = remote.evictIfPresent(key);
+        evictLocalAndPublish(key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        invalidationPublisher.accept(null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean present = remote.invalidate();
+        local.invalidateAll();
+        invalidationPublisher.accept(null);
+        return present;
+    }
+
+    /**
+     * Удаляет ключ только из локального уровня — по сообщению инвалидации от другого узла
+     *
+     * @param localKey строковый ключ; null очищает локальный уровень целиком
+     */
+    void invalidateLocal(String localKey) {
+        if (localKey == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(localKey);
+        }
+    }
+
+    com.github.benmanes.caffeine.cache.Cache<String, Object> getLocal() {
+        return local;
+    }
+
+    public TwoTierCacheStats getStats() {
+        var localStats = local.stats();
+        long hits = remoteHits.sum();
+        long misses = remoteMisses.sum();
+        return new TwoTierCacheStats(
+                name,
+                localStats.hitCount(),
+                localStats.missCount(),
+                localStats.hitRate(),
+                local.estimatedSize(),
+                localStats.evictionCount(),
+                hits,
+                misses,
+                hits + misses > 0 ? (double) hits / (hits + misses) : 0);
+    }
+
+    long getRemoteHits() {
+        return remoteHits.sum();
+    }
+
+    long getRemoteMisses() {
+        return remoteMisses.sum();
+    }
+
+    private void evictLocalAndPublish(Object key) {
+        String localKey = localKey(key);
+        local.invalidate(localKey);
+        invalidationPublisher.accept(localKey);
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,145 @@
+package gigabank.accountmanagement.service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CacheManager с локальным уровнем Caffeine перед кэшами RedisCacheManager.
+ * Локальный уровень ограничен по числу записей и по времени жизни; время жизни короче TTL в Redis
+ * и ограничивает устаревание, если сообщение инвалидации потеряно (pub/sub Redis не гарантирует доставку).
+ * Инвалидации публикуются в канал Redis в виде «узел, кэш, ключ» и применяются к локальному уровню
+ * всех остальных узлов
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+    private static final char SEPARATOR = '\n';
+    private static final String CLEAR_MARKER = "\u0000*";
+
+    private final CacheManager remoteCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String channel;
+    private final long localMaxSize;
+    private final Duration localTtl;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(CacheManager remoteCacheManager, StringRedisTemplate redisTemplate,
+                               MeterRegistry meterRegistry, String channel, long localMaxSize, Duration localTtl) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.channel = channel;
+        this.localMaxSize = localMaxSize;
+        this.localTtl = localTtl;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoTierCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remote = remoteCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> createCache(cacheName, remote));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+
+    /**
+     * @return счетчики уровней для созданных кэшей
+     */
+    public List<TwoTierCacheStats> getStats() {
+        return caches.values().stream()
+                .map(TwoTierCache::getStats)
+                .sorted((a, b) -> a.getCacheName().compareTo(b.getCacheName()))
+                .toList();
+    }
+
+    /**
+     * Сообщение инвалидации от другого узла; собственные сообщения пропускаются
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int first = body.indexOf(SEPARATOR);
+        int second = first < 0 ? -1 : body.indexOf(SEPARATOR, first + 1);
+        if (second < 0) {
+            log.warn("Некорректное сообщение инвалидации кэша: {}", body);
+            return;
+        }
+        if (body.startsWith(nodeId + SEPARATOR)) {
+            return;
+        }
+
+        TwoTierCache cache = caches.get(body.substring(first + 1, second));
+        if (cache != null) {
+            String key = body.substring(second + 1);
+            cache.invalidateLocal(CLEAR_MARKER.equals(key) ? null : key);
+        }
+    }
+
+    private TwoTierCache createCache(String name, Cache remote) {
+        com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        TwoTierCache cache = new TwoTierCache(name, remote, local, key -> publish(name, key));
+        registerMeters(cache, name);
+        log.info("Создан двухуровневый кэш {}: локально до {} записей на {}", name, localMaxSize, localTtl);
+        return cache;
+    }
+
+    private void publish(String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(channel,
+                    nodeId + SEPARATOR + cacheName + SEPARATOR + (key != null ? key : CLEAR_MARKER));
+        } catch (Exception e) {
+            log.warn("Не удалось опубликовать инвалидацию кэша {}: key={}, error: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    private void registerMeters(TwoTierCache cache, String name) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.getLocal(), name, "tier", "local");
+
+        FunctionCounter.builder("cache.gets", cache, TwoTierCache::getRemoteHits)
+                .tags("cache", name, "tier", "remote", "result", "hit")
+                .description("Попадания в Redis после промаха локального уровня")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", cache, TwoTierCache::getRemoteMisses)
+                .tags("cache", name, "tier", "remote", "result", "miss")
+                .description("Промахи обоих уровней")
+                .register(meterRegistry);
+
+        Gauge.builder("gigabank.cache.hit.ratio", cache, c -> c.getStats().getLocalHitRatio())
+                .tags("cache", name, "tier", "local")
+                .register(meterRegistry);
+        Gauge.builder("gigabank.cache.hit.ratio", cache, c -> c.getStats().getRemoteHitRatio())
+                .tags("cache", name, "tier", "remote")
+                .register(meterRegistry);
+    }
+}
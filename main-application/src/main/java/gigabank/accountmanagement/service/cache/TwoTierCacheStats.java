@@ -0,0 +1,22 @@
+package gigabank.accountmanagement.service.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Снимок счетчиков двухуровневого кэша: доля попаданий локального уровня считается от всех чтений,
+ * уровня Redis — от промахов локального
+ */
+@Getter
+@AllArgsConstructor
+public class TwoTierCacheStats {
+    private final String cacheName;
+    private final long localHits;
+    private final long localMisses;
+    private final double localHitRatio;
+    private final long localSize;
+    private final long localEvictions;
+    private final long remoteHits;
+    private final long remoteMisses;
+    private final double remoteHitRatio;
+}
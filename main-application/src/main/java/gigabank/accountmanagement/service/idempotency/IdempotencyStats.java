@@ -0,0 +1,22 @@
+package gigabank.accountmanagement.service.idempotency;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Снимок счетчиков хранилища идемпотентности
+ */
+@Getter
+@AllArgsConstructor
+public class IdempotencyStats {
+    private final long hotHits;
+    private final long coldHits;
+    private final long misses;
+    private final long evictions;
+    private final int hotSize;
+    private final int hotCapacity;
+    private final long bloomNegatives;
+    private final long bloomFalsePositives;
+    private final double bloomEstimatedFpp;
+    private final int bloomSegments;
+}
@@ -0,0 +1,42 @@
+package gigabank.accountmanagement.service.idempotency;
+
+import java.util.Collection;
+
+/**
+ * Хранилище идентификаторов обработанных транзакций для exactly-once обработки
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Проверяет, была ли транзакция уже обработана
+     *
+     * @param transactionId идентификатор транзакции
+     * @return true если транзакция уже обработана
+     */
+    boolean isProcessed(long transactionId);
+
+    /**
+     * Отмечает транзакцию обработанной. При активной транзакции Spring
+     * отметка фиксируется вместе с ней
+     *
+     * @param transactionId идентификатор транзакции
+     */
+    void markProcessed(long transactionId);
+
+    /**
+     * Отмечает обработанными несколько транзакций одной пакетной операцией
+     *
+     * @param transactionIds идентификаторы транзакций
+     */
+    void markProcessed(Collection<Long> transactionIds);
+
+    /**
+     * Подтягивает отметки, сделанные другими экземплярами, например после ребалансировки консьюмеров
+     */
+    void refresh();
+
+    /**
+     * @return счетчики попаданий, промахов и вытеснений
+     */
+    IdempotencyStats getStats();
+}
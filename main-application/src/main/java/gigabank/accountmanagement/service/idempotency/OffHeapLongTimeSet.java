@@ -0,0 +1,166 @@
+package gigabank.accountmanagement.service.idempotency;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Множество long-ключей с открытой адресацией вне кучи.
+ * Каждая ячейка хранит ключ и время добавления (16 байт), объем памяти фиксирован при создании.
+ * Записи старше ttl считаются отсутствующими; при заполнении таблица перестраивается:
+ * просроченные записи удаляются, а если живых слишком много — остается более свежая половина
+ */
+public class OffHeapLongTimeSet {
+    private static final int SLOT_BYTES = 16;
+    private static final long EMPTY = 0L;
+
+    private final ByteBuffer slots;
+    private final int capacity;
+    private final int mask;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private int size;
+    private long evictions;
+
+    /**
+     * @param maxEntries максимальное число записей; емкость таблицы вдвое больше для коротких цепочек
+     * @param ttlMillis время жизни записи в миллисекундах
+     */
+    public OffHeapLongTimeSet(int maxEntries, long ttlMillis) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries должен быть положительным: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.capacity = Integer.highestOneBit(Math.max(2, maxEntries * 2 - 1)) << 1;
+        this.mask = capacity - 1;
+        this.ttlMillis = ttlMillis;
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+    }
+
+    public boolean contains(long key, long nowMillis) {
+        lock.lock();
+        try {
+            int slot = findSlot(key);
+            return slot >= 0 && !isExpired(timestampAt(slot), nowMillis);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void add(long key, long nowMillis) {
+        lock.lock();
+        try {
+            int slot = findSlot(key);
+            if (slot >= 0) {
+                slots.putLong(slot * SLOT_BYTES + 8, nowMillis);
+                return;
+            }
+
+            if (size >= maxEntries) {
+                compact(nowMillis);
+            }
+            insert(key, nowMillis);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long evictions() {
+        lock.lock();
+        try {
+            return evictions;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int findSlot(long key) {
+        int index = hash(key) & mask;
+        while (timestampAt(index) != EMPTY) {
+            if (slots.getLong(index * SLOT_BYTES) == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(long key, long timestamp) {
+        int index = hash(key) & mask;
+        while (timestampAt(index) != EMPTY) {
+            index = (index + 1) & mask;
+        }
+        slots.putLong(index * SLOT_BYTES, key);
+        slots.putLong(index * SLOT_BYTES + 8, timestamp);
+        size++;
+    }
+
+    /**
+     * Перестраивает таблицу: удаляет просроченные записи и, если живых записей больше половины лимита,
+     * оставляет только более свежую половину
+     */
+    private void compact(long nowMillis) {
+        long[] keys = new long[size];
+        long[] timestamps = new long[size];
+        int live = 0;
+
+        for (int i = 0; i < capacity; i++) {
+            long timestamp = timestampAt(i);
+            if (timestamp != EMPTY && !isExpired(timestamp, nowMillis)) {
+                keys[live] = slots.getLong(i * SLOT_BYTES);
+                timestamps[live] = timestamp;
+                live++;
+            }
+        }
+
+        long threshold = Long.MIN_VALUE;
+        int keep = maxEntries / 2;
+        if (live > keep) {
+            long[] sorted = Arrays.copyOf(timestamps, live);
+            Arrays.sort(sorted);
+            threshold = keep == 0 ? Long.MAX_VALUE : sorted[live - keep];
+        }
+
+        for (int i = 0; i < capacity; i++) {
+            slots.putLong(i * SLOT_BYTES + 8, EMPTY);
+        }
+
+        int previousSize = size;
+        size = 0;
+        for (int i = 0; i < live && size < keep; i++) {
+            if (timestamps[i] >= threshold) {
+                insert(keys[i], timestamps[i]);
+            }
+        }
+        evictions += previousSize - size;
+    }
+
+    private long timestampAt(int index) {
+        return slots.getLong(index * SLOT_BYTES + 8);
+    }
+
+    private boolean isExpired(long timestamp, long nowMillis) {
+        return nowMillis - timestamp > ttlMillis;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+}
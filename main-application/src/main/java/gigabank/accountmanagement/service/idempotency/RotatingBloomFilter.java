@@ -0,0 +1,181 @@
+package gigabank.accountmanagement.service.idempotency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Масштабируемый Bloom-фильтр для long-ключей, разбитый на сегменты по временным окнам.
+ * Вставки идут в текущий сегмент; новый сегмент открывается по истечении окна
+ * или когда текущий принял расчетное число элементов (не более 2 * windows сегментов,
+ * дальше текущий сегмент переполняется и растет вероятность ложного срабатывания).
+ * Сегменты старше горизонта удаляются целиком, поэтому фильтр отвечает «возможно был» только для ключей, добавленных в пределах горизонта.
+ * Отрицательный ответ точен, положительный — с вероятностью ложного срабатывания не выше estimatedFpp()
+ */
+public class RotatingBloomFilter {
+    private final long windowMillis;
+    private final long horizonMillis;
+    private final int maxSegments;
+    private final int expectedInsertions;
+    private final long bitsPerSegment;
+    private final int hashCount;
+    private final ReentrantLock rotationLock = new ReentrantLock();
+
+    private volatile List<Segment> segments;
+
+    /**
+     * @param expectedInsertions расчетное число ключей в одном сегменте
+     * @param falsePositiveRate допустимая вероятность ложного срабатывания одного сегмента
+     * @param windowMillis длительность временного окна сегмента
+     * @param windows число окон, покрываемых фильтром
+     * @param nowMillis текущее время
+     */
+    public RotatingBloomFilter(int expectedInsertions, double falsePositiveRate, long windowMillis,
+                               int windows, long nowMillis) {
+        if (expectedInsertions <= 0 || windows <= 0 || windowMillis <= 0) {
+            throw new IllegalArgumentException("Параметры Bloom-фильтра должны быть положительными");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate должен быть в интервале (0, 1): " + falsePositiveRate);
+        }
+
+        this.expectedInsertions = expectedInsertions;
+        this.windowMillis = windowMillis;
+        this.horizonMillis = windowMillis * windows;
+        this.maxSegments = windows * 2;
+
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bitsPerSegment = Math.max(64, (bits + 63) / 64 * 64);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitsPerSegment / expectedInsertions * ln2));
+        this.segments = List.of(new Segment(nowMillis));
+    }
+
+    public boolean mightContain(long key, long nowMillis) {
+        rotateIfNeeded(nowMillis);
+        long h1 = mix64(key);
+        long h2 = mix64(h1) | 1;
+        for (Segment segment : segments) {
+            if (segment.mightContain(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void put(long key, long nowMillis) {
+        rotateIfNeeded(nowMillis);
+        long h1 = mix64(key);
+        long h2 = mix64(h1) | 1;
+        List<Segment> current = segments;
+        current.get(current.size() - 1).put(h1, h2);
+    }
+
+    /**
+     * Оценивает вероятность ложного срабатывания по фактическому заполнению сегментов:
+     * 1 - Π(1 - fill_i^k)
+     */
+    public double estimatedFpp() {
+        double negative = 1.0;
+        for (Segment segment : segments) {
+            double fill = (double) segment.bitCount() / bitsPerSegment;
+            negative *= 1.0 - Math.pow(fill, hashCount);
+        }
+        return 1.0 - negative;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    public long bitsPerSegment() {
+        return bitsPerSegment;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    private void rotateIfNeeded(long nowMillis) {
+        List<Segment> current = segments;
+        Segment newest = current.get(current.size() - 1);
+        boolean expired = nowMillis - current.get(0).createdAt > horizonMillis;
+        boolean rotate = nowMillis - newest.createdAt >= windowMillis
+                || newest.insertions.get() >= expectedInsertions && current.size() < maxSegments;
+        if (!expired && !rotate) {
+            return;
+        }
+
+        rotationLock.lock();
+        try {
+            current = segments;
+            newest = current.get(current.size() - 1);
+            List<Segment> next = new ArrayList<>(current.size() + 1);
+            for (Segment segment : current) {
+                if (nowMillis - segment.createdAt <= horizonMillis) {
+                    next.add(segment);
+                }
+            }
+            boolean windowElapsed = nowMillis - newest.createdAt >= windowMillis;
+            boolean segmentFull = newest.insertions.get() >= expectedInsertions && next.size() < maxSegments;
+            if (next.isEmpty() || windowElapsed || segmentFull) {
+                next.add(new Segment(nowMillis));
+            }
+            segments = List.copyOf(next);
+        } finally {
+            rotationLock.unlock();
+        }
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    private final class Segment {
+        private final long createdAt;
+        private final AtomicLongArray words = new AtomicLongArray((int) (bitsPerSegment / 64));
+        private final AtomicLong insertions = new AtomicLong();
+
+        private Segment(long createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        private boolean mightContain(long h1, long h2) {
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitsPerSegment);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void put(long h1, long h2) {
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitsPerSegment);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long word;
+                do {
+                    word = words.get(index);
+                    if ((word & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(index, word, word | mask));
+            }
+            insertions.incrementAndGet();
+        }
+
+        private long bitCount() {
+            long count = 0;
+            for (int i = 0; i < words.length(); i++) {
+                count += Long.bitCount(words.get(i));
+            }
+            return count;
+        }
+    }
+}
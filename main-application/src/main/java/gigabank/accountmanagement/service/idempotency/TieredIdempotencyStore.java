@@ -0,0 +1,214 @@
+package gigabank.accountmanagement.service.idempotency;
+
+import gigabank.accountmanagement.repository.ProcessedTransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Двухуровневое хранилище идемпотентности.
+ * Горячий уровень — ограниченное по размеру и времени жизни множество вне кучи,
+ * холодный — таблица processed_transaction, которая переживает рестарты и ребалансировки.
+ * Отметка пишется в таблицу в текущей транзакции, а в горячий уровень попадает только после ее фиксации.
+ * Перед обоими уровнями стоит Bloom-фильтр: новые идентификаторы отсекаются без обращения к БД,
+ * дальше проходят только возможные дубликаты. Фильтр помнит ключи в пределах windows * window-ms;
+ * горизонт не может быть короче retention-hours, иначе дубликат старше горизонта прошел бы мимо таблицы
+ * и упал на первичном ключе при вставке отметки — это проверяется при запуске. Отметки других экземпляров
+ * подгружаются при назначении партиций exactly-once консьюмеру
+ */
+@Slf4j
+@Component
+public class TieredIdempotencyStore implements IdempotencyStore {
+    private static final String INSERT_SQL =
+            "INSERT INTO processed_transaction (transaction_id, processed_at) VALUES (?, ?)";
+    private static final long REFRESH_OVERLAP_MS = 60_000;
+    private static final String REFRESH_SQL =
+            "SELECT transaction_id FROM processed_transaction WHERE processed_at >= ?";
+
+    private final ProcessedTransactionRepository processedTransactionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final OffHeapLongTimeSet hotTier;
+    private final long retentionHours;
+    private final RotatingBloomFilter bloomFilter;
+    private final long bloomHorizonMs;
+    private volatile boolean bloomReady;
+    private volatile long lastRefreshMillis;
+
+    private final LongAdder hotHits = new LongAdder();
+    private final LongAdder coldHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bloomNegatives = new LongAdder();
+    private final LongAdder bloomFalsePositives = new LongAdder();
+
+    public TieredIdempotencyStore(ProcessedTransactionRepository processedTransactionRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  @Value("${app.idempotency.hot.max-entries:100000}") int hotMaxEntries,
+                                  @Value("${app.idempotency.hot.ttl-ms:600000}") long hotTtlMs,
+                                  @Value("${app.idempotency.cold.retention-hours:168}") long retentionHours,
+                                  @Value("${app.idempotency.bloom.enabled:true}") boolean bloomEnabled,
+                                  @Value("${app.idempotency.bloom.expected-insertions:200000}") int bloomExpectedInsertions,
+                                  @Value("${app.idempotency.bloom.fpp:0.01}") double bloomFpp,
+                                  @Value("${app.idempotency.bloom.window-ms:21600000}") long bloomWindowMs,
+                                  @Value("${app.idempotency.bloom.windows:28}") int bloomWindows) {
+        this.processedTransactionRepository = processedTransactionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.hotTier = new OffHeapLongTimeSet(hotMaxEntries, hotTtlMs);
+        this.retentionHours = retentionHours;
+        this.bloomHorizonMs = bloomWindowMs * bloomWindows;
+        if (bloomEnabled && bloomHorizonMs < TimeUnit.HOURS.toMillis(retentionHours)) {
+            throw new IllegalStateException("Горизонт Bloom-фильтра windows * window-ms = " + bloomHorizonMs
+                    + "ms короче срока хранения отметок retention-hours=" + retentionHours
+                    + ": дубликаты старше горизонта не будут распознаны");
+        }
+        this.bloomFilter = bloomEnabled
+                ? new RotatingBloomFilter(bloomExpectedInsertions, bloomFpp, bloomWindowMs, bloomWindows,
+                System.currentTimeMillis())
+                : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpBloomFilter() {
+        refresh();
+    }
+
+    /**
+     * Догружает в Bloom-фильтр отметки из таблицы, сделанные с момента прошлой загрузки,
+     * в том числе другими экземплярами. Первая загрузка покрывает весь горизонт фильтра;
+     * до ее окончания фильтр не используется для отсечения
+     */
+    @Override
+    public void refresh() {
+        if (bloomFilter == null) {
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        long since = bloomReady ? lastRefreshMillis - REFRESH_OVERLAP_MS : startTime - bloomHorizonMs;
+        LongAdder loaded = new LongAdder();
+        try {
+            jdbcTemplate.query(REFRESH_SQL, rs -> {
+                bloomFilter.put(rs.getLong(1), startTime);
+                loaded.increment();
+            }, new Timestamp(since));
+        } catch (Exception e) {
+            log.warn("[Idempotency] Не удалось загрузить отметки в Bloom-фильтр, отсечение отключено до "
+                    + "следующей загрузки: {}", e.getMessage());
+            bloomReady = false;
+            return;
+        }
+
+        lastRefreshMillis = startTime;
+        if (!bloomReady) {
+            bloomReady = true;
+            log.info("[Idempotency] Bloom-фильтр прогрет: {} отметок за {}ms, segmentBits={}, hashes={}",
+                    loaded.sum(), System.currentTimeMillis() - startTime,
+                    bloomFilter.bitsPerSegment(), bloomFilter.hashCount());
+        } else {
+            log.debug("[Idempotency] Bloom-фильтр дополнен: {} отметок", loaded.sum());
+        }
+    }
+
+    @Override
+    public boolean isProcessed(long transactionId) {
+        long now = System.currentTimeMillis();
+        boolean bloomChecked = bloomReady;
+        if (bloomChecked && !bloomFilter.mightContain(transactionId, now)) {
+            bloomNegatives.increment();
+            misses.increment();
+            return false;
+        }
+
+        if (hotTier.contains(transactionId, now)) {
+            hotHits.increment();
+            return true;
+        }
+
+        if (processedTransactionRepository.existsById(transactionId)) {
+            coldHits.increment();
+            hotTier.add(transactionId, now);
+            return true;
+        }
+
+        if (bloomChecked) {
+            bloomFalsePositives.increment();
+        }
+        misses.increment();
+        return false;
+    }
+
+    @Override
+    public void markProcessed(long transactionId) {
+        markProcessed(List.of(transactionId));
+    }
+
+    @Override
+    public void markProcessed(Collection<Long> transactionIds) {
+        if (transactionIds.isEmpty()) {
+            return;
+        }
+
+        Timestamp processedAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(transactionIds.size());
+        for (Long transactionId : transactionIds) {
+            rows.add(new Object[]{transactionId, processedAt});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+
+        if (bloomFilter != null) {
+            long now = System.currentTimeMillis();
+            transactionIds.forEach(transactionId -> bloomFilter.put(transactionId, now));
+        }
+
+        List<Long> ids = List.copyOf(transactionIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addToHotTier(ids);
+                }
+            });
+        } else {
+            addToHotTier(ids);
+        }
+    }
+
+    @Override
+    public IdempotencyStats getStats() {
+        return new IdempotencyStats(hotHits.sum(), coldHits.sum(), misses.sum(),
+                hotTier.evictions(), hotTier.size(), hotTier.capacity(),
+                bloomNegatives.sum(), bloomFalsePositives.sum(),
+                bloomFilter != null ? bloomFilter.estimatedFpp() : 0.0,
+                bloomFilter != null ? bloomFilter.segmentCount() : 0);
+    }
+
+    /**
+     * Удаляет из таблицы отметки старше retention-hours
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.cold.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int deleted = processedTransactionRepository.deleteProcessedBefore(
+                LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            log.info("[Idempotency] Удалено {} устаревших отметок", deleted);
+        }
+    }
+
+    private void addToHotTier(List<Long> transactionIds) {
+        long now = System.currentTimeMillis();
+        transactionIds.forEach(transactionId -> hotTier.add(transactionId, now));
+    }
+}
@@ -0,0 +1,72 @@
+package gigabank.accountmanagement.service.ledger;
+
+import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import gigabank.accountmanagement.enums.TransactionType;
+
+import java.math.BigDecimal;
+
+/**
+ * Резидентное состояние счета внутри шарда ledger.
+ * Изменяется только потоком-владельцем шарда, поэтому не требует синхронизации.
+ * Версия — версия строки bank_account, с которой согласовано состояние: запись группы применяется
+ * только при совпадении версии, иначе состояние перечитывается из БД
+ */
+class AccountLedgerState {
+    private final Long accountId;
+    private final boolean blocked;
+    private BigDecimal balance;
+    private long version;
+
+    AccountLedgerState(Long accountId, BigDecimal balance, boolean blocked, long version) {
+        this.accountId = accountId;
+        this.balance = balance;
+        this.blocked = blocked;
+        this.version = version;
+    }
+
+    /**
+     * Применяет транзакцию к балансу и возвращает изменение баланса со знаком
+     *
+     * @param transaction сообщение транзакции
+     * @return дельта баланса для записи в БД
+     * @throws IllegalArgumentException если счет заблокирован, недостаточно средств
+     *                                  или неизвестный тип транзакции
+     */
+    BigDecimal apply(TransactionMessage transaction) {
+        if (blocked) {
+            throw new IllegalArgumentException("Счет заблокирован: " + accountId);
+        }
+
+        BigDecimal amount = transaction.getValue();
+        BigDecimal delta;
+
+        if (transaction.getType() == TransactionType.DEPOSIT) {
+            delta = amount;
+        } else if (transaction.getType() == TransactionType.WITHDRAWAL) {
+            if (balance.compareTo(amount) < 0) {
+                throw new IllegalArgumentException("Недостаточно средств на счете: " + accountId);
+            }
+            delta = amount.negate();
+        } else {
+            throw new IllegalArgumentException("Неизвестный тип транзакции: " + transaction.getType());
+        }
+
+        balance = balance.add(delta);
+        return delta;
+    }
+
+    BigDecimal getBalance() {
+        return balance;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Отмечает запись группы в БД: UPDATE баланса увеличил версию строки на единицу
+     */
+    void markFlushed() {
+        version++;
+    }
+}
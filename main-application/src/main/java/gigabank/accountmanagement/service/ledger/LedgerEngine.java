@@ -0,0 +1,361 @@
+package gigabank.accountmanagement.service.ledger;
+
+import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import gigabank.accountmanagement.model.TransactionEntity;
+import gigabank.accountmanagement.repository.BankAccountRepository;
+import gigabank.accountmanagement.service.cache.AccountState;
+import gigabank.accountmanagement.service.idempotency.IdempotencyStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Ledger с единственным писателем на счет.
+ * Счета распределяются по фиксированному набору однопоточных шардов по bankAccountId —
+ * тому же ключу, по которому TransactionKafkaProducer партиционирует сообщения.
+ * Поток шарда применяет транзакции к резидентному состоянию счетов без блокировок
+ * и сбрасывает накопленную группу изменений в БД одной транзакцией.
+ * Повторные доставки exactly-once отсекаются в шарде: обе копии попадают в один шард,
+ * а проверка выполняется после фиксации предыдущих групп.
+ * Сброс резидентного состояния через invalidate действует только на этом узле, поэтому группа
+ * записывается с проверкой версии строки счета: если счет изменен в обход шарда (пакетный консьюмер,
+ * REST, другой узел), состояние перечитывается и группа заново проверяется и записывается
+ */
+@Slf4j
+@Component
+public class LedgerEngine {
+    private static final int MAX_FLUSH_ATTEMPTS = 3;
+
+    private final LedgerFlushService ledgerFlushService;
+    private final BankAccountRepository bankAccountRepository;
+    private final IdempotencyStore idempotencyStore;
+
+    private final boolean enabled;
+    private final int shardCount;
+    private final int maxBatchSize;
+    private final long idlePollMs;
+    private final int queueCapacity;
+    private final long submitTimeoutMs;
+
+    private Shard[] shards;
+
+    public LedgerEngine(LedgerFlushService ledgerFlushService,
+                        BankAccountRepository bankAccountRepository,
+                        IdempotencyStore idempotencyStore,
+                        @Value("${app.ledger.enabled:false}") boolean enabled,
+                        @Value("${app.ledger.shards:4}") int shardCount,
+                        @Value("${app.ledger.max-batch-size:256}") int maxBatchSize,
+                        @Value("${app.ledger.idle-poll-ms:5}") long idlePollMs,
+                        @Value("${app.ledger.queue-capacity:10000}") int queueCapacity,
+                        @Value("${app.ledger.submit-timeout-ms:30000}") long submitTimeoutMs) {
+        this.ledgerFlushService = ledgerFlushService;
+        this.bankAccountRepository = bankAccountRepository;
+        this.idempotencyStore = idempotencyStore;
+        this.enabled = enabled;
+        this.shardCount = shardCount;
+        this.maxBatchSize = maxBatchSize;
+        this.idlePollMs = idlePollMs;
+        this.queueCapacity = queueCapacity;
+        this.submitTimeoutMs = submitTimeoutMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+            shards[i].thread.start();
+        }
+        log.info("[Ledger] Запущено {} шардов, maxBatchSize={}, idlePollMs={}",
+                shardCount, maxBatchSize, idlePollMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (shards == null) {
+            return;
+        }
+
+        for (Shard shard : shards) {
+            shard.running = false;
+            shard.thread.interrupt();
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Передает транзакцию шарду, владеющему счетом, и ждет фиксации группы.
+     * Транзакция, которую шард не взял в работу за submit-timeout-ms, отменяется и не будет применена:
+     * повторная доставка записи обработается заново. Взятая в работу транзакция дожидается исхода записи группы
+     *
+     * @param message сообщение транзакции
+     * @param createOutbox флаг для создания сообщения в outbox
+     * @param exactlyOnce отметить транзакцию обработанной в хранилище идемпотентности вместе с группой
+     * @return идентификатор сохраненной транзакции; для уже обработанной exactly-once транзакции null
+     * @throws ExecutionException если транзакция отклонена или группа не записана
+     * @throws TimeoutException если транзакция отменена по таймауту
+     */
+    public Long submitAndAwait(TransactionMessage message, boolean createOutbox, boolean exactlyOnce)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        LedgerEntry entry = new LedgerEntry(message.getBankAccountId(), message, createOutbox, exactlyOnce);
+        enqueue(entry);
+        try {
+            return entry.getResult().get(submitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (entry.cancel()) {
+                throw e;
+            }
+            return entry.getResult().get();
+        } catch (InterruptedException e) {
+            entry.cancel();
+            throw e;
+        }
+    }
+
+    /**
+     * Сбрасывает резидентное состояние счета, измененного в обход ledger.
+     * При активной транзакции сброс выполняется после ее фиксации
+     *
+     * @param accountId идентификатор счета
+     */
+    public void invalidate(Long accountId) {
+        if (!enabled) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(LedgerEntry.invalidation(accountId));
+                }
+            });
+        } else {
+            enqueue(LedgerEntry.invalidation(accountId));
+        }
+    }
+
+    private void enqueue(LedgerEntry entry) {
+        Shard shard = shards[Math.floorMod(Long.hashCode(entry.getAccountId()), shards.length)];
+        try {
+            if (!shard.queue.offer(entry, submitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Очередь шарда ledger переполнена: shard=" + shard.index);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Прервано ожидание очереди шарда ledger", e);
+        }
+    }
+
+    private final class Shard implements Runnable {
+        private final int index;
+        private final BlockingQueue<LedgerEntry> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final Map<Long, AccountLedgerState> accounts = new HashMap<>();
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        private final List<LedgerEntry> pendingEntries = new ArrayList<>();
+        private final Map<Long, BigDecimal> pendingDeltas = new LinkedHashMap<>();
+        private final Map<Long, LedgerEntry> pendingExactlyOnce = new HashMap<>();
+        private final Map<Long, Long> pendingVersions = new HashMap<>();
+
+        private Shard(int index) {
+            this.index = index;
+            this.thread = new Thread(this, "ledger-shard-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<LedgerEntry> batch = new ArrayList<>(maxBatchSize);
+            while (running) {
+                try {
+                    LedgerEntry first = queue.poll(idlePollMs, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatchSize - 1);
+
+                    for (LedgerEntry entry : batch) {
+                        process(entry);
+                    }
+                    flushPending();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    log.error("[Ledger] Необработанная ошибка в шарде {}", index, e);
+                } finally {
+                    batch.clear();
+                }
+            }
+
+            List<LedgerEntry> rest = new ArrayList<>();
+            queue.drainTo(rest);
+            rest.forEach(entry -> entry.getResult().completeExceptionally(
+                    new IllegalStateException("Ledger остановлен")));
+        }
+
+        private void process(LedgerEntry entry) {
+            Long accountId = entry.getAccountId();
+
+            if (entry.isInvalidation()) {
+                flushPending();
+                accounts.remove(accountId);
+                return;
+            }
+
+            if (!entry.claim()) {
+                log.debug("[Ledger] Транзакция отменена по таймауту: transactionId={}", entry.getMessage().getId());
+                return;
+            }
+
+            try {
+                if (entry.isExactlyOnce() && isDuplicate(entry)) {
+                    return;
+                }
+                apply(entry);
+            } catch (Exception e) {
+                entry.getResult().completeExceptionally(e);
+            }
+        }
+
+        private void apply(LedgerEntry entry) {
+            Long accountId = entry.getAccountId();
+            AccountLedgerState state = accounts.get(accountId);
+            if (state == null) {
+                state = loadState(accountId);
+                accounts.put(accountId, state);
+            }
+
+            BigDecimal delta = state.apply(entry.getMessage());
+            pendingDeltas.merge(accountId, delta, BigDecimal::add);
+            pendingVersions.putIfAbsent(accountId, state.getVersion());
+            pendingEntries.add(entry);
+            if (entry.isExactlyOnce()) {
+                pendingExactlyOnce.put(entry.getMessage().getId(), entry);
+            }
+        }
+
+        /**
+         * Повторная доставка уже стоящей в группе транзакции завершается вместе с первой копией,
+         * уже зафиксированной — сразу; к состоянию счета повтор не применяется
+         */
+        private boolean isDuplicate(LedgerEntry entry) {
+            Long transactionId = entry.getMessage().getId();
+            LedgerEntry original = pendingExactlyOnce.get(transactionId);
+            if (original != null) {
+                log.debug("[Ledger] Повтор транзакции в группе: transactionId={}", transactionId);
+                original.getResult().whenComplete((savedId, error) -> {
+                    if (error != null) {
+                        entry.getResult().completeExceptionally(error);
+                    } else {
+                        entry.getResult().complete(savedId);
+                    }
+                });
+                return true;
+            }
+            if (idempotencyStore.isProcessed(transactionId)) {
+                log.debug("[Ledger] Транзакция уже обработана: transactionId={}", transactionId);
+                entry.getResult().complete(null);
+                return true;
+            }
+            return false;
+        }
+
+        private AccountLedgerState loadState(Long accountId) {
+            AccountState account = bankAccountRepository.findStateById(accountId)
+                    .orElseThrow(() -> new IllegalArgumentException("Счет не найден: " + accountId));
+            return new AccountLedgerState(accountId, account.getBalance(), account.isBlocked(), account.getVersion());
+        }
+
+        private void flushPending() {
+            int attempt = 1;
+            while (!pendingEntries.isEmpty()) {
+                try {
+                    List<TransactionEntity> saved = ledgerFlushService.flush(pendingEntries, pendingDeltas,
+                            pendingVersions);
+                    pendingDeltas.keySet().forEach(accountId -> accounts.get(accountId).markFlushed());
+                    for (int i = 0; i < pendingEntries.size(); i++) {
+                        pendingEntries.get(i).getResult().complete(saved.get(i).getId());
+                    }
+                    clearPending();
+                } catch (StaleAccountStateException e) {
+                    if (attempt++ < MAX_FLUSH_ATTEMPTS) {
+                        log.debug("[Ledger] {}, группа повторяется: shard={}", e.getMessage(), index);
+                        replayPending();
+                    } else {
+                        failPending(e);
+                    }
+                } catch (Exception e) {
+                    failPending(e);
+                }
+            }
+        }
+
+        /**
+         * Перечитывает состояние счетов группы и заново применяет ее транзакции:
+         * после отката резидентные балансы опережают БД, а транзакции, не проходящие проверку
+         * на актуальном состоянии, отклоняются
+         */
+        private void replayPending() {
+            List<LedgerEntry> entries = new ArrayList<>(pendingEntries);
+            pendingDeltas.keySet().forEach(accounts::remove);
+            clearPending();
+
+            for (LedgerEntry entry : entries) {
+                try {
+                    apply(entry);
+                } catch (Exception e) {
+                    entry.getResult().completeExceptionally(e);
+                }
+            }
+        }
+
+        private void failPending(Exception e) {
+            log.error("[Ledger] Ошибка записи группы: shard={}, transactions={}, accounts={}",
+                    index, pendingEntries.size(), pendingDeltas.size(), e);
+            pendingDeltas.keySet().forEach(accounts::remove);
+            pendingEntries.forEach(entry -> entry.getResult().completeExceptionally(e));
+            clearPending();
+        }
+
+        private void clearPending() {
+            pendingEntries.clear();
+            pendingDeltas.clear();
+            pendingVersions.clear();
+            pendingExactlyOnce.clear();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package gigabank.accountmanagement.service.ledger;
+
+import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Команда для шарда ledger: применение транзакции либо сброс резидентного состояния счета.
+ * Future завершается идентификатором сохраненной транзакции после фиксации группы в БД.
+ * Команду либо берет в работу шард, либо отменяет отправитель по таймауту — но не оба
+ */
+@Getter
+@RequiredArgsConstructor
+public class LedgerEntry {
+    private static final int QUEUED = 0;
+    private static final int CLAIMED = 1;
+    private static final int CANCELLED = 2;
+
+    private final Long accountId;
+    private final TransactionMessage message;
+    private final boolean createOutbox;
+    private final boolean exactlyOnce;
+    private final CompletableFuture<Long> result = new CompletableFuture<>();
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+    static LedgerEntry invalidation(Long accountId) {
+        return new LedgerEntry(accountId, null, false, false);
+    }
+
+    boolean isInvalidation() {
+        return message == null;
+    }
+
+    /**
+     * Шард берет команду в работу
+     *
+     * @return false, если отправитель уже отменил команду
+     */
+    boolean claim() {
+        return state.compareAndSet(QUEUED, CLAIMED);
+    }
+
+    /**
+     * Отменяет команду, которую шард еще не взял в работу
+     *
+     * @return false, если шард уже взял команду и ее исход определит запись группы
+     */
+    boolean cancel() {
+        if (state.compareAndSet(QUEUED, CANCELLED)) {
+            result.cancel(false);
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,104 @@
+package gigabank.accountmanagement.service.ledger;
+
+import gigabank.accountmanagement.mapper.TransactionMapper;
+import gigabank.accountmanagement.model.BankAccountEntity;
+import gigabank.accountmanagement.model.OutboxMessage;
+import gigabank.accountmanagement.model.TransactionEntity;
+import gigabank.accountmanagement.repository.BankAccountRepository;
+import gigabank.accountmanagement.repository.OutboxMessageRepository;
+import gigabank.accountmanagement.repository.OutboxNotifier;
+import gigabank.accountmanagement.repository.TransactionRepository;
+import gigabank.accountmanagement.service.OutboxEventFactory;
+import gigabank.accountmanagement.service.cache.AccountStateCache;
+import gigabank.accountmanagement.service.cache.TransactionHistoryCache;
+import gigabank.accountmanagement.service.idempotency.IdempotencyStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сбрасывает сгруппированные изменения шарда ledger в БД одной транзакцией
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LedgerFlushService {
+    private final BankAccountRepository bankAccountRepository;
+    private final TransactionRepository transactionRepository;
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final OutboxNotifier outboxNotifier;
+    private final TransactionMapper transactionMapper;
+    private final OutboxEventFactory outboxEventFactory;
+    private final IdempotencyStore idempotencyStore;
+    private final AccountStateCache accountStateCache;
+    private final TransactionHistoryCache transactionHistoryCache;
+
+    /**
+     * Записывает группу транзакций: один UPDATE баланса на каждый затронутый счет,
+     * пакетное сохранение транзакций, outbox событий и отметок идемпотентности.
+     * UPDATE применяется только к строке с версией, на которой шард проверял транзакции.
+     * После фиксации транзакции дописываются в кэш истории счетов в порядке id
+     *
+     * @param entries примененные к резидентному состоянию команды в порядке поступления
+     * @param balanceDeltas суммарное изменение баланса по каждому счету
+     * @param expectedVersions версия строки bank_account по каждому счету из balanceDeltas
+     * @return сохраненные транзакции в том же порядке, что и entries
+     * @throws StaleAccountStateException если счет изменен в обход шарда; транзакция откатывается
+     */
+    @Transactional
+    public List<TransactionEntity> flush(List<LedgerEntry> entries, Map<Long, BigDecimal> balanceDeltas,
+                                         Map<Long, Long> expectedVersions) {
+        List<Long> staleAccountIds = new ArrayList<>();
+        balanceDeltas.forEach((accountId, delta) -> {
+            if (bankAccountRepository.applyBalanceDeltaAtVersion(accountId, delta,
+                    expectedVersions.get(accountId)) == 0) {
+                staleAccountIds.add(accountId);
+            }
+        });
+        if (!staleAccountIds.isEmpty()) {
+            throw new StaleAccountStateException(staleAccountIds);
+        }
+        accountStateCache.refreshAfterCommit(balanceDeltas.keySet());
+
+        List<TransactionEntity> transactionEntities = new ArrayList<>(entries.size());
+        for (LedgerEntry entry : entries) {
+            BankAccountEntity account = bankAccountRepository.getReferenceById(entry.getAccountId());
+            TransactionEntity transactionEntity = transactionMapper.toEntity(entry.getMessage());
+            transactionEntity.setBankAccountEntity(account);
+            transactionEntities.add(transactionEntity);
+        }
+
+        List<TransactionEntity> savedTransactions = transactionRepository.saveAll(transactionEntities);
+        for (TransactionEntity saved : savedTransactions) {
+            transactionHistoryCache.appendAfterCommit(saved.getBankAccountEntity().getId(),
+                    transactionMapper.toHistoryEntry(saved));
+        }
+
+        List<OutboxMessage> events = new ArrayList<>();
+        List<Long> processedIds = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            LedgerEntry entry = entries.get(i);
+            if (entry.isCreateOutbox()) {
+                events.add(outboxEventFactory.createTransferCompletedEvent(savedTransactions.get(i)));
+            }
+            if (entry.isExactlyOnce()) {
+                processedIds.add(entry.getMessage().getId());
+            }
+        }
+        if (!events.isEmpty()) {
+            outboxMessageRepository.saveAll(events);
+            outboxNotifier.notifyPending();
+        }
+        idempotencyStore.markProcessed(processedIds);
+
+        log.debug("[Ledger] Группа записана: transactions={}, accounts={}, outbox={}",
+                entries.size(), balanceDeltas.size(), events.size());
+        return savedTransactions;
+    }
+}
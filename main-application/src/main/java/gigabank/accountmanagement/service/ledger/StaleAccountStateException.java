@@ -0,0 +1,20 @@
+package gigabank.accountmanagement.service.ledger;
+
+import java.util.List;
+
+/**
+ * Счета группы изменены в обход шарда ledger: версия строки bank_account не совпала с резидентной.
+ * Откатывает запись группы; шард перечитывает состояние счетов и повторяет группу
+ */
+class StaleAccountStateException extends RuntimeException {
+    private final List<Long> accountIds;
+
+    StaleAccountStateException(List<Long> accountIds) {
+        super("Состояние счетов ledger устарело: accountIds=" + accountIds);
+        this.accountIds = accountIds;
+    }
+
+    List<Long> getAccountIds() {
+        return accountIds;
+    }
+}
@@ -0,0 +1,62 @@
+package gigabank.accountmanagement.service.load;
+
+import gigabank.accountmanagement.enums.KeyDistribution;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Выбор счета для очередной транзакции генератора нагрузки.
+ * Для распределения Ципфа функция распределения считается один раз, выбор — бинарный поиск по ней;
+ * ранг счета совпадает с его позицией в списке, поэтому горячие счета — первые по порядку.
+ * Потокобезопасен: состояние после создания не меняется, случайные числа берутся из ThreadLocalRandom
+ */
+public class AccountKeySampler {
+    private final long[] accountIds;
+    private final double[] cumulative;
+
+    /**
+     * @param accountIds идентификаторы счетов в порядке убывания «горячести»
+     * @param distribution распределение ключей
+     * @param zipfExponent показатель s распределения Ципфа, используется только для ZIPF
+     */
+    public AccountKeySampler(List<Long> accountIds, KeyDistribution distribution, double zipfExponent) {
+        if (accountIds.isEmpty()) {
+            throw new IllegalArgumentException("Список счетов пуст");
+        }
+        this.accountIds = accountIds.stream().mapToLong(Long::longValue).toArray();
+        this.cumulative = distribution == KeyDistribution.ZIPF ? zipfCumulative(this.accountIds.length, zipfExponent) : null;
+    }
+
+    public long next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (cumulative == null) {
+            return accountIds[random.nextInt(accountIds.length)];
+        }
+
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return accountIds[index >= 0 ? index : Math.min(-index - 1, accountIds.length - 1)];
+    }
+
+    public int size() {
+        return accountIds.length;
+    }
+
+    private static double[] zipfCumulative(int n, double exponent) {
+        if (exponent <= 0) {
+            throw new IllegalArgumentException("Показатель распределения Ципфа должен быть положительным: " + exponent);
+        }
+
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= sum;
+        }
+        return cumulative;
+    }
+}
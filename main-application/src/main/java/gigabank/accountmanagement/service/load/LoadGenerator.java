@@ -0,0 +1,118 @@
+package gigabank.accountmanagement.service.load;
+
+import gigabank.accountmanagement.dto.request.LoadTestRequest;
+import gigabank.accountmanagement.dto.response.LoadTestReport;
+import gigabank.accountmanagement.exception.ValidationException;
+import gigabank.accountmanagement.kafka.producer.TransactionKafkaProducer;
+import gigabank.accountmanagement.repository.BankAccountRepository;
+import gigabank.accountmanagement.service.TransactionLoadService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Генератор нагрузки: запускает прогоны LoadRun в фоне, одновременно выполняется не больше одного прогона.
+ * Ход прогона доступен через report() во время выполнения, итог — после завершения
+ */
+@Slf4j
+@Service
+public class LoadGenerator {
+    private final TransactionKafkaProducer producer;
+    private final TransactionLoadService loadService;
+    private final BankAccountRepository bankAccountRepository;
+    private final int maxThreads;
+    private final int maxDurationSeconds;
+    private final int transactionSize;
+    private final long progressIntervalMillis;
+
+    private final AtomicLong runIds = new AtomicLong();
+    private final AtomicReference<LoadRun> lastRun = new AtomicReference<>();
+
+    public LoadGenerator(TransactionKafkaProducer producer,
+                         TransactionLoadService loadService,
+                         BankAccountRepository bankAccountRepository,
+                         @Value("${app.load-test.max-threads:256}") int maxThreads,
+                         @Value("${app.load-test.max-duration-seconds:3600}") int maxDurationSeconds,
+                         @Value("${app.kafka.producer.transactional.records-per-transaction:500}") int transactionSize,
+                         @Value("${app.load-test.progress-interval-ms:5000}") long progressIntervalMillis) {
+        this.producer = producer;
+        this.loadService = loadService;
+        this.bankAccountRepository = bankAccountRepository;
+        this.maxThreads = maxThreads;
+        this.maxDurationSeconds = maxDurationSeconds;
+        this.transactionSize = transactionSize;
+        this.progressIntervalMillis = progressIntervalMillis;
+    }
+
+    /**
+     * Проверяет параметры и запускает прогон в фоновом потоке
+     *
+     * @return начальное состояние прогона
+     * @throws ValidationException если параметры некорректны, в базе нет счетов или предыдущий прогон не завершен
+     */
+    public LoadTestReport start(LoadTestRequest request) {
+        validate(request);
+        List<Long> accountIds = bankAccountRepository.findAllIds();
+        if (accountIds.isEmpty()) {
+            throw new ValidationException("В базе данных нет счетов");
+        }
+        AccountKeySampler sampler = new AccountKeySampler(accountIds, request.getKeyDistribution(),
+                request.getZipfExponent());
+
+        LoadRun current = lastRun.get();
+        if (current != null && current.isRunning()) {
+            throw new ValidationException("Прогон нагрузки " + current.getId() + " еще выполняется");
+        }
+        LoadRun run = new LoadRun(runIds.incrementAndGet(), request, sampler, producer, loadService,
+                transactionSize, progressIntervalMillis);
+        if (!lastRun.compareAndSet(current, run)) {
+            throw new ValidationException("Прогон нагрузки уже запущен");
+        }
+
+        log.info("Запуск прогона нагрузки {}: {}", run.getId(), request);
+        Thread.ofPlatform().name("load-run-" + run.getId()).daemon().start(run::execute);
+        return run.report();
+    }
+
+    /**
+     * @return ход текущего или итог последнего прогона
+     */
+    public Optional<LoadTestReport> report() {
+        return Optional.ofNullable(lastRun.get()).map(LoadRun::report);
+    }
+
+    /**
+     * Останавливает текущий прогон; неподтвержденные отправки дожидаются подтверждения
+     */
+    public Optional<LoadTestReport> stop() {
+        LoadRun run = lastRun.get();
+        if (run == null) {
+            return Optional.empty();
+        }
+        run.stop();
+        return Optional.of(run.report());
+    }
+
+    private void validate(LoadTestRequest request) {
+        if (request.getThreads() < 1 || request.getThreads() > maxThreads) {
+            throw new ValidationException("Число потоков должно быть от 1 до " + maxThreads);
+        }
+        if (request.getDurationSeconds() < 1 || request.getDurationSeconds() > maxDurationSeconds) {
+            throw new ValidationException("Длительность должна быть от 1 до " + maxDurationSeconds + " секунд");
+        }
+        if (request.getTargetRatePerSecond() < 0 || request.getTotalTransactions() < 0) {
+            throw new ValidationException("Интенсивность и число транзакций не могут быть отрицательными");
+        }
+        if (request.getZipfExponent() <= 0) {
+            throw new ValidationException("Показатель распределения Ципфа должен быть положительным");
+        }
+        if (request.getDeliveryMode() == null || request.getKeyDistribution() == null) {
+            throw new ValidationException("Не указан режим доставки или распределение ключей");
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package gigabank.accountmanagement.service.load;
+
+import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import gigabank.accountmanagement.dto.request.LoadTestRequest;
+import gigabank.accountmanagement.dto.response.LoadTestReport;
+import gigabank.accountmanagement.enums.LoadRunStatus;
+import gigabank.accountmanagement.kafka.producer.TransactionKafkaProducer;
+import gigabank.accountmanagement.service.TransactionLoadService;
+import gigabank.accountmanagement.service.metrics.LatencyTracker;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Один прогон генератора нагрузки.
+ * В режиме целевой интенсивности (открытая модель) каждый поток отправляет по своему расписанию
+ * с шагом threads / rate; если поток отстал, следующие записи уходят сразу, а задержка считается
+ * от запланированного момента — так пауза брокера попадает в распределение, а не пропадает из него
+ * (coordinated omission). Без целевой интенсивности потоки отправляют без пауз, задержка считается
+ * от фактической отправки. Exactly-once записи отправляются транзакциями по transactionSize записей,
+ * остальные режимы — асинхронно по одной
+ */
+@Slf4j
+public class LoadRun {
+    private static final long IN_FLIGHT_WAIT_MILLIS = 30_000;
+
+    @Getter
+    private final long id;
+    private final LoadTestRequest request;
+    private final AccountKeySampler sampler;
+    private final TransactionKafkaProducer producer;
+    private final TransactionLoadService loadService;
+    private final int transactionSize;
+    private final long progressIntervalMillis;
+    private final boolean exactlyOnce;
+
+    private final LatencyTracker latency;
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder acknowledged = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong sequence = new AtomicLong();
+    private final long baseTransactionId = System.currentTimeMillis() * 1000;
+
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos;
+    private volatile LoadRunStatus status = LoadRunStatus.RUNNING;
+    private volatile boolean stopRequested;
+    private volatile String error;
+
+    public LoadRun(long id, LoadTestRequest request, AccountKeySampler sampler, TransactionKafkaProducer producer,
+                   TransactionLoadService loadService, int transactionSize, long progressIntervalMillis) {
+        this.id = id;
+        this.request = request;
+        this.sampler = sampler;
+        this.producer = producer;
+        this.loadService = loadService;
+        this.transactionSize = transactionSize;
+        this.progressIntervalMillis = progressIntervalMillis;
+        this.exactlyOnce = "exactly-once".equalsIgnoreCase(request.getDeliveryMode());
+        long durationMillis = TimeUnit.SECONDS.toMillis(request.getDurationSeconds());
+        this.latency = new LatencyTracker(durationMillis + IN_FLIGHT_WAIT_MILLIS, System.currentTimeMillis());
+    }
+
+    /**
+     * Запускает потоки-продюсеры и ждет их завершения вместе с неподтвержденными отправками
+     */
+    public void execute() {
+        long deadline = startNanos + TimeUnit.SECONDS.toNanos(request.getDurationSeconds());
+        int threads = request.getThreads();
+        try (ExecutorService executor = request.isVirtualThreads()
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("load-" + id + "-", 0).daemon().factory())) {
+            for (int worker = 0; worker < threads; worker++) {
+                int lane = worker;
+                executor.execute(() -> produce(lane, deadline));
+            }
+            executor.shutdown();
+            while (!executor.awaitTermination(progressIntervalMillis, TimeUnit.MILLISECONDS)) {
+                logProgress();
+            }
+
+            awaitInFlight();
+            status = stopRequested ? LoadRunStatus.STOPPED : LoadRunStatus.COMPLETED;
+        } catch (Exception e) {
+            error = e.getMessage();
+            status = LoadRunStatus.FAILED;
+            log.error("Прогон нагрузки {} завершился ошибкой: {}", id, e.getMessage(), e);
+        } finally {
+            endNanos = System.nanoTime();
+        }
+
+        LoadTestReport report = report();
+        log.info("Прогон нагрузки {} {}: отправлено={}, подтверждено={}, ошибок={}, {} tx/s, p50={} мс, p99={} мс, p99.9={} мс",
+                id, report.getStatus(), report.getSent(), report.getAcknowledged(), report.getFailed(),
+                Math.round(report.getAchievedRatePerSecond()), report.getLatency().getP50Ms(),
+                report.getLatency().getP99Ms(), report.getLatency().getP999Ms());
+    }
+
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public boolean isRunning() {
+        return status == LoadRunStatus.RUNNING;
+    }
+
+    public LoadTestReport report() {
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        double elapsedSeconds = Math.max(1, end - startNanos) / 1e9;
+        long acked = acknowledged.sum();
+
+        LoadTestReport report = new LoadTestReport();
+        report.setRunId(id);
+        report.setStatus(status);
+        report.setDeliveryMode(request.getDeliveryMode());
+        report.setKeyDistribution(request.getKeyDistribution().name());
+        report.setThreads(request.getThreads());
+        report.setVirtualThreads(request.isVirtualThreads());
+        report.setTargetRatePerSecond(request.getTargetRatePerSecond());
+        report.setAccounts(sampler.size());
+        report.setStartedAt(startedAt);
+        report.setElapsedSeconds(elapsedSeconds);
+        report.setSent(sent.sum());
+        report.setAcknowledged(acked);
+        report.setFailed(failed.sum());
+        report.setInFlight(inFlight.get());
+        report.setAchievedRatePerSecond(acked / elapsedSeconds);
+        report.setLatency(latency.snapshot(System.currentTimeMillis()));
+        report.setError(error);
+        return report;
+    }
+
+    private void produce(int lane, long deadline) {
+        double rate = request.getTargetRatePerSecond();
+        long intervalNanos = rate > 0 ? (long) (request.getThreads() * 1e9 / rate) : 0;
+        long intended = startNanos + intervalNanos * lane / request.getThreads();
+        List<TransactionMessage> chunk = new ArrayList<>(exactlyOnce ? transactionSize : 0);
+        List<Long> chunkIntended = new ArrayList<>(exactlyOnce ? transactionSize : 0);
+
+        try {
+            while (!stopRequested) {
+                long now = System.nanoTime();
+                if (intervalNanos > 0) {
+                    while (now < intended) {
+                        LockSupport.parkNanos(intended - now);
+                        now = System.nanoTime();
+                    }
+                } else {
+                    intended = now;
+                }
+                if (now >= deadline) {
+                    break;
+                }
+
+                long index = nextIndex();
+                if (index < 0) {
+                    break;
+                }
+
+                TransactionMessage message = loadService.createTransaction(baseTransactionId + index, sampler.next());
+                if (exactlyOnce) {
+                    chunk.add(message);
+                    chunkIntended.add(intended);
+                    if (chunk.size() == transactionSize) {
+                        sendChunk(chunk, chunkIntended);
+                    }
+                } else {
+                    send(message, intended);
+                }
+                intended += intervalNanos;
+            }
+
+            if (!chunk.isEmpty()) {
+                sendChunk(chunk, chunkIntended);
+            }
+        } catch (Exception e) {
+            error = e.getMessage();
+            log.error("Поток {} прогона нагрузки {} остановлен ошибкой: {}", lane, id, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return номер очередной транзакции или -1, если достигнут лимит totalTransactions
+     */
+    private long nextIndex() {
+        long index = sequence.getAndIncrement();
+        long limit = request.getTotalTransactions();
+        return limit > 0 && index >= limit ? -1 : index;
+    }
+
+    private void send(TransactionMessage message, long intended) {
+        sent.increment();
+        inFlight.incrementAndGet();
+        try {
+            producer.sendAsync(message, request.getDeliveryMode()).whenComplete((result, ex) -> {
+                if (ex == null) {
+                    acknowledged.increment();
+                    latency.recordNanos(System.nanoTime() - intended);
+                } else {
+                    failed.increment();
+                }
+                inFlight.decrementAndGet();
+            });
+        } catch (Exception e) {
+            failed.increment();
+            inFlight.decrementAndGet();
+            log.debug("Прогон нагрузки {}: отправка отклонена продюсером: {}", id, e.getMessage());
+        }
+    }
+
+    private void sendChunk(List<TransactionMessage> chunk, List<Long> chunkIntended) {
+        sent.add(chunk.size());
+        int delivered = producer.sendBatch(chunk, request.getDeliveryMode()).join();
+        long now = System.nanoTime();
+        if (delivered == chunk.size()) {
+            for (long intended : chunkIntended) {
+                latency.recordNanos(now - intended);
+            }
+        }
+        acknowledged.add(delivered);
+        failed.add(chunk.size() - delivered);
+        chunk.clear();
+        chunkIntended.clear();
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        long waitUntil = System.currentTimeMillis() + IN_FLIGHT_WAIT_MILLIS;
+        while (inFlight.get() > 0 && System.currentTimeMillis() < waitUntil) {
+            Thread.sleep(10);
+        }
+        if (inFlight.get() > 0) {
+            log.warn("Прогон нагрузки {}: {} отправок не подтверждены за {} мс",
+                    id, inFlight.get(), IN_FLIGHT_WAIT_MILLIS);
+        }
+    }
+
+    private void logProgress() {
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        log.info("Прогон нагрузки {}: {} с, отправлено={}, подтверждено={}, ошибок={}, в полете={}",
+                id, Math.round(elapsedSeconds), sent.sum(), acknowledged.sum(), failed.sum(), inFlight.get());
+    }
+}
@@ -0,0 +1,22 @@
+package gigabank.accountmanagement.service.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Распределение задержек за скользящее окно; задержки в миллисекундах
+ */
+@Getter
+@AllArgsConstructor
+public class LatencySnapshot {
+    private final long count;
+    private final long totalCount;
+    private final double windowSeconds;
+    private final double throughputPerSecond;
+    private final double meanMs;
+    private final double p50Ms;
+    private final double p90Ms;
+    private final double p99Ms;
+    private final double p999Ms;
+    private final double maxMs;
+}
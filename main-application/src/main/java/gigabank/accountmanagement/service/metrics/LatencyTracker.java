@@ -0,0 +1,107 @@
+package gigabank.accountmanagement.service.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Распределение задержек одного пути обработки за скользящее окно.
+ * Запись идет в HdrHistogram Recorder без блокировок; при снятии снимка накопленный интервал
+ * забирается из Recorder и добавляется в окно, интервалы старше окна отбрасываются и переиспользуются.
+ * Окно покрывается целыми интервалами, поэтому его фактическая длина — от windowMillis
+ * до windowMillis плюс период снятия снимков; пропускная способность считается по фактической длине.
+ * Значения хранятся в микросекундах с точностью двух значащих цифр, задержки больше часа обрезаются
+ */
+public class LatencyTracker {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Histogram window = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final ArrayDeque<Histogram> intervals = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long windowMillis;
+
+    private Histogram recycled;
+    private long lastRollMillis;
+    private long totalCount;
+    private volatile LatencySnapshot lastSnapshot;
+
+    /**
+     * @param windowMillis длительность скользящего окна
+     * @param nowMillis текущее время
+     */
+    public LatencyTracker(long windowMillis, long nowMillis) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("windowMillis должен быть положительным: " + windowMillis);
+        }
+        this.windowMillis = windowMillis;
+        this.lastRollMillis = nowMillis;
+        this.lastSnapshot = new LatencySnapshot(0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    public void recordNanos(long durationNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, durationNanos));
+        recorder.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+    }
+
+    /**
+     * Забирает интервал из Recorder и считает распределение по окну
+     *
+     * @param nowMillis текущее время
+     * @return снимок за последние windowMillis
+     */
+    public LatencySnapshot snapshot(long nowMillis) {
+        lock.lock();
+        try {
+            Histogram interval = recorder.getIntervalHistogram(recycled);
+            recycled = null;
+            interval.setStartTimeStamp(lastRollMillis);
+            interval.setEndTimeStamp(nowMillis);
+            lastRollMillis = nowMillis;
+            totalCount += interval.getTotalCount();
+            intervals.addLast(interval);
+
+            while (intervals.getFirst().getEndTimeStamp() < nowMillis - windowMillis) {
+                recycled = intervals.pollFirst();
+            }
+
+            window.reset();
+            for (Histogram histogram : intervals) {
+                window.add(histogram);
+            }
+
+            double windowSeconds = Math.max(1, nowMillis - intervals.getFirst().getStartTimeStamp()) / 1000.0;
+            long count = window.getTotalCount();
+
+            lastSnapshot = new LatencySnapshot(
+                    count,
+                    totalCount,
+                    windowSeconds,
+                    count / windowSeconds,
+                    count > 0 ? window.getMean() / 1000.0 : 0,
+                    percentileMs(50.0),
+                    percentileMs(90.0),
+                    percentileMs(99.0),
+                    percentileMs(99.9),
+                    window.getMaxValue() / 1000.0);
+            return lastSnapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return последний снятый снимок без обращения к Recorder
+     */
+    public LatencySnapshot lastSnapshot() {
+        return lastSnapshot;
+    }
+
+    private double percentileMs(double percentile) {
+        return window.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -7,10 +7,14 @@ import gigabank.accountmanagement.dto.request.DepositWithdrawRequest;
 import gigabank.accountmanagement.dto.request.TransactionGenerateRequest;
 import gigabank.accountmanagement.dto.response.TransactionGenerateResponse;
 import gigabank.accountmanagement.dto.response.UserAccountResponse;
+import gigabank.accountmanagement.exception.AccountUpdateConflictException;
 import gigabank.accountmanagement.exception.ErrorResponse;
+import gigabank.accountmanagement.model.BankAccountEntity;
 import gigabank.accountmanagement.model.UserEntity;
 import gigabank.accountmanagement.repository.BankAccountRepository;
 import gigabank.accountmanagement.repository.UserRepository;
+import gigabank.accountmanagement.service.AccountUpdateRetrier;
+import gigabank.accountmanagement.service.cache.AccountStateCache;
 import gigabank.accountmanagement.service.security.AuthService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -32,6 +36,9 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.servlet.config.MvcNamespaceHandler;
 
 import java.io.IOException;
@@ -39,6 +46,7 @@ import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.clearAllCaches;
@@ -67,6 +75,15 @@ public class BankAccountControllerIntegrationTest {
     @Autowired
     private BankAccountRepository bankAccountRepository;
 
+    @Autowired
+    private AccountStateCache accountStateCache;
+
+    @Autowired
+    private AccountUpdateRetrier accountUpdateRetrier;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private static final Long userId = 1L;
 
     private static final Long accountId = 1L;
@@ -79,6 +96,7 @@ public class BankAccountControllerIntegrationTest {
         if (cacheManager.getCache("usersCache") != null) {
             Objects.requireNonNull(cacheManager.getCache("usersCache")).clear();
         }
+        accountStateCache.evict(accountId);
     }
 
     @Test
@@ -252,6 +270,70 @@ public class BankAccountControllerIntegrationTest {
         assertNull(cache.get("user_" + userId), "Account cache should be evicted after deposit");
     }
 
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    @Sql(scripts = "/sql/insert-test-accounts.sql")
+    void deposit_shouldRefreshAccountState() throws Exception {
+        mockMvc.perform(get("/api/account-actions/" + accountId + "/balance"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(1000000.00));
+
+        DepositWithdrawRequest depositRequest = new DepositWithdrawRequest();
+        depositRequest.setAmount(new BigDecimal("100.00"));
+
+        mockMvc.perform(post("/api/account-actions/" + accountId + "/deposit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(depositRequest)))
+                .andExpect(status().isOk());
+
+        assertEquals(0, new BigDecimal("1000100.00").compareTo(
+                accountStateCache.getCached(accountId).orElseThrow().getBalance()),
+                "Account state should be written through after deposit");
+        mockMvc.perform(get("/api/account-actions/" + accountId + "/balance"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(1000100.00));
+    }
+
+    @Test
+    @Sql(scripts = "/sql/insert-test-accounts.sql")
+    void accountUpdate_shouldRetryAfterConcurrentBalanceDelta() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        BigDecimal balance = accountUpdateRetrier.execute(accountId, () -> {
+            BankAccountEntity account = bankAccountRepository.findById(accountId).orElseThrow();
+            if (attempts.incrementAndGet() == 1) {
+                applyConcurrentDelta(new BigDecimal("50.00"));
+            }
+            account.setBalance(account.getBalance().add(new BigDecimal("100.00")));
+            return account.getBalance();
+        });
+
+        assertEquals(2, attempts.get());
+        assertEquals(0, new BigDecimal("1000150.00").compareTo(balance));
+        assertEquals(0, new BigDecimal("1000150.00").compareTo(
+                bankAccountRepository.findById(accountId).orElseThrow().getBalance()),
+                "Retried update should apply on top of the concurrent delta");
+    }
+
+    @Test
+    @Sql(scripts = "/sql/insert-test-accounts.sql")
+    void accountUpdate_shouldFailWithConflictWhenRetriesExhausted() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(AccountUpdateConflictException.class, () -> accountUpdateRetrier.execute(accountId, () -> {
+            attempts.incrementAndGet();
+            BankAccountEntity account = bankAccountRepository.findById(accountId).orElseThrow();
+            applyConcurrentDelta(BigDecimal.ONE);
+            account.setBalance(account.getBalance().add(BigDecimal.TEN));
+            return account;
+        }));
+
+        assertEquals(3, attempts.get());
+        assertEquals(0, new BigDecimal("1000003.00").compareTo(
+                bankAccountRepository.findById(accountId).orElseThrow().getBalance()),
+                "Only the concurrent deltas should be committed");
+    }
+
     @Test
     @WithMockUser(username = "user", password = "password", roles = "USER")
     @Sql(scripts = "/sql/insert-test-accounts.sql")
@@ -300,4 +382,10 @@ public class BankAccountControllerIntegrationTest {
 
         assertNull(cache.get("user_" + userId), "Account cache should be evicted after toggle block");
     }
+
+    private void applyConcurrentDelta(BigDecimal delta) {
+        TransactionTemplate concurrent = new TransactionTemplate(transactionManager);
+        concurrent.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        concurrent.executeWithoutResult(status -> bankAccountRepository.applyBalanceDelta(accountId, delta));
+    }
 }
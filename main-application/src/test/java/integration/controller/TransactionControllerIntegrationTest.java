@@ -10,13 +10,13 @@ import gigabank.accountmanagement.repository.BankAccountRepository;
 import gigabank.accountmanagement.repository.TransactionRepository;
 import gigabank.accountmanagement.repository.UserRepository;
 import gigabank.accountmanagement.service.TransactionService;
-import org.junit.jupiter.api.Assertions;
+import gigabank.accountmanagement.service.cache.TransactionHistoryCache;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.kafka.test.context.EmbeddedKafka;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -28,7 +28,6 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
 
-import static org.hibernate.validator.internal.util.Contracts.assertNotNull;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -51,6 +50,9 @@ public class TransactionControllerIntegrationTest {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private TransactionHistoryCache transactionHistoryCache;
+
     @Autowired
     private BankAccountRepository bankAccountRepository;
 
@@ -67,9 +69,6 @@ public class TransactionControllerIntegrationTest {
         if (cacheManager.getCache("usersCache") != null) {
             Objects.requireNonNull(cacheManager.getCache("usersCache")).clear();
         }
-        if (cacheManager.getCache("transactionsCache") != null) {
-            Objects.requireNonNull(cacheManager.getCache("transactionsCache")).clear();
-        }
 
         transactionRepository.deleteAll();
         bankAccountRepository.deleteAll();
@@ -88,6 +87,7 @@ public class TransactionControllerIntegrationTest {
         account.setBlocked(false);
         BankAccountEntity savedAccount = bankAccountRepository.save(account);
         accountId = savedAccount.getId();
+        transactionHistoryCache.invalidate(accountId);
 
         for (int i = 0; i < 3; i++) {
             TransactionEntity transaction = TransactionEntity.builder()
@@ -104,24 +104,11 @@ public class TransactionControllerIntegrationTest {
     @Test
     @WithMockUser(username = "user", password = "password", roles = "USER")
     void getAccountTransactions_shouldCacheResult() throws Exception {
-        Cache cache = cacheManager.getCache("transactionsCache");
-        Assertions.assertNotNull(cache);
-        assertNull(cache.get("account_" + accountId), "Cache should be empty before first request");
-
         mockMvc.perform(get("/api/account-actions/" + accountId + "/transactions"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$.length()").value(3));
-
-        assertNotNull(cache, "transactionsCache should exist");
-        Cache.ValueWrapper wrapper = cache.get("account_" + accountId);
-        Assertions.assertNotNull(wrapper);
-        assertNotNull(wrapper, "Transactions should be cached after first request");
-
-        Object cachedObject = wrapper.get();
-        Assertions.assertNotNull(cachedObject);
-        assertNotNull(cachedObject);
-        assertInstanceOf(List.class, cachedObject);
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].accountOwnerName").value("Test User"));
 
         transactionRepository.deleteByAccountId(accountId);
 
@@ -130,24 +117,74 @@ public class TransactionControllerIntegrationTest {
         mockMvc.perform(get("/api/account-actions/" + accountId + "/transactions"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$.length()").value(3));
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[2].accountId").value(accountId));
     }
 
     @Test
     @WithMockUser(username = "user", password = "password", roles = "USER")
-    void generateTransactions_shouldEvictTransactionsCache() {
+    void generateTransactions_shouldAppendToHistory() {
         List<TransactionResponse> initialTransactions = transactionService.getAccountTransactions(accountId);
         assertEquals(3, initialTransactions.size());
 
-        Cache cache = cacheManager.getCache("transactionsCache");
-        Assertions.assertNotNull(cache);
-        assertNotNull(Objects.requireNonNull(cache.get("account_" + accountId)), "Transactions should be cached before generation");
-
         transactionService.generateTransactions(2, "at-least-once");
 
-        assertNull(cache.get("account_" + accountId), "Transactions cache should be evicted after generation");
-
         List<TransactionResponse> updatedTransactions = transactionService.getAccountTransactions(accountId);
-        assertNotNull(updatedTransactions);
+        assertEquals(5, updatedTransactions.size());
+        assertEquals(initialTransactions.get(2).getId(), updatedTransactions.get(2).getId());
+        assertTrue(updatedTransactions.get(3).getId() < updatedTransactions.get(4).getId());
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void getTransactionsPage_shouldPageFromNewest() throws Exception {
+        List<TransactionResponse> all = transactionService.getAccountTransactions(accountId);
+
+        mockMvc.perform(get("/api/account-actions/" + accountId + "/transactions")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions.length()").value(2))
+                .andExpect(jsonPath("$.transactions[0].id").value(all.get(2).getId()))
+                .andExpect(jsonPath("$.nextBeforeId").value(all.get(1).getId()));
+
+        mockMvc.perform(get("/api/account-actions/" + accountId + "/transactions")
+                        .param("limit", "2")
+                        .param("beforeId", String.valueOf(all.get(1).getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions.length()").value(1))
+                .andExpect(jsonPath("$.transactions[0].id").value(all.get(0).getId()))
+                .andExpect(jsonPath("$.nextBeforeId").doesNotExist());
+
+        mockMvc.perform(get("/api/account-actions/" + accountId + "/transactions")
+                        .param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void getFilteredTransactionsSeek_shouldContinueFromCursor() throws Exception {
+        String body = mockMvc.perform(get("/api/transactions/seek")
+                        .param("accountId", String.valueOf(accountId))
+                        .param("size", "2")
+                        .param("count", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions.length()").value(2))
+                .andExpect(jsonPath("$.totalCount").value(3))
+                .andExpect(jsonPath("$.nextCursor").isString())
+                .andReturn().getResponse().getContentAsString();
+        String cursor = JsonPath.read(body, "$.nextCursor");
+
+        mockMvc.perform(get("/api/transactions/seek")
+                        .param("accountId", String.valueOf(accountId))
+                        .param("size", "2")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions.length()").value(1))
+                .andExpect(jsonPath("$.totalCount").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/api/transactions/seek")
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
     }
 }
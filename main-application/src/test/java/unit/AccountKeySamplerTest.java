@@ -0,0 +1,52 @@
+package unit;
+
+import gigabank.accountmanagement.enums.KeyDistribution;
+import gigabank.accountmanagement.service.load.AccountKeySampler;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountKeySamplerTest {
+
+    private static final int SAMPLES = 100_000;
+    private final List<Long> accountIds = LongStream.rangeClosed(1, 100).boxed().toList();
+
+    @Test
+    void uniformSamplesEveryAccountEvenly() {
+        Map<Long, Integer> counts = sample(new AccountKeySampler(accountIds, KeyDistribution.UNIFORM, 1.1));
+
+        assertEquals(accountIds.size(), counts.size());
+        counts.values().forEach(count -> assertTrue(count > SAMPLES / 100 / 2, "count=" + count));
+    }
+
+    @Test
+    void zipfConcentratesLoadOnFirstAccounts() {
+        Map<Long, Integer> counts = sample(new AccountKeySampler(accountIds, KeyDistribution.ZIPF, 1.1));
+
+        // Для s = 1.1 и 100 счетов на первый приходится около 23% выборок, на первые десять — около 63%
+        int first = counts.getOrDefault(1L, 0);
+        int topTen = LongStream.rangeClosed(1, 10).mapToInt(id -> counts.getOrDefault(id, 0)).sum();
+        assertTrue(first > SAMPLES * 0.2 && first < SAMPLES * 0.26, "first=" + first);
+        assertTrue(topTen > SAMPLES * 0.58 && topTen < SAMPLES * 0.68, "topTen=" + topTen);
+        assertTrue(counts.getOrDefault(1L, 0) > counts.getOrDefault(100L, 0));
+    }
+
+    @Test
+    void emptyAccountListIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AccountKeySampler(List.of(), KeyDistribution.UNIFORM, 1.1));
+    }
+
+    private static Map<Long, Integer> sample(AccountKeySampler sampler) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (int i = 0; i < SAMPLES; i++) {
+            counts.merge(sampler.next(), 1, Integer::sum);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,132 @@
+package unit;
+
+import gigabank.accountmanagement.dto.kafka.DeadLetterMessage;
+import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import gigabank.accountmanagement.enums.TransactionType;
+import gigabank.accountmanagement.kafka.serialization.BinaryMessageCodec;
+import gigabank.accountmanagement.kafka.serialization.BinaryMessageDeserializer;
+import gigabank.accountmanagement.kafka.serialization.PooledTransactionBatch;
+import gigabank.accountmanagement.kafka.tracing.ProducedAtInterceptor;
+import gigabank.accountmanagement.kafka.tracing.TraceHeaders;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryMessageCodecTest {
+
+    private final TransactionMessage message = TransactionMessage.builder()
+            .id(100L)
+            .bankAccountId(1L)
+            .value(new BigDecimal("-1234.5600"))
+            .type(TransactionType.WITHDRAWAL)
+            .createdDate(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123456000))
+            .targetAccount("ACC001")
+            .category("SALARY")
+            .build();
+
+    @Test
+    void transactionMessageRoundTrip() {
+        byte[] encoded = BinaryMessageCodec.encode(message);
+
+        assertTrue(BinaryMessageCodec.isBinary(encoded));
+        assertEquals(message, BinaryMessageCodec.decode(encoded));
+    }
+
+    @Test
+    void decimalOutsideLongRangeRoundTrip() {
+        message.setValue(new BigDecimal("123456789012345678901234567890.12"));
+
+        assertEquals(message, BinaryMessageCodec.decode(BinaryMessageCodec.encode(message)));
+    }
+
+    @Test
+    void deadLetterMessageRoundTrip() {
+        DeadLetterMessage deadLetter = new DeadLetterMessage(message, new IllegalStateException("boom"),
+                "transactions-retry-dlt", 3, 42L, "transaction-service-retry-dlt");
+
+        DeadLetterMessage decoded = (DeadLetterMessage) BinaryMessageCodec.decode(BinaryMessageCodec.encode(deadLetter));
+
+        assertEquals(message, decoded.getOriginalMessage());
+        assertEquals("boom", decoded.getExceptionMessage());
+        assertEquals(3, decoded.getPartition());
+        assertEquals(42L, decoded.getOffset());
+        assertEquals(deadLetter.getTimestamp().withNano(deadLetter.getTimestamp().getNano() / 1000 * 1000),
+                decoded.getTimestamp());
+    }
+
+    @Test
+    void truncatedMessageIsRejected() {
+        byte[] encoded = BinaryMessageCodec.encode(message);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryMessageCodec.decode(Arrays.copyOf(encoded, 10)));
+    }
+
+    @Test
+    void deserializerFallsBackToJson() {
+        BinaryMessageDeserializer deserializer = new BinaryMessageDeserializer();
+        deserializer.configure(Map.of(
+                "spring.json.trusted.packages", "*",
+                "spring.json.use.type.headers", false,
+                "spring.json.value.default.type", TransactionMessage.class.getName()), false);
+
+        byte[] json = "{\"id\":100,\"value\":10.50,\"type\":\"DEPOSIT\",\"bankAccountId\":1}"
+                .getBytes(StandardCharsets.UTF_8);
+        TransactionMessage decoded = (TransactionMessage) deserializer.deserialize("transactions-batch", json);
+
+        assertEquals(100L, decoded.getId());
+        assertEquals(new BigDecimal("10.50"), decoded.getValue());
+        assertEquals(TransactionType.DEPOSIT, decoded.getType());
+    }
+
+    @Test
+    void traceHeadersCarryProduceTimeAndDecodeDuration() {
+        ProducerRecord<Object, Object> sent = new ProducedAtInterceptor()
+                .onSend(new ProducerRecord<>("transactions-batch", "1", message));
+        long producedAt = TraceHeaders.get(sent.headers(), TraceHeaders.PRODUCED_AT);
+        assertTrue(producedAt > 0 && producedAt <= TraceHeaders.nowMicros());
+
+        BinaryMessageDeserializer deserializer = new BinaryMessageDeserializer();
+        deserializer.configure(Map.of(), false);
+        RecordHeaders headers = new RecordHeaders(sent.headers().toArray());
+
+        assertEquals(message, deserializer.deserialize("transactions-batch", headers, BinaryMessageCodec.encode(message)));
+        assertTrue(TraceHeaders.get(headers, TraceHeaders.DESERIALIZE_NANOS) >= 0);
+        assertEquals(producedAt, TraceHeaders.get(headers, TraceHeaders.PRODUCED_AT));
+        assertEquals(-1, TraceHeaders.get(headers, TraceHeaders.POLLED_AT));
+    }
+
+    @Test
+    void pooledBatchDecodesBothFormatsIntoReusedHolders() {
+        byte[] json = "{\"id\":101,\"value\":10.50,\"type\":\"DEPOSIT\",\"bankAccountId\":2}"
+                .getBytes(StandardCharsets.UTF_8);
+        List<ConsumerRecord<String, byte[]>> records = List.of(
+                new ConsumerRecord<>("transactions-batch", 0, 0L, null, BinaryMessageCodec.encode(message)),
+                new ConsumerRecord<>("transactions-batch", 0, 1L, null, json),
+                new ConsumerRecord<>("transactions-batch", 0, 2L, null, new byte[]{1, 2, 3}));
+        PooledTransactionBatch batch = new PooledTransactionBatch();
+
+        List<TransactionMessage> first = batch.decode(records);
+        TransactionMessage firstHolder = first.get(0);
+
+        assertEquals(2, first.size());
+        assertEquals(message, first.get(0));
+        assertEquals(101L, first.get(1).getId());
+        assertNull(first.get(1).getTargetAccount());
+
+        List<TransactionMessage> second = batch.decode(records.subList(1, 2));
+        assertEquals(1, second.size());
+        assertSame(firstHolder, second.get(0));
+        assertEquals(new BigDecimal("10.50"), second.get(0).getValue());
+    }
+}
@@ -0,0 +1,79 @@
+package unit;
+
+import gigabank.accountmanagement.dto.response.BankAccountResponse;
+import gigabank.accountmanagement.dto.response.TransactionResponse;
+import gigabank.accountmanagement.dto.response.UserAccountResponse;
+import gigabank.accountmanagement.enums.TransactionType;
+import gigabank.accountmanagement.service.cache.BinaryCacheValueSerializer;
+import gigabank.accountmanagement.service.cache.CacheValueCodec;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheValueCodecTest {
+
+    private static TransactionResponse transaction(int i) {
+        return new TransactionResponse((long) i, new BigDecimal(i + ".25"), TransactionType.DEPOSIT, "SALARY",
+                LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123456000).plusMinutes(i), 7L, "Иван Петров");
+    }
+
+    @Test
+    void accountListRoundTrip() {
+        BankAccountResponse account = new BankAccountResponse(7L, "ACC007", new BigDecimal("1500.00"), 3L,
+                "Иван Петров", "ivan@example.com", true, List.of(transaction(1), transaction(2)));
+        BankAccountResponse sparse = new BankAccountResponse(8L, null, null, null, null, null, false, null);
+        List<BankAccountResponse> accounts = List.of(account, sparse);
+
+        assertTrue(CacheValueCodec.supports(accounts));
+        assertEquals(accounts, CacheValueCodec.decode(CacheValueCodec.encode(accounts, 0)));
+    }
+
+    @Test
+    void userRoundTrip() {
+        UserAccountResponse user = new UserAccountResponse(3L, "Иван Петров", "ivan@example.com", null);
+
+        assertEquals(user, CacheValueCodec.decode(CacheValueCodec.encode(user, 0)));
+    }
+
+    @Test
+    void largeListIsCompressed() {
+        List<TransactionResponse> transactions = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            transactions.add(transaction(i));
+        }
+
+        byte[] plain = CacheValueCodec.encode(transactions, 0);
+        byte[] compressed = CacheValueCodec.encode(transactions, 1024);
+
+        assertTrue(compressed.length < plain.length);
+        assertEquals(transactions, CacheValueCodec.decode(compressed));
+    }
+
+    @Test
+    void serializerReadsLegacyJsonAndFallsBackForOtherTypes() {
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+        BinaryCacheValueSerializer serializer = new BinaryCacheValueSerializer(json, true, 1024);
+        UserAccountResponse user = new UserAccountResponse(3L, "Иван", "ivan@example.com", "+70000000000");
+
+        assertEquals(user, serializer.deserialize(json.serialize(user)));
+        assertTrue(CacheValueCodec.isBinary(serializer.serialize(user)));
+        assertFalse(CacheValueCodec.isBinary(serializer.serialize(Map.of("key", "value"))));
+    }
+
+    @Test
+    void unknownVersionIsTreatedAsMiss() {
+        BinaryCacheValueSerializer serializer =
+                new BinaryCacheValueSerializer(new GenericJackson2JsonRedisSerializer(), true, 0);
+        byte[] encoded = serializer.serialize(transaction(1));
+        encoded[1] = CacheValueCodec.VERSION + 1;
+
+        assertNull(serializer.deserialize(encoded));
+    }
+}
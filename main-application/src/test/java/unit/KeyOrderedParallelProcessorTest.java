@@ -0,0 +1,76 @@
+package unit;
+
+import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import gigabank.accountmanagement.kafka.consumer.KeyOrderedParallelProcessor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeyOrderedParallelProcessorTest {
+    private final KeyOrderedParallelProcessor processor = new KeyOrderedParallelProcessor(true, 4, false);
+
+    @BeforeEach
+    void setUp() {
+        processor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.stop();
+    }
+
+    @Test
+    void preservesOrderPerAccount() {
+        List<ConsumerRecord<String, TransactionMessage>> records = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            records.add(record(i, i % 7));
+        }
+        Map<Long, List<Long>> processed = new ConcurrentHashMap<>();
+
+        processor.process(records, message -> processed
+                .computeIfAbsent(message.getBankAccountId(), id -> new CopyOnWriteArrayList<>())
+                .add(message.getId()));
+
+        assertEquals(7, processed.size());
+        processed.values().forEach(ids -> {
+            for (int i = 1; i < ids.size(); i++) {
+                assertTrue(ids.get(i - 1) < ids.get(i));
+            }
+        });
+    }
+
+    @Test
+    void reportsFirstFailedIndex() {
+        List<ConsumerRecord<String, TransactionMessage>> records = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            records.add(record(i, i % 4));
+        }
+
+        BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+                () -> processor.process(records, message -> {
+                    if (message.getId() == 13 || message.getId() == 6) {
+                        throw new IllegalStateException("boom " + message.getId());
+                    }
+                }));
+
+        assertEquals(6, exception.getIndex());
+    }
+
+    private static ConsumerRecord<String, TransactionMessage> record(long id, long accountId) {
+        TransactionMessage message = TransactionMessage.builder()
+                .id(id)
+                .bankAccountId(accountId)
+                .build();
+        return new ConsumerRecord<>("transactions-at-least-once", 0, id, String.valueOf(accountId), message);
+    }
+}
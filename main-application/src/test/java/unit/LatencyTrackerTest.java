@@ -0,0 +1,44 @@
+package unit;
+
+import gigabank.accountmanagement.service.metrics.LatencySnapshot;
+import gigabank.accountmanagement.service.metrics.LatencyTracker;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyTrackerTest {
+
+    @Test
+    void percentilesAndThroughputOverWindow() {
+        LatencyTracker tracker = new LatencyTracker(60_000, 0);
+        for (int ms = 1; ms <= 100; ms++) {
+            tracker.recordNanos(TimeUnit.MILLISECONDS.toNanos(ms));
+        }
+
+        LatencySnapshot snapshot = tracker.snapshot(10_000);
+
+        assertEquals(100, snapshot.getCount());
+        assertEquals(10.0, snapshot.getThroughputPerSecond(), 0.001);
+        assertEquals(50.0, snapshot.getP50Ms(), 1.0);
+        assertEquals(99.0, snapshot.getP99Ms(), 1.0);
+        assertEquals(100.0, snapshot.getMaxMs(), 1.0);
+        assertSame(snapshot, tracker.lastSnapshot());
+    }
+
+    @Test
+    void intervalsOlderThanWindowAreDropped() {
+        LatencyTracker tracker = new LatencyTracker(10_000, 0);
+        tracker.recordNanos(TimeUnit.SECONDS.toNanos(5));
+        tracker.snapshot(5_000);
+
+        tracker.recordNanos(TimeUnit.MILLISECONDS.toNanos(2));
+        LatencySnapshot snapshot = tracker.snapshot(20_000);
+
+        assertEquals(1, snapshot.getCount());
+        assertEquals(2, snapshot.getTotalCount());
+        assertEquals(2.0, snapshot.getMaxMs(), 0.1);
+        assertEquals(15.0, snapshot.getWindowSeconds(), 0.001);
+    }
+}
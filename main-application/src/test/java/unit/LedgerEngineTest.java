@@ -0,0 +1,147 @@
+package unit;
+
+import gigabank.accountmanagement.dto.kafka.TransactionMessage;
+import gigabank.accountmanagement.enums.TransactionType;
+import gigabank.accountmanagement.mapper.TransactionMapper;
+import gigabank.accountmanagement.model.BankAccountEntity;
+import gigabank.accountmanagement.model.TransactionEntity;
+import gigabank.accountmanagement.repository.BankAccountRepository;
+import gigabank.accountmanagement.repository.OutboxMessageRepository;
+import gigabank.accountmanagement.repository.OutboxNotifier;
+import gigabank.accountmanagement.repository.TransactionRepository;
+import gigabank.accountmanagement.service.OutboxEventFactory;
+import gigabank.accountmanagement.service.cache.AccountState;
+import gigabank.accountmanagement.service.cache.AccountStateCache;
+import gigabank.accountmanagement.service.cache.TransactionHistoryCache;
+import gigabank.accountmanagement.service.idempotency.IdempotencyStore;
+import gigabank.accountmanagement.service.ledger.LedgerEngine;
+import gigabank.accountmanagement.service.ledger.LedgerFlushService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class LedgerEngineTest {
+    private static final Long ACCOUNT_ID = 1L;
+
+    private final BankAccountRepository bankAccountRepository = mock(BankAccountRepository.class);
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final TransactionMapper transactionMapper = mock(TransactionMapper.class);
+    private final AtomicLong nextTransactionId = new AtomicLong(1);
+
+    private LedgerEngine ledgerEngine;
+
+    @BeforeEach
+    void setUp() {
+        BankAccountEntity account = new BankAccountEntity();
+        account.setId(ACCOUNT_ID);
+        when(bankAccountRepository.getReferenceById(ACCOUNT_ID)).thenReturn(account);
+        when(transactionMapper.toEntity(any(TransactionMessage.class))).thenAnswer(invocation -> new TransactionEntity());
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<TransactionEntity> entities = invocation.getArgument(0);
+            entities.forEach(entity -> entity.setId(nextTransactionId.getAndIncrement()));
+            return entities;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (ledgerEngine != null) {
+            ledgerEngine.stop();
+        }
+    }
+
+    @Test
+    void reloadsStateChangedOutsideLedgerAndRevalidatesGroup() throws Exception {
+        when(bankAccountRepository.findStateById(ACCOUNT_ID)).thenReturn(
+                Optional.of(new AccountState(ACCOUNT_ID, new BigDecimal("100.00"), false, 0)),
+                Optional.of(new AccountState(ACCOUNT_ID, new BigDecimal("30.00"), false, 1)));
+        when(bankAccountRepository.applyBalanceDeltaAtVersion(eq(ACCOUNT_ID), any(), eq(0L))).thenReturn(0);
+        when(bankAccountRepository.applyBalanceDeltaAtVersion(eq(ACCOUNT_ID), any(), eq(1L))).thenReturn(1);
+        ledgerEngine = startEngine(flushService(), 30000);
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> ledgerEngine.submitAndAwait(message(1L, TransactionType.WITHDRAWAL, "50.00"), false, false));
+
+        assertTrue(exception.getCause().getMessage().startsWith("Недостаточно средств"));
+        verify(bankAccountRepository, times(2)).findStateById(ACCOUNT_ID);
+        verify(bankAccountRepository, never()).applyBalanceDeltaAtVersion(eq(ACCOUNT_ID), any(), eq(1L));
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void skipsEntryCancelledByTimeout() throws Exception {
+        when(bankAccountRepository.findStateById(ACCOUNT_ID)).thenReturn(
+                Optional.of(new AccountState(ACCOUNT_ID, new BigDecimal("100.00"), false, 0)));
+        CountDownLatch flushStarted = new CountDownLatch(1);
+        CountDownLatch releaseFlush = new CountDownLatch(1);
+        when(bankAccountRepository.applyBalanceDeltaAtVersion(eq(ACCOUNT_ID), any(), anyLong())).thenAnswer(invocation -> {
+            flushStarted.countDown();
+            releaseFlush.await();
+            return 1;
+        });
+        ledgerEngine = startEngine(flushService(), 200);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> first = executor.submit(
+                    () -> ledgerEngine.submitAndAwait(message(1L, TransactionType.DEPOSIT, "10.00"), false, false));
+            assertTrue(flushStarted.await(5, TimeUnit.SECONDS));
+
+            assertThrows(TimeoutException.class,
+                    () -> ledgerEngine.submitAndAwait(message(2L, TransactionType.DEPOSIT, "20.00"), false, false));
+
+            releaseFlush.countDown();
+            assertEquals(1L, first.get(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+
+            verify(bankAccountRepository, times(1)).applyBalanceDeltaAtVersion(eq(ACCOUNT_ID), any(), anyLong());
+            verify(transactionMapper, times(1)).toEntity(any(TransactionMessage.class));
+        } finally {
+            releaseFlush.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private LedgerFlushService flushService() {
+        return new LedgerFlushService(bankAccountRepository, transactionRepository, mock(OutboxMessageRepository.class),
+                mock(OutboxNotifier.class), transactionMapper, mock(OutboxEventFactory.class),
+                mock(IdempotencyStore.class), mock(AccountStateCache.class), mock(TransactionHistoryCache.class));
+    }
+
+    private LedgerEngine startEngine(LedgerFlushService flushService, long submitTimeoutMs) {
+        LedgerEngine engine = new LedgerEngine(flushService, bankAccountRepository, mock(IdempotencyStore.class),
+                true, 1, 256, 5, 100, submitTimeoutMs);
+        engine.start();
+        return engine;
+    }
+
+    private static TransactionMessage message(Long id, TransactionType type, String value) {
+        return TransactionMessage.builder()
+                .id(id)
+                .bankAccountId(ACCOUNT_ID)
+                .type(type)
+                .value(new BigDecimal(value))
+                .createdDate(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,47 @@
+package unit;
+
+import gigabank.accountmanagement.service.idempotency.OffHeapLongTimeSet;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapLongTimeSetTest {
+
+    @Test
+    void addAndContains() {
+        OffHeapLongTimeSet set = new OffHeapLongTimeSet(16, 1_000);
+
+        set.add(42L, 100);
+        set.add(-7L, 100);
+
+        assertTrue(set.contains(42L, 200));
+        assertTrue(set.contains(-7L, 200));
+        assertFalse(set.contains(43L, 200));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    void expiredEntriesAreNotReported() {
+        OffHeapLongTimeSet set = new OffHeapLongTimeSet(16, 1_000);
+
+        set.add(1L, 100);
+
+        assertTrue(set.contains(1L, 1_100));
+        assertFalse(set.contains(1L, 1_101));
+    }
+
+    @Test
+    void sizeStaysBoundedAndNewestEntriesSurvive() {
+        int maxEntries = 64;
+        OffHeapLongTimeSet set = new OffHeapLongTimeSet(maxEntries, 1_000_000);
+
+        for (long key = 1; key <= 1_000; key++) {
+            set.add(key, key);
+        }
+
+        assertTrue(set.size() <= maxEntries);
+        assertTrue(set.contains(1_000L, 1_000));
+        assertFalse(set.contains(1L, 1_000));
+        assertEquals(1_000 - set.size(), set.evictions());
+    }
+}
@@ -0,0 +1,70 @@
+package unit;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import gigabank.accountmanagement.service.cache.TwoTierCache;
+import gigabank.accountmanagement.service.cache.TwoTierCacheManager;
+import gigabank.accountmanagement.service.cache.TwoTierCacheStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TwoTierCacheTest {
+
+    private final ConcurrentMapCache remote = new ConcurrentMapCache("accountsCache");
+    private final List<String> published = new ArrayList<>();
+    private final TwoTierCache cache = new TwoTierCache("accountsCache", remote,
+            Caffeine.newBuilder().maximumSize(100).recordStats().build(), published::add);
+
+    @Test
+    void remoteHitIsServedLocallyAfterwards() {
+        remote.put("account_1", "value");
+
+        assertEquals("value", cache.get("account_1", String.class));
+        remote.evict("account_1");
+        assertEquals("value", cache.get("account_1", String.class));
+
+        TwoTierCacheStats stats = cache.getStats();
+        assertEquals(1, stats.getLocalHits());
+        assertEquals(1, stats.getRemoteHits());
+        assertEquals(0, stats.getRemoteMisses());
+    }
+
+    @Test
+    void evictClearsBothTiersAndPublishesKey() {
+        cache.put("account_1", "value");
+        cache.evict("account_1");
+
+        assertNull(cache.get("account_1"));
+        assertNull(remote.get("account_1"));
+        assertEquals(List.of("account_1", "account_1"), published);
+    }
+
+    @Test
+    void invalidationFromAnotherNodeDropsLocalCopyOnly() {
+        ConcurrentMapCacheManager remoteManager = new ConcurrentMapCacheManager("accountsCache");
+        TwoTierCacheManager manager = new TwoTierCacheManager(remoteManager, null, new SimpleMeterRegistry(),
+                "invalidation", 100, Duration.ofMinutes(1));
+        Cache managed = manager.getCache("accountsCache");
+        managed.put("account_1", "value");
+        remoteManager.getCache("accountsCache").put("account_1", "updated");
+
+        assertEquals("value", managed.get("account_1", String.class));
+        manager.onMessage(message("other-node\naccountsCache\naccount_1"), null);
+
+        assertEquals("updated", managed.get("account_1", String.class));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage("invalidation".getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}